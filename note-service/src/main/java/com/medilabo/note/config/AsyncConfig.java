@@ -0,0 +1,12 @@
+package com.medilabo.note.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Enables asynchronous execution for fire-and-forget notifications to other microservices
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
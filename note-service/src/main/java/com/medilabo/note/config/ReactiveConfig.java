@@ -0,0 +1,36 @@
+package com.medilabo.note.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Reactive mode of the note-service, selected with the reactive profile.
+ * Tomcat stays on the classpath for the default servlet mode, so Netty is chosen explicitly.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    /**
+     * Serve the reactive endpoints on Netty
+     *
+     * @return the Netty server factory
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * RestClient builder for the risk cache notifier, only auto-configured for servlet applications
+     *
+     * @return a RestClient builder
+     */
+    @Bean
+    public RestClient.Builder restClientBuilder() {
+        return RestClient.builder();
+    }
+}
@@ -1,22 +1,45 @@
 package com.medilabo.note.controller;
 
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.note.dto.BulkNoteRequest;
+import com.medilabo.note.dto.NoteContentResponse;
+import com.medilabo.note.dto.NotePageResponse;
 import com.medilabo.note.dto.NoteRequest;
+import com.medilabo.note.dto.NoteSearchResponse;
+import com.medilabo.note.dto.TriggerMaskResponse;
 import com.medilabo.note.model.Note;
+import com.medilabo.note.service.NoteBulkImportService;
+import com.medilabo.note.service.NoteSearchService;
 import com.medilabo.note.service.NoteService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * REST Controller for medical notes management - Sprint 2
  * REST endpoints to manage patient medical notes with MongoDB
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/notes")
 @RequiredArgsConstructor
 @Slf4j
@@ -24,6 +47,12 @@ public class NoteController {
 
     private final NoteService noteService;
 
+    private final NoteBulkImportService noteBulkImportService;
+
+    private final NoteSearchService noteSearchService;
+
+    private final ObjectMapper objectMapper;
+
     /**
      * GET /api/notes/patient/{patientId} - Get all notes for a patient
      *
@@ -37,21 +66,237 @@ public class NoteController {
         return ResponseEntity.ok(notes);
     }
 
+    /**
+     * GET /api/notes/patient/{patientId}/page - Page through a patient's notes, newest first
+     *
+     * @param patientId the patient ID
+     * @param cursor the token returned with the previous page, omitted for the first page
+     * @param from the earliest creation date, inclusive (ISO date-time), optional
+     * @param to the latest creation date, exclusive (ISO date-time), optional
+     * @param limit the maximum number of notes to return (1 to 100)
+     * @return the page of notes and the token of the next page, null on the last page
+     */
+    @GetMapping("/patient/{patientId}/page")
+    public ResponseEntity<NotePageResponse> getNotePageByPatientId(
+            @PathVariable String patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("GET /api/notes/patient/{}/page - cursor {} limit {}", patientId, cursor, limit);
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(noteService.getNotePage(patientId, cursor, from, to, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected note page request for patient {}: {}", patientId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * GET /api/notes/search - Search notes by keywords, across every patient or for one patient
+     *
+     * @param q the keywords, in MongoDB text search syntax (quoted phrases, -excluded terms)
+     * @param patientId the patient ID, optional
+     * @param from the earliest creation date, inclusive (ISO date-time), optional
+     * @param to the latest creation date, exclusive (ISO date-time), optional
+     * @param page the page number, from 0
+     * @param size the number of results per page (1 to 100)
+     * @return the page of results, most relevant first, with an excerpt of each note
+     */
+    @GetMapping("/search")
+    public ResponseEntity<NoteSearchResponse> searchNotes(
+            @RequestParam String q,
+            @RequestParam(required = false) String patientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("GET /api/notes/search - q {} patient {} page {}", q, patientId, page);
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(noteSearchService.search(q, patientId, from, to, page, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected note search: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * GET /api/notes/patient/{patientId}/contents - Stream only the content of a patient's notes as NDJSON
+     *
+     * @param patientId the patient ID
+     * @return one note content per line
+     */
+    @GetMapping(value = "/patient/{patientId}/contents", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamNoteContentsByPatientId(@PathVariable String patientId) {
+        log.info("GET /api/notes/patient/{}/contents", patientId);
+        return ndjson(() -> noteService.streamNoteContentsByPatientId(patientId).map(NoteContentResponse::new));
+    }
+
+    /**
+     * GET /api/notes/patient/{patientId}/history - Stream the date and content of a patient's notes
+     * as NDJSON, oldest first, so that the patient's history can be replayed in a single pass
+     *
+     * @param patientId the patient ID
+     * @return one note per line, ordered by creation date ascending
+     */
+    @GetMapping(value = "/patient/{patientId}/history", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamNoteHistoryByPatientId(@PathVariable String patientId) {
+        log.info("GET /api/notes/patient/{}/history", patientId);
+        return ndjson(() -> noteService.streamNoteHistoryByPatientId(patientId));
+    }
+
+    /**
+     * Write a stream as NDJSON, flushing each line as soon as it is read from the cursor,
+     * so a client that has seen enough can disconnect without the remaining lines being read or sent
+     *
+     * @param lines opens the stream to write, closed once written
+     * @return the streaming response
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(Supplier<Stream<?>> lines) {
+        StreamingResponseBody body = output -> {
+            try (Stream<?> stream = lines.get()) {
+                Iterator<?> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    output.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    output.write('\n');
+                    output.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * GET /api/notes/patient/{patientId}/trigger-mask - Get the combined trigger mask of a patient's notes
+     *
+     * @param patientId the patient ID
+     * @return the trigger mask and the dictionary version it was computed with
+     */
+    @GetMapping("/patient/{patientId}/trigger-mask")
+    public ResponseEntity<TriggerMaskResponse> getTriggerMask(@PathVariable String patientId) {
+        log.info("GET /api/notes/patient/{}/trigger-mask", patientId);
+        return ResponseEntity.ok(noteService.getTriggerMask(patientId));
+    }
+
     /**
      * POST /api/notes - Create a new note
      *
      * @param request the note request containing patient ID, content and author name
-     * @return the created note
+     * @return the created note, or 503 if grouped writes are saturated or stopped
      */
     @PostMapping
     public ResponseEntity<Note> createNote(@Valid @RequestBody NoteRequest request) {
         log.info("POST /api/notes - Creating note for patient {}", request.getPatientId());
-        Note note = noteService.createNote(
-                request.getPatientId(),
-                request.getContent(),
-                request.getAuthorName()
-        );
-        return ResponseEntity.status(HttpStatus.CREATED).body(note);
+        try {
+            Note note = noteService.createNote(
+                    request.getPatientId(),
+                    request.getContent(),
+                    request.getAuthorName()
+            );
+            return ResponseEntity.status(HttpStatus.CREATED).body(note);
+        } catch (IllegalStateException e) {
+            log.warn("Note for patient {} not created: {}", request.getPatientId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * POST /api/notes/bulk - Import many notes at once, as a JSON array or as NDJSON (one note per line).
+     * Notes are read from the request as they are written and their results are streamed back chunk by chunk,
+     * so neither the whole body nor all the results are ever held in memory.
+     *
+     * @param body the request body
+     * @return one result per line, in request order, with the ID of each stored note or the reason it was rejected
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importNotes(InputStream body) {
+        log.info("POST /api/notes/bulk");
+        StreamingResponseBody results = output -> {
+            try (MappingIterator<BulkNoteRequest> values = objectMapper.readerFor(BulkNoteRequest.class).readValues(body)) {
+                noteBulkImportService.importNotes(noteRequests(values), result -> {
+                    try {
+                        output.write(objectMapper.writeValueAsBytes(result));
+                        output.write('\n');
+                        output.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(results);
+    }
+
+    /**
+     * Read note requests one at a time. A note that cannot be mapped is returned as null and reading resumes
+     * with the next one; if the body itself is not valid JSON, a last null is returned and reading stops.
+     *
+     * @param values the values of the request body
+     * @return the note requests
+     */
+    private static Iterator<BulkNoteRequest> noteRequests(MappingIterator<BulkNoteRequest> values) {
+        return new Iterator<>() {
+
+            private boolean broken;
+
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (broken) {
+                    return !done;
+                }
+                try {
+                    return values.hasNextValue();
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Stopped reading bulk notes: {}", e.getMessage());
+                    broken = true;
+                    return true;
+                }
+            }
+
+            @Override
+            public BulkNoteRequest next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (broken) {
+                    done = true;
+                    return null;
+                }
+                try {
+                    return values.nextValue();
+                } catch (IOException e) {
+                    if (isSyntaxError(e)) {
+                        log.warn("Stopped reading bulk notes: {}", e.getMessage());
+                        broken = true;
+                        done = true;
+                    } else {
+                        log.debug("Malformed bulk note: {}", e.getMessage());
+                    }
+                    return null;
+                }
+            }
+
+        };
+    }
+
+    private static boolean isSyntaxError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StreamReadException) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -0,0 +1,154 @@
+package com.medilabo.note.controller;
+
+import com.medilabo.note.dto.NoteContentResponse;
+import com.medilabo.note.dto.NoteHistoryResponse;
+import com.medilabo.note.dto.NotePageResponse;
+import com.medilabo.note.dto.NoteRequest;
+import com.medilabo.note.dto.TriggerMaskResponse;
+import com.medilabo.note.model.Note;
+import com.medilabo.note.service.ReactiveNoteService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reactive REST Controller for medical notes management, served on Netty by the reactive profile.
+ * Same endpoints as {@link NoteController} except the bulk import and the search; lists are written to the response
+ * as they are read from the MongoDB cursor, at the pace the client reads them.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/notes")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveNoteController {
+
+    private final ReactiveNoteService reactiveNoteService;
+
+    /**
+     * GET /api/notes/patient/{patientId} - Get all notes for a patient
+     *
+     * @param patientId the patient ID
+     * @return flux of notes for the patient
+     */
+    @GetMapping("/patient/{patientId}")
+    public Flux<Note> getNotesByPatientId(@PathVariable String patientId) {
+        log.info("GET /api/notes/patient/{}", patientId);
+        return reactiveNoteService.getNotesByPatientId(patientId);
+    }
+
+    /**
+     * GET /api/notes/patient/{patientId}/page - Page through a patient's notes, newest first
+     *
+     * @param patientId the patient ID
+     * @param cursor the token returned with the previous page, omitted for the first page
+     * @param from the earliest creation date, inclusive (ISO date-time), optional
+     * @param to the latest creation date, exclusive (ISO date-time), optional
+     * @param limit the maximum number of notes to return (1 to 100)
+     * @return the page of notes and the token of the next page, null on the last page
+     */
+    @GetMapping("/patient/{patientId}/page")
+    public Mono<ResponseEntity<NotePageResponse>> getNotePageByPatientId(
+            @PathVariable String patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("GET /api/notes/patient/{}/page - cursor {} limit {}", patientId, cursor, limit);
+        if (limit < 1 || limit > 100) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return reactiveNoteService.getNotePage(patientId, cursor, from, to, limit)
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.warn("Rejected note page request for patient {}: {}", patientId, e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().build());
+                });
+    }
+
+    /**
+     * GET /api/notes/patient/{patientId}/contents - Stream only the content of a patient's notes as NDJSON
+     *
+     * @param patientId the patient ID
+     * @return one note content per line
+     */
+    @GetMapping(value = "/patient/{patientId}/contents", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<NoteContentResponse> streamNoteContentsByPatientId(@PathVariable String patientId) {
+        log.info("GET /api/notes/patient/{}/contents", patientId);
+        return reactiveNoteService.streamNoteContentsByPatientId(patientId).map(NoteContentResponse::new);
+    }
+
+    /**
+     * GET /api/notes/patient/{patientId}/history - Stream the date and content of a patient's notes
+     * as NDJSON, oldest first
+     *
+     * @param patientId the patient ID
+     * @return one note per line, ordered by creation date ascending
+     */
+    @GetMapping(value = "/patient/{patientId}/history", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<NoteHistoryResponse> streamNoteHistoryByPatientId(@PathVariable String patientId) {
+        log.info("GET /api/notes/patient/{}/history", patientId);
+        return reactiveNoteService.streamNoteHistoryByPatientId(patientId);
+    }
+
+    /**
+     * GET /api/notes/patient/{patientId}/trigger-mask - Get the combined trigger mask of a patient's notes
+     *
+     * @param patientId the patient ID
+     * @return the trigger mask and the dictionary version it was computed with
+     */
+    @GetMapping("/patient/{patientId}/trigger-mask")
+    public Mono<TriggerMaskResponse> getTriggerMask(@PathVariable String patientId) {
+        log.info("GET /api/notes/patient/{}/trigger-mask", patientId);
+        return reactiveNoteService.getTriggerMask(patientId);
+    }
+
+    /**
+     * POST /api/notes - Create a new note
+     *
+     * @param request the note request containing patient ID, content and author name
+     * @return the created note
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Note> createNote(@Valid @RequestBody NoteRequest request) {
+        log.info("POST /api/notes - Creating note for patient {}", request.getPatientId());
+        return reactiveNoteService.createNote(request.getPatientId(), request.getContent(), request.getAuthorName());
+    }
+
+    /**
+     * PUT /api/notes/{noteId} - Update an existing note
+     *
+     * @param noteId the note ID
+     * @param request the note request with updated content
+     * @return the updated note
+     */
+    @PutMapping("/{noteId}")
+    public Mono<Note> updateNote(@PathVariable String noteId, @RequestBody NoteRequest request) {
+        log.info("PUT /api/notes/{}", noteId);
+        return reactiveNoteService.updateNote(noteId, request.getContent());
+    }
+
+    /**
+     * DELETE /api/notes/{noteId} - Delete a note
+     *
+     * @param noteId the note ID
+     * @return 204 No Content if successful
+     */
+    @DeleteMapping("/{noteId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteNote(@PathVariable String noteId) {
+        log.info("DELETE /api/notes/{}", noteId);
+        return reactiveNoteService.deleteNote(noteId);
+    }
+}
@@ -0,0 +1,28 @@
+package com.medilabo.note.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for one note of a bulk import, which may keep the date the note was written in the source system
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNoteRequest {
+
+    @NotNull(message = "Patient ID is required")
+    private String patientId;
+
+    @NotBlank(message = "Content cannot be empty")
+    private String content;
+
+    private String authorName;
+
+    private LocalDateTime createdAt; // Original creation date, now if omitted
+}
@@ -0,0 +1,20 @@
+package com.medilabo.note.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the outcome of one note of a bulk import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNoteResult {
+
+    private int index; // Position of the note in the request, from 0
+
+    private String id; // ID of the stored note, null if it was rejected
+
+    private String error; // Reason the note was rejected, null if it was stored
+}
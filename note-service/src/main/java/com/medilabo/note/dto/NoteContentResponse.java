@@ -0,0 +1,16 @@
+package com.medilabo.note.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO exposing only the content of a note
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteContentResponse {
+
+    private String content;
+}
@@ -0,0 +1,47 @@
+package com.medilabo.note.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last note of a page, in (createdAt, id) descending order
+ * Sent to clients as an opaque URL-safe token
+ *
+ * @param createdAt the creation date of the last note, null for an undated note (those come last)
+ * @param id the ID of the last note, which breaks ties between notes created at the same time
+ */
+public record NoteCursor(LocalDateTime createdAt, String id) {
+
+    /**
+     * Encode the cursor as a token
+     *
+     * @return the token
+     */
+    public String encode() {
+        String value = (createdAt == null ? "" : createdAt.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token returned with a previous page
+     *
+     * @param token the token
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static NoteCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            if (separator < 0 || separator == value.length() - 1) {
+                throw new IllegalArgumentException("Invalid note cursor: " + token);
+            }
+            LocalDateTime createdAt = separator == 0 ? null : LocalDateTime.parse(value.substring(0, separator));
+            return new NoteCursor(createdAt, value.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid note cursor: " + token, e);
+        }
+    }
+}
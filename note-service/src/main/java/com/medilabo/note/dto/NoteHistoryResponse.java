@@ -0,0 +1,20 @@
+package com.medilabo.note.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO exposing a note's creation date and content, for replaying a patient's history
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteHistoryResponse {
+
+    private LocalDateTime createdAt;
+
+    private String content;
+}
@@ -0,0 +1,37 @@
+package com.medilabo.note.dto;
+
+import com.medilabo.note.model.Note;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for one page of a patient's notes, newest first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotePageResponse {
+
+    private List<Note> notes;
+
+    private String nextCursor; // Token to pass as cursor for the next page, null on the last page
+
+    /**
+     * Build a page from the notes fetched for it, one more than the page size if there is a next page
+     *
+     * @param notes the notes fetched, newest first, at most limit + 1
+     * @param limit the maximum number of notes in the page
+     * @return the page, with the token of the next page if the extra note was found
+     */
+    public static NotePageResponse of(List<Note> notes, int limit) {
+        if (notes.size() <= limit) {
+            return new NotePageResponse(notes, null);
+        }
+        List<Note> page = List.copyOf(notes.subList(0, limit));
+        Note last = page.get(limit - 1);
+        return new NotePageResponse(page, new NoteCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+}
@@ -0,0 +1,24 @@
+package com.medilabo.note.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for one page of search results, most relevant first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSearchResponse {
+
+    private List<NoteSearchResult> results;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasMore; // Whether the next page has results
+}
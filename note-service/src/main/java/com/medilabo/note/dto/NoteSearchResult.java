@@ -0,0 +1,28 @@
+package com.medilabo.note.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a note matching a search, with an excerpt around the first matched keyword
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSearchResult {
+
+    private String id;
+
+    private String patientId;
+
+    private LocalDateTime createdAt;
+
+    private String authorName;
+
+    private float score; // Relevance computed by the text index, higher is better
+
+    private String snippet;
+}
@@ -0,0 +1,22 @@
+package com.medilabo.note.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO exposing the union of the trigger masks of a patient's notes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TriggerMaskResponse {
+
+    private String patientId;
+
+    private int dictionaryVersion;
+
+    private long mask;
+
+    private int noteCount;
+}
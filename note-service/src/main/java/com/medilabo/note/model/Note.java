@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -11,24 +13,37 @@ import java.time.LocalDateTime;
 /**
  * Note entity
  * Represents a medical note for a patient
+ * The compound index serves a patient's notes newest first, and keyset pages on (createdAt, id), from the index order
+ * The text index on the content serves keyword search across notes
+ * It has no patientId prefix: MongoDB allows one text index per collection, and a prefixed one would reject every
+ * search without a patient. A patient search therefore reads every note of the practice holding the terms, then
+ * filters on the patient
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "notes")
+@CompoundIndex(name = Note.PATIENT_NOTES_INDEX, def = "{ 'patientId': 1, 'createdAt': -1, '_id': -1 }")
 public class Note {
 
+    public static final String PATIENT_NOTES_INDEX = "patientId_createdAt_desc";
+
     @Id
     private String id;
 
     private String patientId;
 
+    @TextIndexed
     private String content;
 
     private LocalDateTime createdAt;
 
     private String authorName; // Practitioner name
 
+    private Long triggerMask; // Bit i set when trigger i of the dictionary appears in the content
+
+    private Integer triggerDictionaryVersion; // Dictionary version the mask was computed with
+
     /**
      * Constructor with required fields
      *
@@ -0,0 +1,9 @@
+package com.medilabo.note.repository;
+
+/**
+ * Projection of a note on its content only
+ */
+public interface NoteContent {
+
+    String getContent();
+}
@@ -0,0 +1,13 @@
+package com.medilabo.note.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a note on its creation date and content
+ */
+public interface NoteHistoryEntry {
+
+    LocalDateTime getCreatedAt();
+
+    String getContent();
+}
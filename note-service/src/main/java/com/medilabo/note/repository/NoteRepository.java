@@ -1,16 +1,21 @@
 package com.medilabo.note.repository;
 
 import com.medilabo.note.model.Note;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository for medical notes
  */
 @Repository
-public interface NoteRepository extends MongoRepository<Note, String> {
+@Profile("!reactive")
+public interface NoteRepository extends MongoRepository<Note, String>, NoteRepositoryCustom {
 
     /**
      * Find all notes for a patient ordered by creation date descending
@@ -19,5 +24,42 @@ public interface NoteRepository extends MongoRepository<Note, String> {
      * @return list of notes sorted by creation date (newest first)
      */
     List<Note> findByPatientIdOrderByCreatedAtDesc(String patientId);
-}
 
+    /**
+     * Stream the content of all notes for a patient from a MongoDB cursor, reading no other field.
+     * The stream must be closed to release the cursor.
+     *
+     * @param patientId the patient ID
+     * @return stream of note contents
+     */
+    @Query(value = "{ 'patientId': ?0 }", fields = "{ 'content': 1, '_id': 0 }")
+    Stream<NoteContent> streamContentsByPatientId(String patientId);
+
+    /**
+     * Stream the creation date and content of all notes for a patient, oldest first, from a MongoDB cursor.
+     * The stream must be closed to release the cursor.
+     *
+     * @param patientId the patient ID
+     * @return stream of notes ordered by creation date ascending
+     */
+    Stream<NoteHistoryEntry> streamHistoryByPatientIdOrderByCreatedAtAsc(String patientId);
+
+    /**
+     * Find the trigger masks of all notes for a patient, without their content
+     *
+     * @param patientId the patient ID
+     * @return list of notes holding only their ID, mask and dictionary version
+     */
+    @Query(value = "{ 'patientId': ?0 }", fields = "{ 'triggerMask': 1, 'triggerDictionaryVersion': 1 }")
+    List<Note> findTriggerMasksByPatientId(String patientId);
+
+    /**
+     * Find notes whose trigger mask was not computed with the given dictionary version,
+     * including notes written before masks existed
+     *
+     * @param version the current dictionary version
+     * @param pageable the batch to fetch
+     * @return list of notes with a stale or missing mask
+     */
+    List<Note> findByTriggerDictionaryVersionNot(int version, Pageable pageable);
+}
@@ -0,0 +1,49 @@
+package com.medilabo.note.repository;
+
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.model.Note;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Note queries built at runtime, implemented with MongoTemplate
+ */
+public interface NoteRepositoryCustom {
+
+    /**
+     * Find a page of a patient's notes in (createdAt, id) descending order, following the patient notes index
+     *
+     * @param patientId the patient ID
+     * @param after the last note of the previous page, exclusive, or null for the first page
+     * @param from the earliest creation date, inclusive, or null
+     * @param to the latest creation date, exclusive, or null
+     * @param limit the maximum number of notes to return
+     * @return the notes of the page, newest first
+     */
+    List<Note> findPageByPatientId(String patientId, NoteCursor after, LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Search notes by keywords with the text index, most relevant first
+     *
+     * @param text the keywords, in MongoDB text search syntax (quoted phrases, -excluded terms)
+     * @param patientId the patient ID, or null to search every patient
+     * @param from the earliest creation date, inclusive, or null
+     * @param to the latest creation date, exclusive, or null
+     * @param skip the number of matching notes to skip
+     * @param limit the maximum number of notes to return
+     * @return the matching notes, by descending relevance then newest first
+     */
+    List<NoteSearchHit> searchNotes(String text, String patientId, LocalDateTime from, LocalDateTime to,
+                                    int skip, int limit);
+
+    /**
+     * Store recomputed trigger masks with one unordered bulk update that sets only the mask and its
+     * dictionary version. A note whose content changed since it was read is left alone, since the
+     * edit stored the mask of the new content.
+     *
+     * @param notes the re-tagged notes, holding the content their mask was computed from
+     * @return the number of notes updated
+     */
+    int updateTriggerMasks(List<Note> notes);
+}
@@ -0,0 +1,144 @@
+package com.medilabo.note.repository;
+
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.model.Note;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MongoTemplate implementation of the keyset note queries, the text search and the trigger mask updates
+ */
+@RequiredArgsConstructor
+public class NoteRepositoryCustomImpl implements NoteRepositoryCustom {
+
+    static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<NoteSearchHit> searchNotes(String text, String patientId, LocalDateTime from, LocalDateTime to,
+                                           int skip, int limit) {
+        return mongoTemplate.find(searchQuery(text, patientId, from, to, skip, limit), NoteSearchHit.class,
+                mongoTemplate.getCollectionName(Note.class));
+    }
+
+    @Override
+    public List<Note> findPageByPatientId(String patientId, NoteCursor after, LocalDateTime from, LocalDateTime to,
+                                          int limit) {
+        return mongoTemplate.find(pageQuery(patientId, after, from, to, limit), Note.class);
+    }
+
+    @Override
+    public int updateTriggerMasks(List<Note> notes) {
+        if (notes.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+        for (Note note : notes) {
+            bulk.updateOne(triggerMaskQuery(note), triggerMaskUpdate(note));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    /**
+     * Match a note by ID, as long as its content is still the one its new mask was computed from
+     *
+     * @param note the re-tagged note
+     * @return the query
+     */
+    static Query triggerMaskQuery(Note note) {
+        return new Query(Criteria.where("id").is(note.getId()).and("content").is(note.getContent()));
+    }
+
+    /**
+     * Set the trigger mask of a note and its dictionary version, leaving every other field untouched
+     *
+     * @param note the re-tagged note
+     * @return the update
+     */
+    static Update triggerMaskUpdate(Note note) {
+        return new Update()
+                .set("triggerMask", note.getTriggerMask())
+                .set("triggerDictionaryVersion", note.getTriggerDictionaryVersion());
+    }
+
+    /**
+     * Build the query of a page: equality on the patient, then bounds on createdAt and
+     * the keyset condition, so the index is scanned from the cursor on without sorting in memory.
+     * Undated notes sort after every dated one, so they follow a dated cursor and are only
+     * compared by ID after an undated cursor.
+     *
+     * @param patientId the patient ID
+     * @param after the last note of the previous page, exclusive, or null for the first page
+     * @param from the earliest creation date, inclusive, or null
+     * @param to the latest creation date, exclusive, or null
+     * @param limit the maximum number of notes to return
+     * @return the query
+     */
+    static Query pageQuery(String patientId, NoteCursor after, LocalDateTime from, LocalDateTime to, int limit) {
+        List<Criteria> conditions = new ArrayList<>();
+        conditions.add(Criteria.where("patientId").is(patientId));
+        if (from != null) {
+            conditions.add(Criteria.where("createdAt").gte(from));
+        }
+        if (to != null) {
+            conditions.add(Criteria.where("createdAt").lt(to));
+        }
+        if (after != null && after.createdAt() == null) {
+            conditions.add(Criteria.where("createdAt").is(null).and("id").lt(after.id()));
+        } else if (after != null) {
+            conditions.add(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("id").lt(after.id()),
+                    Criteria.where("createdAt").is(null)));
+        }
+        return new Query(new Criteria().andOperator(conditions))
+                .with(NEWEST_FIRST)
+                .limit(limit);
+    }
+
+    /**
+     * Build the query of a text search: the text index finds the matching notes, the patient and
+     * date filters are applied to them, then they are sorted by score, newest first among equal scores.
+     * The patient filter does not narrow the index scan, so its cost grows with the practice-wide matches.
+     *
+     * @param text the keywords
+     * @param patientId the patient ID, or null
+     * @param from the earliest creation date, inclusive, or null
+     * @param to the latest creation date, exclusive, or null
+     * @param skip the number of matching notes to skip
+     * @param limit the maximum number of notes to return
+     * @return the query, reading only the fields of a search hit
+     */
+    static Query searchQuery(String text, String patientId, LocalDateTime from, LocalDateTime to, int skip, int limit) {
+        TextQuery query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text)).sortByScore();
+        if (patientId != null) {
+            query.addCriteria(Criteria.where("patientId").is(patientId));
+        }
+        if (from != null || to != null) {
+            Criteria createdAt = Criteria.where("createdAt");
+            if (from != null) {
+                createdAt.gte(from);
+            }
+            if (to != null) {
+                createdAt.lt(to);
+            }
+            query.addCriteria(createdAt);
+        }
+        query.fields().include("patientId", "content", "createdAt", "authorName");
+        return query.with(NEWEST_FIRST)
+                .skip(skip)
+                .limit(limit);
+    }
+}
@@ -0,0 +1,30 @@
+package com.medilabo.note.repository;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.TextScore;
+
+import java.time.LocalDateTime;
+
+/**
+ * Note matching a text search, with its relevance score computed by the text index
+ */
+@Data
+@NoArgsConstructor
+public class NoteSearchHit {
+
+    @Id
+    private String id;
+
+    private String patientId;
+
+    private String content;
+
+    private LocalDateTime createdAt;
+
+    private String authorName;
+
+    @TextScore
+    private Float score;
+}
@@ -0,0 +1,51 @@
+package com.medilabo.note.repository;
+
+import com.medilabo.note.model.Note;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive repository for medical notes, used by the reactive profile.
+ * Results are emitted from the MongoDB cursor as the subscriber requests them.
+ */
+@Repository
+@Profile("reactive")
+public interface ReactiveNoteRepository extends ReactiveMongoRepository<Note, String>, ReactiveNoteRepositoryCustom {
+
+    /**
+     * Find all notes for a patient ordered by creation date descending
+     *
+     * @param patientId the patient ID
+     * @return flux of notes sorted by creation date (newest first)
+     */
+    Flux<Note> findByPatientIdOrderByCreatedAtDesc(String patientId);
+
+    /**
+     * Find the content of all notes for a patient, reading no other field
+     *
+     * @param patientId the patient ID
+     * @return flux of note contents
+     */
+    @Query(value = "{ 'patientId': ?0 }", fields = "{ 'content': 1, '_id': 0 }")
+    Flux<NoteContent> findContentsByPatientId(String patientId);
+
+    /**
+     * Find the creation date and content of all notes for a patient, oldest first
+     *
+     * @param patientId the patient ID
+     * @return flux of notes ordered by creation date ascending
+     */
+    Flux<NoteHistoryEntry> findHistoryByPatientIdOrderByCreatedAtAsc(String patientId);
+
+    /**
+     * Find the trigger masks of all notes for a patient, without their content
+     *
+     * @param patientId the patient ID
+     * @return flux of notes holding only their ID, mask and dictionary version
+     */
+    @Query(value = "{ 'patientId': ?0 }", fields = "{ 'triggerMask': 1, 'triggerDictionaryVersion': 1 }")
+    Flux<Note> findTriggerMasksByPatientId(String patientId);
+}
@@ -0,0 +1,36 @@
+package com.medilabo.note.repository;
+
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.model.Note;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Note queries built at runtime, implemented with ReactiveMongoTemplate
+ */
+public interface ReactiveNoteRepositoryCustom {
+
+    /**
+     * Find a page of a patient's notes in (createdAt, id) descending order, following the patient notes index
+     *
+     * @param patientId the patient ID
+     * @param after the last note of the previous page, exclusive, or null for the first page
+     * @param from the earliest creation date, inclusive, or null
+     * @param to the latest creation date, exclusive, or null
+     * @param limit the maximum number of notes to return
+     * @return the notes of the page, newest first
+     */
+    Flux<Note> findPageByPatientId(String patientId, NoteCursor after, LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Store recomputed trigger masks with one unordered bulk update that sets only the mask and its
+     * dictionary version, like {@link NoteRepositoryCustom#updateTriggerMasks(List)}
+     *
+     * @param notes the re-tagged notes, holding the content their mask was computed from
+     * @return a mono emitting the number of notes updated
+     */
+    Mono<Integer> updateTriggerMasks(List<Note> notes);
+}
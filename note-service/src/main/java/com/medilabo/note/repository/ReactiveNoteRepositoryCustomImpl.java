@@ -0,0 +1,44 @@
+package com.medilabo.note.repository;
+
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.model.Note;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * ReactiveMongoTemplate implementation of the keyset note queries and trigger mask updates,
+ * sharing the queries of the blocking ones
+ */
+@RequiredArgsConstructor
+public class ReactiveNoteRepositoryCustomImpl implements ReactiveNoteRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Flux<Note> findPageByPatientId(String patientId, NoteCursor after, LocalDateTime from, LocalDateTime to,
+                                          int limit) {
+        return reactiveMongoTemplate.find(NoteRepositoryCustomImpl.pageQuery(patientId, after, from, to, limit),
+                Note.class);
+    }
+
+    @Override
+    public Mono<Integer> updateTriggerMasks(List<Note> notes) {
+        if (notes.isEmpty()) {
+            return Mono.just(0);
+        }
+        ReactiveBulkOperations bulk = reactiveMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+        for (Note note : notes) {
+            bulk.updateOne(NoteRepositoryCustomImpl.triggerMaskQuery(note),
+                    NoteRepositoryCustomImpl.triggerMaskUpdate(note));
+        }
+        return bulk.execute().map(BulkWriteResult::getModifiedCount);
+    }
+}
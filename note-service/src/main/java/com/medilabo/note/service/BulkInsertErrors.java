@@ -0,0 +1,45 @@
+package com.medilabo.note.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.WriteConcernError;
+import org.springframework.data.mongodb.BulkOperationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-note outcome of a failed unordered bulk insert.
+ * A write concern error is not tied to one note: the server could not confirm any of the
+ * inserts with the requested durability, so every note without its own error fails with it.
+ */
+final class BulkInsertErrors {
+
+    private BulkInsertErrors() {
+    }
+
+    /**
+     * Find the error of every note of a bulk insert
+     *
+     * @param exception the exception thrown by the bulk insert
+     * @param size the number of notes inserted
+     * @return the error message of each note, at the same positions, null for a note that was stored
+     */
+    static List<String> of(BulkOperationException exception, int size) {
+        List<String> errors = new ArrayList<>(Collections.nCopies(size, null));
+        for (BulkWriteError error : exception.getErrors()) {
+            errors.set(error.getIndex(), error.getMessage());
+        }
+        if (exception.getCause() instanceof MongoBulkWriteException bulkWriteException
+                && bulkWriteException.getWriteConcernError() != null) {
+            WriteConcernError writeConcernError = bulkWriteException.getWriteConcernError();
+            for (int i = 0; i < size; i++) {
+                if (errors.get(i) == null) {
+                    errors.set(i, "Write concern error: " + writeConcernError.getMessage());
+                }
+            }
+        }
+        return errors;
+    }
+}
@@ -0,0 +1,203 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.dto.BulkNoteRequest;
+import com.medilabo.note.dto.BulkNoteResult;
+import com.medilabo.note.model.Note;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of notes, such as migrations from legacy EHR systems.
+ * Notes are validated and tagged one by one as they are read, then written in chunks with
+ * unordered bulk inserts, so a rejected note neither stops nor slows down the rest of its chunk.
+ */
+@Service
+@Profile("!reactive")
+@Slf4j
+public class NoteBulkImportService {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Validator validator;
+
+    private final TriggerDictionary triggerDictionary;
+
+    private final RiskCacheNotifier riskCacheNotifier;
+
+    private final int chunkSize;
+
+    /**
+     * Constructor for the bulk import service
+     *
+     * @param mongoTemplate the template running the bulk inserts
+     * @param validator the validator of note requests
+     * @param triggerDictionary the current trigger dictionary
+     * @param riskCacheNotifier the notifier of patients whose notes changed
+     * @param chunkSize the number of notes written per bulk insert
+     */
+    public NoteBulkImportService(MongoTemplate mongoTemplate,
+                                 Validator validator,
+                                 TriggerDictionary triggerDictionary,
+                                 RiskCacheNotifier riskCacheNotifier,
+                                 @Value("${note.bulk.chunk-size:1000}") int chunkSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
+        this.triggerDictionary = triggerDictionary;
+        this.riskCacheNotifier = riskCacheNotifier;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Import notes, reading them one at a time and reporting each chunk's results as soon as it is written,
+     * so that only one chunk of notes and results is held in memory.
+     * Each patient with stored notes is notified once, after the last chunk or when the import is interrupted.
+     *
+     * @param requests the notes to import, null for a note that could not be read
+     * @param results receives one result per note, in request order
+     */
+    public void importNotes(Iterator<BulkNoteRequest> requests, Consumer<BulkNoteResult> results) {
+        long start = System.nanoTime();
+        List<Note> chunk = new ArrayList<>(chunkSize);
+        List<BulkNoteResult> chunkResults = new ArrayList<>(chunkSize);
+        List<BulkNoteResult> pending = new ArrayList<>(chunkSize);
+        Set<String> patientIds = new HashSet<>();
+        int count = 0;
+        int failed = 0;
+
+        try {
+            while (requests.hasNext()) {
+                BulkNoteRequest request = requests.next();
+                String error = validate(request);
+                if (error != null) {
+                    pending.add(new BulkNoteResult(count++, null, error));
+                } else {
+                    Note note = toNote(request);
+                    BulkNoteResult result = new BulkNoteResult(count++, note.getId(), null);
+                    pending.add(result);
+                    chunk.add(note);
+                    chunkResults.add(result);
+                }
+                // Rejected notes count towards the chunk too, so a run of them is not held back until the next write
+                if (pending.size() == chunkSize) {
+                    failed += flush(chunk, chunkResults, pending, patientIds, results);
+                }
+            }
+            failed += flush(chunk, chunkResults, pending, patientIds, results);
+        } finally {
+            patientIds.forEach(riskCacheNotifier::patientChanged);
+        }
+
+        log.info("Bulk import of {} notes for {} patients completed in {} ms, {} rejected", count,
+                patientIds.size(), (System.nanoTime() - start) / 1_000_000, failed);
+    }
+
+    /**
+     * Write the notes of the current chunk, then report the results of the chunk and clear it
+     *
+     * @param chunk the valid notes to insert
+     * @param chunkResults the results of the valid notes, at the same positions
+     * @param pending the results of all the notes of the chunk, in request order
+     * @param patientIds the patients with stored notes, completed with the patients of this chunk
+     * @param results receives the results of the chunk
+     * @return the number of rejected notes in the chunk
+     */
+    private int flush(List<Note> chunk, List<BulkNoteResult> chunkResults, List<BulkNoteResult> pending,
+                      Set<String> patientIds, Consumer<BulkNoteResult> results) {
+        if (!chunk.isEmpty()) {
+            write(chunk, chunkResults, patientIds);
+        }
+        int failed = (int) pending.stream().filter(result -> result.getError() != null).count();
+        pending.forEach(results);
+        chunk.clear();
+        chunkResults.clear();
+        pending.clear();
+        return failed;
+    }
+
+    /**
+     * Check a note request against its constraints
+     *
+     * @param request the note request, null if it could not be read
+     * @return the violated constraints, or null if the request is valid
+     */
+    private String validate(BulkNoteRequest request) {
+        if (request == null) {
+            return "Malformed note";
+        }
+        Set<ConstraintViolation<BulkNoteRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Build a tagged note, with its ID assigned up front so it can be reported before the chunk is written
+     *
+     * @param request the valid note request
+     * @return the note to insert
+     */
+    private Note toNote(BulkNoteRequest request) {
+        Note note = new Note(request.getPatientId(), request.getContent(), request.getAuthorName());
+        note.setId(new ObjectId().toHexString());
+        if (request.getCreatedAt() != null) {
+            note.setCreatedAt(request.getCreatedAt());
+        }
+        return triggerDictionary.tag(note);
+    }
+
+    /**
+     * Insert a chunk of notes with one unordered bulk write, then record the notes the server rejected
+     *
+     * @param chunk the notes to insert
+     * @param chunkResults the results of the notes, at the same positions
+     * @param patientIds the patients with stored notes, completed with the patients of this chunk
+     */
+    private void write(List<Note> chunk, List<BulkNoteResult> chunkResults, Set<String> patientIds) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class)
+                    .insert(chunk)
+                    .execute();
+        } catch (BulkOperationException e) {
+            List<String> errors = BulkInsertErrors.of(e, chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                if (errors.get(i) != null) {
+                    reject(chunkResults.get(i), errors.get(i));
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Bulk insert of {} notes failed: {}", chunk.size(), e.getMessage());
+            chunkResults.forEach(result -> reject(result, "Unable to store note"));
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            if (chunkResults.get(i).getError() == null) {
+                patientIds.add(chunk.get(i).getPatientId());
+            }
+        }
+    }
+
+    private static void reject(BulkNoteResult result, String error) {
+        result.setId(null);
+        result.setError(error);
+    }
+}
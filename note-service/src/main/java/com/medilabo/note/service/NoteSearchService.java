@@ -0,0 +1,160 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.dto.NoteSearchResponse;
+import com.medilabo.note.dto.NoteSearchResult;
+import com.medilabo.note.repository.NoteRepository;
+import com.medilabo.note.repository.NoteSearchHit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keyword search over notes, backed by the text index on their content.
+ * Results are ranked by the index's relevance score and returned with a short excerpt of each note.
+ */
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class NoteSearchService {
+
+    /**
+     * Deepest result reachable by paging; the matches are sorted by score in memory up to this rank
+     */
+    public static final int MAX_RESULTS = 1000;
+
+    static final int SNIPPET_LENGTH = 160;
+
+    private static final int SNIPPET_CONTEXT = 60;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private final NoteRepository noteRepository;
+
+    /**
+     * Search notes by keywords
+     *
+     * @param text the keywords, in MongoDB text search syntax (quoted phrases, -excluded terms)
+     * @param patientId the patient ID, or null to search every patient
+     * @param from the earliest creation date, inclusive, or null
+     * @param to the latest creation date, exclusive, or null
+     * @param page the page number, from 0
+     * @param size the number of results per page
+     * @return the page of results, most relevant first
+     * @throws IllegalArgumentException if the keywords are blank, the date range is empty or the page is too deep
+     */
+    public NoteSearchResponse search(String text, String patientId, LocalDateTime from, LocalDateTime to,
+                                     int page, int size) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Search text is required");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Search date range is empty");
+        }
+        if ((long) (page + 1) * size > MAX_RESULTS) {
+            throw new IllegalArgumentException("Only the first " + MAX_RESULTS + " results can be paged through");
+        }
+        log.info("Searching notes for '{}' (patient {}) page {}", text, patientId, page);
+
+        // One extra hit tells whether there is a next page
+        List<NoteSearchHit> hits = noteRepository.searchNotes(text, patientId, from, to, page * size, size + 1);
+        List<String> terms = terms(text);
+        List<NoteSearchResult> results = new ArrayList<>(Math.min(hits.size(), size));
+        for (NoteSearchHit hit : hits.subList(0, Math.min(hits.size(), size))) {
+            results.add(new NoteSearchResult(hit.getId(), hit.getPatientId(), hit.getCreatedAt(), hit.getAuthorName(),
+                    hit.getScore() == null ? 0f : hit.getScore(), snippet(hit.getContent(), terms)));
+        }
+        return new NoteSearchResponse(results, page, size, hits.size() > size);
+    }
+
+    /**
+     * Extract the terms to look for in the matching notes: the stems of the words of the query,
+     * without excluded terms
+     *
+     * @param text the search query
+     * @return the terms
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[\\s\"]+")) {
+            if (word.isEmpty() || word.startsWith("-")) {
+                continue;
+            }
+            String term = word.replaceAll("[^\\p{L}\\p{N}]", "");
+            if (!term.isEmpty()) {
+                terms.add(stem(term));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Reduce a lower-case word to a rough stem, so that "smoking", "smokes" and "smoked" all match "smoke".
+     * Only the plural and verb endings are removed: a lighter version of the English stemming of the text
+     * index, enough to find in a note the word that made it match.
+     *
+     * @param word the lower-case word
+     * @return the stem
+     */
+    static String stem(String word) {
+        String stem = word;
+        if (stem.endsWith("ies") && stem.length() > 4) {
+            stem = stem.substring(0, stem.length() - 3) + "y";
+        } else if (stem.endsWith("sses")) {
+            stem = stem.substring(0, stem.length() - 2);
+        } else if (stem.endsWith("s") && !stem.endsWith("ss") && stem.length() > 3) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        if (stem.endsWith("ing") && stem.length() > 5) {
+            stem = stem.substring(0, stem.length() - 3);
+        } else if (stem.endsWith("ed") && stem.length() > 4) {
+            stem = stem.substring(0, stem.length() - 2);
+        }
+        if (stem.endsWith("e") && stem.length() > 3) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        return stem;
+    }
+
+    /**
+     * Cut an excerpt of a note around the first word whose stem is one of the terms, on word boundaries
+     *
+     * @param content the note content
+     * @param terms the stems to look for
+     * @return the excerpt, with an ellipsis where the note was cut
+     */
+    static String snippet(String content, List<String> terms) {
+        if (content == null) {
+            return "";
+        }
+        if (content.length() <= SNIPPET_LENGTH) {
+            return content;
+        }
+        int match = -1;
+        Matcher words = WORD.matcher(content);
+        while (match < 0 && words.find()) {
+            if (terms.contains(stem(words.group().toLowerCase(Locale.ROOT)))) {
+                match = words.start();
+            }
+        }
+        int start = Math.max(0, Math.min(match - SNIPPET_CONTEXT, content.length() - SNIPPET_LENGTH));
+        if (start > 0) {
+            int space = content.indexOf(' ', start);
+            start = space < 0 || space >= Math.max(match, start + SNIPPET_CONTEXT) ? start : space + 1;
+        }
+        int end = Math.min(content.length(), start + SNIPPET_LENGTH);
+        if (end < content.length()) {
+            int space = content.lastIndexOf(' ', end);
+            end = space > Math.max(match, start) ? space : end;
+        }
+        return (start > 0 ? "…" : "") + content.substring(start, end).strip() + (end < content.length() ? "…" : "");
+    }
+}
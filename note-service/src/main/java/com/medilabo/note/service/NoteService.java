@@ -1,23 +1,40 @@
 package com.medilabo.note.service;
 
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.dto.NoteHistoryResponse;
+import com.medilabo.note.dto.NotePageResponse;
+import com.medilabo.note.dto.TriggerMaskResponse;
 import com.medilabo.note.model.Note;
+import com.medilabo.note.repository.NoteContent;
 import com.medilabo.note.repository.NoteRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service for managing medical notes
  */
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Slf4j
 public class NoteService {
 
     private final NoteRepository noteRepository;
 
+    private final RiskCacheNotifier riskCacheNotifier;
+
+    private final TriggerDictionary triggerDictionary;
+
+    private final NoteWriteBatcher noteWriteBatcher;
+
     /**
      * Get all notes for a patient
      *
@@ -30,7 +47,83 @@ public class NoteService {
     }
 
     /**
-     * Create a new note
+     * Get one page of a patient's notes, newest first, optionally restricted to a creation date range
+     *
+     * @param patientId the patient ID
+     * @param cursor the token returned with the previous page, or null for the first page
+     * @param from the earliest creation date, inclusive, or null
+     * @param to the latest creation date, exclusive, or null
+     * @param limit the maximum number of notes in the page
+     * @return the notes of the page and the token of the next page, if any
+     * @throws IllegalArgumentException if the cursor is not a valid token
+     */
+    public NotePageResponse getNotePage(String patientId, String cursor, LocalDateTime from, LocalDateTime to, int limit) {
+        log.info("Fetching {} notes for patient ID: {} after cursor {}", limit, patientId, cursor);
+        NoteCursor after = cursor == null ? null : NoteCursor.decode(cursor);
+        // One extra note tells whether there is a next page
+        return NotePageResponse.of(noteRepository.findPageByPatientId(patientId, after, from, to, limit + 1), limit);
+    }
+
+    /**
+     * Stream the content of all notes for a patient, without any metadata.
+     * The caller must close the stream to release the underlying cursor.
+     *
+     * @param patientId the patient ID
+     * @return stream of note contents
+     */
+    public Stream<String> streamNoteContentsByPatientId(String patientId) {
+        log.info("Streaming note contents for patient ID: {}", patientId);
+        return noteRepository.streamContentsByPatientId(patientId)
+                .map(NoteContent::getContent);
+    }
+
+    /**
+     * Stream the creation date and content of all notes for a patient, oldest first.
+     * The caller must close the stream to release the underlying cursor.
+     *
+     * @param patientId the patient ID
+     * @return stream of notes ordered by creation date ascending
+     */
+    public Stream<NoteHistoryResponse> streamNoteHistoryByPatientId(String patientId) {
+        log.info("Streaming note history for patient ID: {}", patientId);
+        return noteRepository.streamHistoryByPatientIdOrderByCreatedAtAsc(patientId)
+                .map(entry -> new NoteHistoryResponse(entry.getCreatedAt(), entry.getContent()));
+    }
+
+    /**
+     * Get the union of the trigger masks of a patient's notes.
+     * Notes whose mask is missing or stale are re-tagged on the way, and their masks
+     * stored with a single bulk update that does not touch their content.
+     *
+     * @param patientId the patient ID
+     * @return the combined mask with the dictionary version it refers to
+     */
+    public TriggerMaskResponse getTriggerMask(String patientId) {
+        log.info("Fetching trigger mask for patient ID: {}", patientId);
+        List<Note> masks = noteRepository.findTriggerMasksByPatientId(patientId);
+        long combined = 0L;
+        List<String> staleIds = new ArrayList<>();
+        for (Note note : masks) {
+            if (triggerDictionary.isCurrent(note)) {
+                combined |= note.getTriggerMask();
+            } else {
+                staleIds.add(note.getId());
+            }
+        }
+        if (!staleIds.isEmpty()) {
+            List<Note> retagged = noteRepository.findAllById(staleIds).stream()
+                    .map(triggerDictionary::tag)
+                    .toList();
+            noteRepository.updateTriggerMasks(retagged);
+            for (Note note : retagged) {
+                combined |= note.getTriggerMask();
+            }
+        }
+        return new TriggerMaskResponse(patientId, triggerDictionary.getVersion(), combined, masks.size());
+    }
+
+    /**
+     * Create a new note, grouped with concurrent creations into one insert when write batching is enabled
      *
      * @param patientId the patient ID
      * @param content the note content
@@ -39,8 +132,10 @@ public class NoteService {
      */
     public Note createNote(String patientId, String content, String authorName) {
         log.info("Creating note for patient ID: {}", patientId);
-        Note note = new Note(patientId, content, authorName);
-        return noteRepository.save(note);
+        Note note = triggerDictionary.tag(new Note(patientId, content, authorName));
+        Note saved = noteWriteBatcher.isEnabled() ? noteWriteBatcher.insert(note) : noteRepository.save(note);
+        riskCacheNotifier.patientChanged(patientId);
+        return saved;
     }
 
     /**
@@ -50,7 +145,9 @@ public class NoteService {
      */
     public void deleteNote(String noteId) {
         log.info("Deleting note ID: {}", noteId);
+        Optional<Note> existing = noteRepository.findById(noteId);
         noteRepository.deleteById(noteId);
+        existing.ifPresent(note -> riskCacheNotifier.patientChanged(note.getPatientId()));
     }
 
     /**
@@ -66,7 +163,10 @@ public class NoteService {
         Note note = noteRepository.findById(noteId)
                 .orElseThrow(() -> new RuntimeException("Note not found"));
         note.setContent(content);
-        return noteRepository.save(note);
+        triggerDictionary.tag(note);
+        Note saved = noteRepository.save(note);
+        riskCacheNotifier.patientChanged(note.getPatientId());
+        return saved;
     }
 }
 
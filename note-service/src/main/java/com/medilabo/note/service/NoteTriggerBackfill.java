@@ -0,0 +1,86 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.model.Note;
+import com.medilabo.note.repository.NoteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Migration of stored trigger masks.
+ * On startup, recomputes the mask of every note written before masks existed or
+ * tagged with another dictionary version, one batch at a time.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class NoteTriggerBackfill {
+
+    private final NoteRepository noteRepository;
+
+    private final TriggerDictionary triggerDictionary;
+
+    private final int batchSize;
+
+    /**
+     * Constructor for the backfill
+     *
+     * @param noteRepository the note repository
+     * @param triggerDictionary the current trigger dictionary
+     * @param batchSize the number of notes re-tagged per batch
+     */
+    public NoteTriggerBackfill(NoteRepository noteRepository,
+                               TriggerDictionary triggerDictionary,
+                               @Value("${note.triggers.backfill.batch-size:500}") int batchSize) {
+        this.noteRepository = noteRepository;
+        this.triggerDictionary = triggerDictionary;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Re-tag stale notes in the background once the application is ready
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        backfill();
+    }
+
+    /**
+     * Re-tag every note whose mask is missing or stale, setting only the mask fields so that
+     * concurrent edits are kept. Re-tagged notes drop out of the query, as do notes edited
+     * meanwhile since an edit tags the note, so the first page is read until it is empty.
+     *
+     * @return the number of notes re-tagged
+     */
+    public long backfill() {
+        int version = triggerDictionary.getVersion();
+        long retagged = 0;
+        List<String> previousIds = List.of();
+        List<Note> batch = noteRepository.findByTriggerDictionaryVersionNot(version, PageRequest.of(0, batchSize));
+        while (!batch.isEmpty()) {
+            List<String> ids = batch.stream().map(Note::getId).toList();
+            if (ids.equals(previousIds)) {
+                // Only notes that could not be updated are left, for instance rewritten by an older instance
+                log.warn("Trigger mask backfill made no progress on {} notes, stopping", batch.size());
+                break;
+            }
+            batch.forEach(triggerDictionary::tag);
+            retagged += noteRepository.updateTriggerMasks(batch);
+            previousIds = ids;
+            log.debug("Re-tagged {} notes with trigger dictionary version {}", retagged, version);
+            batch = noteRepository.findByTriggerDictionaryVersionNot(version, PageRequest.of(0, batchSize));
+        }
+        if (retagged > 0) {
+            log.info("Trigger mask backfill completed: {} notes re-tagged with dictionary version {}", retagged, version);
+        }
+        return retagged;
+    }
+}
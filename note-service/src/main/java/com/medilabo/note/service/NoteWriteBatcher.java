@@ -0,0 +1,239 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.model.Note;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit of note inserts.
+ * Concurrent inserts are queued and written by a single flusher thread: the first queued note opens a
+ * window of at most {@code max-delay}, closed early once {@code max-size} notes are queued, and the whole
+ * window is written with one unordered bulk insert. Each caller waits for the outcome of its own note,
+ * for at most {@code timeout}. At most {@code queue-capacity} notes wait for the flusher: beyond that,
+ * notes are rejected rather than queued.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class NoteWriteBatcher {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Getter
+    private final boolean enabled;
+
+    private final Duration maxDelay;
+
+    private final int maxSize;
+
+    private final Duration timeout;
+
+    private final DistributionSummary batchSizes;
+
+    private final BlockingQueue<PendingNote> queue;
+
+    private final Thread flusher;
+
+    private volatile boolean running;
+
+    /**
+     * Constructor for the batcher, starting the flusher thread when enabled
+     *
+     * @param mongoTemplate the template running the bulk inserts
+     * @param enabled whether inserts are grouped
+     * @param maxDelay the longest time a note waits for other notes before its group is written
+     * @param maxSize the largest number of notes written at once
+     * @param queueCapacity the largest number of notes waiting for the flusher
+     * @param timeout the longest time a caller waits for its note to be written
+     * @param meterRegistry the registry for the batch size histogram
+     */
+    public NoteWriteBatcher(MongoTemplate mongoTemplate,
+                            @Value("${note.write.batching.enabled:false}") boolean enabled,
+                            @Value("${note.write.batching.max-delay:PT0.005S}") Duration maxDelay,
+                            @Value("${note.write.batching.max-size:100}") int maxSize,
+                            @Value("${note.write.batching.queue-capacity:10000}") int queueCapacity,
+                            @Value("${note.write.batching.timeout:PT10S}") Duration timeout,
+                            MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.maxDelay = maxDelay;
+        this.maxSize = maxSize;
+        this.timeout = timeout;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("note.write.batch.size")
+                .description("Number of notes written per grouped insert")
+                .baseUnit("notes")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue((double) maxSize)
+                .register(meterRegistry);
+        this.flusher = new Thread(this::run, "note-write-batcher");
+        this.flusher.setDaemon(true);
+        if (enabled) {
+            running = true;
+            flusher.start();
+            log.info("Grouping note inserts by up to {} notes within {} ms", maxSize, maxDelay.toMillis());
+        }
+    }
+
+    /**
+     * Insert a note with the other notes queued in the same window
+     *
+     * @param note the note to insert, without ID
+     * @return the inserted note, with its ID
+     * @throws DataAccessException if the note could not be written
+     * @throws IllegalStateException if the batcher is disabled or stopped, the queue is full, or the
+     * write was not confirmed within the timeout
+     */
+    public Note insert(Note note) {
+        if (!running) {
+            throw new IllegalStateException("Note write batching is not running");
+        }
+        note.setId(new ObjectId().toHexString());
+        PendingNote pending = new PendingNote(note, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            throw new IllegalStateException("Note write queue is full");
+        }
+        // Stopped while queuing: take the note back unless the flusher or stop() already owns it
+        if (!running && queue.remove(pending)) {
+            throw new IllegalStateException("Note write batching is not running");
+        }
+        try {
+            return pending.result().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Note write not confirmed within " + timeout.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the note write", e);
+        }
+    }
+
+    /**
+     * Stop accepting notes, then wait for the queued ones to be written.
+     * Notes queued too late for the flusher are failed rather than left waiting.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (running) {
+            running = false;
+            flusher.join(IDLE_POLL_MILLIS + maxDelay.toMillis() + 5000);
+        }
+        failQueued();
+    }
+
+    private void run() {
+        List<PendingNote> batch = new ArrayList<>(maxSize);
+        try {
+            runLoop(batch);
+        } catch (RuntimeException | Error e) {
+            log.error("Note write flusher stopped unexpectedly", e);
+        } finally {
+            // Never leave a caller waiting on a flusher that is gone
+            running = false;
+            batch.forEach(pending -> pending.result()
+                    .completeExceptionally(new IllegalStateException("Note write batching is stopped")));
+            failQueued();
+        }
+    }
+
+    private void runLoop(List<PendingNote> batch) {
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingNote first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelay.toNanos();
+                while (batch.size() < maxSize) {
+                    PendingNote next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                flush(batch);
+                return;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void failQueued() {
+        PendingNote late;
+        while ((late = queue.poll()) != null) {
+            late.result().completeExceptionally(new IllegalStateException("Note write batching is stopped"));
+        }
+    }
+
+    /**
+     * Write a group of notes with one unordered bulk insert, then complete each caller with its own outcome
+     *
+     * @param batch the queued notes
+     */
+    void flush(List<PendingNote> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+        List<String> errors = Collections.nCopies(batch.size(), null);
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class)
+                    .insert(batch.stream().map(PendingNote::note).toList())
+                    .execute();
+        } catch (BulkOperationException e) {
+            errors = BulkInsertErrors.of(e, batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Grouped insert of {} notes failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            PendingNote pending = batch.get(i);
+            if (errors.get(i) == null) {
+                pending.result().complete(pending.note());
+            } else {
+                pending.result().completeExceptionally(new DataIntegrityViolationException(errors.get(i)));
+            }
+        }
+    }
+
+    /**
+     * A queued note and the outcome its caller waits for
+     */
+    record PendingNote(Note note, CompletableFuture<Note> result) {
+    }
+}
@@ -0,0 +1,177 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.dto.NoteHistoryResponse;
+import com.medilabo.note.dto.NotePageResponse;
+import com.medilabo.note.dto.TriggerMaskResponse;
+import com.medilabo.note.model.Note;
+import com.medilabo.note.repository.NoteContent;
+import com.medilabo.note.repository.ReactiveNoteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reactive service for managing medical notes, used by the reactive profile.
+ * Same operations as {@link NoteService}, without holding a thread while MongoDB answers.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveNoteService {
+
+    private final ReactiveNoteRepository reactiveNoteRepository;
+
+    private final RiskCacheNotifier riskCacheNotifier;
+
+    private final TriggerDictionary triggerDictionary;
+
+    /**
+     * Get all notes for a patient
+     *
+     * @param patientId the patient ID
+     * @return flux of notes sorted by creation date (newest first)
+     */
+    public Flux<Note> getNotesByPatientId(String patientId) {
+        log.info("Fetching notes for patient ID: {}", patientId);
+        return reactiveNoteRepository.findByPatientIdOrderByCreatedAtDesc(patientId);
+    }
+
+    /**
+     * Get one page of a patient's notes, newest first, optionally restricted to a creation date range
+     *
+     * @param patientId the patient ID
+     * @param cursor the token returned with the previous page, or null for the first page
+     * @param from the earliest creation date, inclusive, or null
+     * @param to the latest creation date, exclusive, or null
+     * @param limit the maximum number of notes in the page
+     * @return a mono emitting the page, or an IllegalArgumentException if the cursor is not a valid token
+     */
+    public Mono<NotePageResponse> getNotePage(String patientId, String cursor, LocalDateTime from, LocalDateTime to,
+                                              int limit) {
+        log.info("Fetching {} notes for patient ID: {} after cursor {}", limit, patientId, cursor);
+        // One extra note tells whether there is a next page
+        return Mono.defer(() -> reactiveNoteRepository.findPageByPatientId(patientId,
+                                cursor == null ? null : NoteCursor.decode(cursor), from, to, limit + 1)
+                        .collectList())
+                .map(notes -> NotePageResponse.of(notes, limit));
+    }
+
+    /**
+     * Stream the content of all notes for a patient, without any metadata
+     *
+     * @param patientId the patient ID
+     * @return flux of note contents
+     */
+    public Flux<String> streamNoteContentsByPatientId(String patientId) {
+        log.info("Streaming note contents for patient ID: {}", patientId);
+        return reactiveNoteRepository.findContentsByPatientId(patientId)
+                .map(NoteContent::getContent);
+    }
+
+    /**
+     * Stream the creation date and content of all notes for a patient, oldest first
+     *
+     * @param patientId the patient ID
+     * @return flux of notes ordered by creation date ascending
+     */
+    public Flux<NoteHistoryResponse> streamNoteHistoryByPatientId(String patientId) {
+        log.info("Streaming note history for patient ID: {}", patientId);
+        return reactiveNoteRepository.findHistoryByPatientIdOrderByCreatedAtAsc(patientId)
+                .map(entry -> new NoteHistoryResponse(entry.getCreatedAt(), entry.getContent()));
+    }
+
+    /**
+     * Get the union of the trigger masks of a patient's notes.
+     * Notes whose mask is missing or stale are re-tagged on the way, storing only their new mask.
+     *
+     * @param patientId the patient ID
+     * @return a mono emitting the combined mask with the dictionary version it refers to
+     */
+    public Mono<TriggerMaskResponse> getTriggerMask(String patientId) {
+        log.info("Fetching trigger mask for patient ID: {}", patientId);
+        return reactiveNoteRepository.findTriggerMasksByPatientId(patientId)
+                .collectList()
+                .flatMap(masks -> {
+                    long combined = 0L;
+                    List<String> staleIds = new ArrayList<>();
+                    for (Note note : masks) {
+                        if (triggerDictionary.isCurrent(note)) {
+                            combined |= note.getTriggerMask();
+                        } else {
+                            staleIds.add(note.getId());
+                        }
+                    }
+                    TriggerMaskResponse response = new TriggerMaskResponse(patientId, triggerDictionary.getVersion(),
+                            combined, masks.size());
+                    if (staleIds.isEmpty()) {
+                        return Mono.just(response);
+                    }
+                    return reactiveNoteRepository.findAllById(staleIds)
+                            .map(triggerDictionary::tag)
+                            .collectList()
+                            .flatMap(retagged -> reactiveNoteRepository.updateTriggerMasks(retagged)
+                                    .then(Mono.fromSupplier(() -> {
+                                        for (Note note : retagged) {
+                                            response.setMask(response.getMask() | note.getTriggerMask());
+                                        }
+                                        return response;
+                                    })));
+                });
+    }
+
+    /**
+     * Create a new note
+     *
+     * @param patientId the patient ID
+     * @param content the note content
+     * @param authorName the author name
+     * @return a mono emitting the created note
+     */
+    public Mono<Note> createNote(String patientId, String content, String authorName) {
+        log.info("Creating note for patient ID: {}", patientId);
+        return Mono.fromSupplier(() -> triggerDictionary.tag(new Note(patientId, content, authorName)))
+                .flatMap(reactiveNoteRepository::save)
+                .doOnNext(saved -> riskCacheNotifier.patientChanged(patientId));
+    }
+
+    /**
+     * Delete a note
+     *
+     * @param noteId the note ID
+     * @return a mono completing once the note is deleted
+     */
+    public Mono<Void> deleteNote(String noteId) {
+        log.info("Deleting note ID: {}", noteId);
+        return reactiveNoteRepository.findById(noteId)
+                .flatMap(note -> reactiveNoteRepository.deleteById(noteId).thenReturn(note))
+                .doOnNext(note -> riskCacheNotifier.patientChanged(note.getPatientId()))
+                .then();
+    }
+
+    /**
+     * Update a note's content
+     *
+     * @param noteId the note ID
+     * @param content the new content
+     * @return a mono emitting the updated note, or an error if the note is not found
+     */
+    public Mono<Note> updateNote(String noteId, String content) {
+        log.info("Updating note ID: {}", noteId);
+        return reactiveNoteRepository.findById(noteId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Note not found")))
+                .flatMap(note -> {
+                    note.setContent(content);
+                    return reactiveNoteRepository.save(triggerDictionary.tag(note));
+                })
+                .doOnNext(saved -> riskCacheNotifier.patientChanged(saved.getPatientId()));
+    }
+}
@@ -0,0 +1,117 @@
+package com.medilabo.note.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.note.model.Note;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned vocabulary of diabetes triggers used to tag notes at write time.
+ * Bit {@code i} of a note's trigger mask stands for term {@code i}; the version must be
+ * bumped whenever the terms or their order change so that stored masks are recomputed.
+ * The dictionary is read on startup from the same JSON file as risk-service, so both services
+ * agree on the version without keeping it in sync by hand.
+ */
+@Component
+@Slf4j
+public class TriggerDictionary {
+
+    @Getter
+    private final int version;
+
+    @Getter
+    private final List<String> terms;
+
+    private final TriggerMatcher matcher;
+
+    static final String FALLBACK_LOCATION = "triggers/diabetes-triggers.json";
+
+    /**
+     * Constructor that reads the dictionary file, or the copy packaged with the service if the file does not exist
+     *
+     * @param location the dictionary file shared with risk-service
+     * @param objectMapper the JSON mapper
+     * @throws UncheckedIOException if the dictionary cannot be read
+     * @throws IllegalArgumentException if the dictionary has no terms
+     */
+    @Autowired
+    public TriggerDictionary(@Value("${note.triggers.location:classpath:triggers/diabetes-triggers.json}") Resource location,
+                             ObjectMapper objectMapper) {
+        this(read(location.exists() ? location : fallback(location), objectMapper));
+    }
+
+    private TriggerDictionary(JsonNode definition) {
+        this(definition.path("version").asInt(), terms(definition));
+    }
+
+    /**
+     * Constructor for the trigger dictionary
+     *
+     * @param version the dictionary version
+     * @param terms the trigger terms, in bit order
+     */
+    public TriggerDictionary(int version, List<String> terms) {
+        this.version = version;
+        this.terms = List.copyOf(terms);
+        this.matcher = TriggerMatcher.compile(this.terms);
+        log.info("Loaded trigger dictionary version {} with {} terms", version, terms.size());
+    }
+
+    /**
+     * Compute the trigger mask of a note and stamp it with the current dictionary version
+     *
+     * @param note the note to tag
+     * @return the same note
+     */
+    public Note tag(Note note) {
+        note.setTriggerMask(note.getContent() == null ? 0L : matcher.scan(note.getContent(), 0L));
+        note.setTriggerDictionaryVersion(version);
+        return note;
+    }
+
+    private static Resource fallback(Resource location) {
+        log.warn("Trigger dictionary {} not found, using the packaged copy", location);
+        return new ClassPathResource(FALLBACK_LOCATION);
+    }
+
+    private static JsonNode read(Resource resource, ObjectMapper objectMapper) {
+        try (InputStream input = resource.getInputStream()) {
+            return objectMapper.readTree(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read trigger dictionary " + resource, e);
+        }
+    }
+
+    private static List<String> terms(JsonNode definition) {
+        List<String> terms = new ArrayList<>();
+        definition.path("terms").forEach(term -> terms.add(term.asText()));
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Trigger dictionary has no terms");
+        }
+        return terms;
+    }
+
+    /**
+     * Check whether a note's stored mask was computed with the current dictionary
+     *
+     * @param note the note
+     * @return true if the mask is up to date
+     */
+    public boolean isCurrent(Note note) {
+        return note.getTriggerMask() != null
+                && note.getTriggerDictionaryVersion() != null
+                && note.getTriggerDictionaryVersion() == version;
+    }
+}
@@ -0,0 +1,235 @@
+package com.medilabo.note.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.TreeSet;
+
+/**
+ * Precompiled Aho-Corasick automaton over a trigger vocabulary.
+ * Scans text once, folding case character by character, and reports the
+ * matched triggers as a bitmask where bit {@code i} stands for trigger {@code i}.
+ * risk-service and note-service are built separately and share this class's compile, scan(CharSequence, long)
+ * and mask methods (isComplete, getTriggers, triggersIn), with the same automaton, so the masks stored with
+ * the notes mean the same as a scan done by risk-service. The byte-level scanning methods are in risk-service only.
+ */
+public final class TriggerMatcher {
+
+    /** Maximum number of triggers, bounded by the width of the result mask */
+    public static final int MAX_TRIGGERS = Long.SIZE;
+
+    private static final int NO_CLASS = 0;
+
+    private final List<String> triggers;
+
+    private final int[] asciiClasses;
+
+    private final char[] extraChars;
+
+    private final int stride;
+
+    private final int[] transitions;
+
+    private final long[] outputs;
+
+    private final long completeMask;
+
+    private TriggerMatcher(List<String> triggers, int[] asciiClasses, char[] extraChars,
+                           int stride, int[] transitions, long[] outputs) {
+        this.triggers = triggers;
+        this.asciiClasses = asciiClasses;
+        this.extraChars = extraChars;
+        this.stride = stride;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.completeMask = triggers.size() == MAX_TRIGGERS ? -1L : (1L << triggers.size()) - 1;
+    }
+
+    /**
+     * Compile a matcher for the given triggers
+     *
+     * @param triggers the trigger terms, matched case-insensitively
+     * @return the compiled matcher
+     * @throws IllegalArgumentException if a trigger is blank or there are too many triggers
+     */
+    public static TriggerMatcher compile(List<String> triggers) {
+        if (triggers.size() > MAX_TRIGGERS) {
+            throw new IllegalArgumentException("At most " + MAX_TRIGGERS + " triggers are supported, got " + triggers.size());
+        }
+
+        List<String> folded = new ArrayList<>(triggers.size());
+        for (String trigger : triggers) {
+            if (trigger == null || trigger.isBlank()) {
+                throw new IllegalArgumentException("Triggers cannot be blank");
+            }
+            folded.add(trigger.toLowerCase(Locale.ROOT));
+        }
+
+        // Character classes: 0 is "any character not used by a trigger"
+        TreeSet<Character> alphabet = new TreeSet<>();
+        for (String trigger : folded) {
+            for (int i = 0; i < trigger.length(); i++) {
+                alphabet.add(trigger.charAt(i));
+            }
+        }
+        int[] asciiClasses = new int[128];
+        List<Character> extra = new ArrayList<>();
+        int classCount = 1;
+        for (char c : alphabet) {
+            int cls = classCount++;
+            if (c < 128) {
+                asciiClasses[c] = cls;
+                asciiClasses[Character.toUpperCase(c)] = cls;
+            } else {
+                extra.add(c);
+            }
+        }
+        char[] extraChars = new char[extra.size()];
+        for (int i = 0; i < extraChars.length; i++) {
+            extraChars[i] = extra.get(i);
+        }
+        int stride = classCount;
+
+        // Trie construction
+        List<int[]> gotos = new ArrayList<>();
+        List<Long> trieOutputs = new ArrayList<>();
+        gotos.add(newRow(stride));
+        trieOutputs.add(0L);
+        for (int t = 0; t < folded.size(); t++) {
+            String trigger = folded.get(t);
+            int state = 0;
+            for (int i = 0; i < trigger.length(); i++) {
+                int cls = classOf(trigger.charAt(i), asciiClasses, extraChars, stride);
+                int next = gotos.get(state)[cls];
+                if (next < 0) {
+                    next = gotos.size();
+                    gotos.add(newRow(stride));
+                    trieOutputs.add(0L);
+                    gotos.get(state)[cls] = next;
+                }
+                state = next;
+            }
+            trieOutputs.set(state, trieOutputs.get(state) | (1L << t));
+        }
+
+        // Failure links resolved breadth-first into a full transition table
+        int stateCount = gotos.size();
+        int[] transitions = new int[stateCount * stride];
+        long[] outputs = new long[stateCount];
+        int[] failure = new int[stateCount];
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        int[] rootRow = gotos.get(0);
+        for (int cls = 0; cls < stride; cls++) {
+            int next = cls == NO_CLASS ? -1 : rootRow[cls];
+            if (next > 0) {
+                transitions[cls] = next;
+                failure[next] = 0;
+                queue.add(next);
+            } else {
+                transitions[cls] = 0;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = trieOutputs.get(state) | outputs[failure[state]];
+            int[] row = gotos.get(state);
+            int base = state * stride;
+            int failureBase = failure[state] * stride;
+            for (int cls = 0; cls < stride; cls++) {
+                int next = cls == NO_CLASS ? -1 : row[cls];
+                if (next > 0) {
+                    transitions[base + cls] = next;
+                    failure[next] = transitions[failureBase + cls];
+                    queue.add(next);
+                } else {
+                    transitions[base + cls] = transitions[failureBase + cls];
+                }
+            }
+        }
+
+        return new TriggerMatcher(Collections.unmodifiableList(new ArrayList<>(triggers)),
+                asciiClasses, extraChars, stride, transitions, outputs);
+    }
+
+    /**
+     * Scan a text and add the triggers it contains to an existing mask.
+     * Returns as soon as every trigger has been found.
+     *
+     * @param text the text to scan, may be null
+     * @param found the triggers already found
+     * @return the updated mask of found triggers
+     */
+    public long scan(CharSequence text, long found) {
+        if (text == null || found == completeMask) {
+            return found;
+        }
+        int state = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            int cls = c < 128 ? asciiClasses[c] : classOf(c, asciiClasses, extraChars, stride);
+            state = transitions[state * stride + cls];
+            long output = outputs[state];
+            if (output != 0) {
+                found |= output;
+                if (found == completeMask) {
+                    return found;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Check whether a mask already contains every trigger
+     *
+     * @param found the mask of found triggers
+     * @return true if no further text can add a trigger
+     */
+    public boolean isComplete(long found) {
+        return found == completeMask;
+    }
+
+    /**
+     * Get the triggers of this matcher, in bit order
+     *
+     * @return the triggers
+     */
+    public List<String> getTriggers() {
+        return triggers;
+    }
+
+    /**
+     * Resolve a mask back to trigger terms
+     *
+     * @param found the mask of found triggers
+     * @return the triggers whose bit is set
+     */
+    public List<String> triggersIn(long found) {
+        List<String> result = new ArrayList<>(Long.bitCount(found));
+        for (int i = 0; i < triggers.size(); i++) {
+            if ((found & (1L << i)) != 0) {
+                result.add(triggers.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static int[] newRow(int stride) {
+        int[] row = new int[stride];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int classOf(char c, int[] asciiClasses, char[] extraChars, int stride) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        int index = Arrays.binarySearch(extraChars, Character.toLowerCase(c));
+        return index < 0 ? NO_CLASS : stride - extraChars.length + index;
+    }
+}
@@ -1,7 +1,15 @@
 package com.medilabo.note.controller;
 
-import com.medilabo.note.dto.NoteRequest;
+import com.medilabo.note.dto.BulkNoteRequest;
+import com.medilabo.note.dto.BulkNoteResult;
+import com.medilabo.note.dto.NoteHistoryResponse;
+import com.medilabo.note.dto.NotePageResponse;
+import com.medilabo.note.dto.NoteSearchResponse;
+import com.medilabo.note.dto.NoteSearchResult;
+import com.medilabo.note.dto.TriggerMaskResponse;
 import com.medilabo.note.model.Note;
+import com.medilabo.note.service.NoteBulkImportService;
+import com.medilabo.note.service.NoteSearchService;
 import com.medilabo.note.service.NoteService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,11 +18,21 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -33,6 +51,12 @@ class NoteControllerTest {
     @MockBean
     private NoteService noteService;
 
+    @MockBean
+    private NoteBulkImportService noteBulkImportService;
+
+    @MockBean
+    private NoteSearchService noteSearchService;
+
     private Note testNote;
 
     @BeforeEach
@@ -88,6 +112,19 @@ class NoteControllerTest {
         verify(noteService, times(1)).createNote(eq("patient1"), any(String.class), any(String.class));
     }
 
+    @Test
+    void testCreateNote_WhenWriteQueueFull_ShouldReturn503() throws Exception {
+        // Arrange
+        when(noteService.createNote(eq("patient1"), any(String.class), any(String.class)))
+                .thenThrow(new IllegalStateException("Note write queue is full"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/notes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"patientId\": \"patient1\", \"content\": \"Smoker\", \"authorName\": \"Dr. Smith\"}"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
     @Test
     void testUpdateNote_ShouldReturnUpdatedNote() throws Exception {
         // Arrange
@@ -123,5 +160,234 @@ class NoteControllerTest {
 
         verify(noteService, times(1)).deleteNote("note1");
     }
-}
 
+    @Test
+    void testStreamNoteContents_ShouldWriteOneJsonLinePerNoteAndCloseStream() throws Exception {
+        // Arrange
+        AtomicBoolean closed = new AtomicBoolean();
+        when(noteService.streamNoteContentsByPatientId("patient1"))
+                .thenReturn(Stream.of("Patient reports feeling well", "Smoker").onClose(() -> closed.set(true)));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/notes/patient/patient1/contents")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("""
+                        {"content":"Patient reports feeling well"}
+                        {"content":"Smoker"}
+                        """));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void testStreamNoteHistory_ShouldWriteDatedNotesInOrder() throws Exception {
+        // Arrange
+        when(noteService.streamNoteHistoryByPatientId("patient1")).thenReturn(Stream.of(
+                new NoteHistoryResponse(LocalDateTime.of(2023, 1, 10, 9, 30), "Smoker"),
+                new NoteHistoryResponse(LocalDateTime.of(2024, 3, 5, 14, 0), "Cholesterol high")));
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/api/notes/patient/patient1/history")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("""
+                        {"createdAt":"2023-01-10T09:30:00","content":"Smoker"}
+                        {"createdAt":"2024-03-05T14:00:00","content":"Cholesterol high"}
+                        """));
+    }
+
+    @Test
+    void testGetTriggerMask_ShouldReturnCombinedMask() throws Exception {
+        // Arrange
+        when(noteService.getTriggerMask("patient1")).thenReturn(new TriggerMaskResponse("patient1", 1, 0b1011L, 3));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/notes/patient/patient1/trigger-mask"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.patientId").value("patient1"))
+                .andExpect(jsonPath("$.dictionaryVersion").value(1))
+                .andExpect(jsonPath("$.mask").value(11))
+                .andExpect(jsonPath("$.noteCount").value(3));
+
+        verify(noteService, times(1)).getTriggerMask("patient1");
+    }
+
+    @Test
+    void testGetNotePageByPatientId_ShouldReturnPageAndNextCursor() throws Exception {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(noteService.getNotePage("patient1", "abc", from, null, 10))
+                .thenReturn(new NotePageResponse(List.of(testNote), "next"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/notes/patient/patient1/page")
+                        .param("cursor", "abc")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notes", hasSize(1)))
+                .andExpect(jsonPath("$.notes[0].id").value("note1"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void testGetNotePageByPatientId_WhenLimitOutOfRange_ShouldReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/notes/patient/patient1/page").param("limit", "500"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(noteService);
+    }
+
+    @Test
+    void testGetNotePageByPatientId_WhenCursorInvalid_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        when(noteService.getNotePage("patient1", "garbage", null, null, 20))
+                .thenThrow(new IllegalArgumentException("Invalid note cursor: garbage"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/notes/patient/patient1/page").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testImportNotes_WithJsonArray_ShouldStreamResultPerNote() throws Exception {
+        // Arrange
+        List<BulkNoteRequest> received = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<Iterator<BulkNoteRequest>>getArgument(0).forEachRemaining(received::add);
+            Consumer<BulkNoteResult> results = invocation.getArgument(1);
+            results.accept(new BulkNoteResult(0, "note1", null));
+            results.accept(new BulkNoteResult(1, null, "Content cannot be empty"));
+            return null;
+        }).when(noteBulkImportService).importNotes(any(), any());
+
+        String notesJson = """
+                [
+                    {"patientId": "patient1", "content": "Smoker", "createdAt": "2019-05-01T10:00:00"},
+                    {"patientId": "patient2", "content": " ", "authorName": "Dr. Smith"}
+                ]
+                """;
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/api/notes/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(notesJson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("""
+                        {"index":0,"id":"note1","error":null}
+                        {"index":1,"id":null,"error":"Content cannot be empty"}
+                        """));
+
+        assertEquals(2, received.size());
+        assertEquals(LocalDateTime.of(2019, 5, 1, 10, 0), received.get(0).getCreatedAt());
+        assertEquals("Dr. Smith", received.get(1).getAuthorName());
+    }
+
+    @Test
+    void testImportNotes_WithNdjson_ShouldPassMalformedLinesAsNull() throws Exception {
+        // Arrange
+        List<BulkNoteRequest> received = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<Iterator<BulkNoteRequest>>getArgument(0).forEachRemaining(received::add);
+            return null;
+        }).when(noteBulkImportService).importNotes(any(), any());
+
+        String notesNdjson = """
+                {"patientId": "patient1", "content": "Smoker"}
+                {"patientId": "patient1", "content": "Dizziness", "createdAt": "not a date"}
+                {"patientId": "patient2", "content": "Relapse"}
+                """;
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/api/notes/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(notesNdjson))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        assertEquals(3, received.size());
+        assertEquals("Smoker", received.get(0).getContent());
+        assertNull(received.get(1));
+        assertEquals("patient2", received.get(2).getPatientId());
+    }
+
+    @Test
+    void testImportNotes_WithTruncatedBody_ShouldStopAfterMalformedNote() throws Exception {
+        // Arrange
+        List<BulkNoteRequest> received = new ArrayList<>();
+        doAnswer(invocation -> {
+            invocation.<Iterator<BulkNoteRequest>>getArgument(0).forEachRemaining(received::add);
+            return null;
+        }).when(noteBulkImportService).importNotes(any(), any());
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/api/notes/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"patientId\": \"patient1\", \"content\": \"Smoker\"}, {\"patientId\": \"pat"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        assertEquals(2, received.size());
+        assertEquals("Smoker", received.get(0).getContent());
+        assertNull(received.get(1));
+    }
+
+    @Test
+    void testSearchNotes_ShouldReturnRankedResults() throws Exception {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(noteSearchService.search("smoker", "patient1", from, null, 0, 20)).thenReturn(new NoteSearchResponse(
+                List.of(new NoteSearchResult("note1", "patient1", from.plusDays(3), "Dr. Smith", 1.5f,
+                        "Patient is a smoker")), 0, 20, false));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/notes/search")
+                        .param("q", "smoker")
+                        .param("patientId", "patient1")
+                        .param("from", "2024-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results", hasSize(1)))
+                .andExpect(jsonPath("$.results[0].snippet").value("Patient is a smoker"))
+                .andExpect(jsonPath("$.results[0].score").value(1.5))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void testSearchNotes_WhenPageTooDeepOrSizeOutOfRange_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        when(noteSearchService.search("smoker", null, null, null, 60, 20))
+                .thenThrow(new IllegalArgumentException("Only the first 1000 results can be paged through"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/notes/search").param("q", "smoker").param("size", "500"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/notes/search").param("q", "smoker").param("page", "60"))
+                .andExpect(status().isBadRequest());
+    }
+}
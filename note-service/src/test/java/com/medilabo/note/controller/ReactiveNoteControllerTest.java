@@ -0,0 +1,153 @@
+package com.medilabo.note.controller;
+
+import com.medilabo.note.dto.NoteHistoryResponse;
+import com.medilabo.note.dto.NotePageResponse;
+import com.medilabo.note.model.Note;
+import com.medilabo.note.service.ReactiveNoteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Integration tests for ReactiveNoteController
+ */
+@WebFluxTest(ReactiveNoteController.class)
+@ActiveProfiles("reactive")
+class ReactiveNoteControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveNoteService reactiveNoteService;
+
+    private Note testNote;
+
+    @BeforeEach
+    void setUp() {
+        testNote = new Note();
+        testNote.setId("note1");
+        testNote.setPatientId("patient1");
+        testNote.setContent("Patient reports feeling well");
+        testNote.setAuthorName("Dr. Smith");
+        testNote.setCreatedAt(LocalDateTime.now());
+    }
+
+    @Test
+    void testGetNotesByPatientId_ShouldReturnNotesList() {
+        // Arrange
+        when(reactiveNoteService.getNotesByPatientId("patient1")).thenReturn(Flux.just(testNote));
+
+        // Act & Assert
+        webTestClient.get().uri("/api/notes/patient/patient1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].patientId").isEqualTo("patient1")
+                .jsonPath("$[0].authorName").isEqualTo("Dr. Smith");
+    }
+
+    @Test
+    void testStreamNoteHistoryByPatientId_ShouldReturnNdjson() {
+        // Arrange
+        when(reactiveNoteService.streamNoteHistoryByPatientId("patient1")).thenReturn(Flux.just(
+                new NoteHistoryResponse(LocalDateTime.of(2024, 1, 1, 9, 0), "Smoker"),
+                new NoteHistoryResponse(LocalDateTime.of(2024, 2, 1, 9, 0), "Cholesterol")));
+
+        // Act & Assert
+        webTestClient.get().uri("/api/notes/patient/patient1/history")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(NoteHistoryResponse.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void testGetNotePageByPatientId_WhenCursorInvalid_ShouldReturnBadRequest() {
+        // Arrange
+        when(reactiveNoteService.getNotePage("patient1", "garbage", null, null, 20))
+                .thenReturn(Mono.error(new IllegalArgumentException("Invalid note cursor: garbage")));
+
+        // Act & Assert
+        webTestClient.get().uri("/api/notes/patient/patient1/page?cursor=garbage")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testGetNotePageByPatientId_ShouldReturnPage() {
+        // Arrange
+        when(reactiveNoteService.getNotePage("patient1", null, null, null, 10))
+                .thenReturn(Mono.just(new NotePageResponse(List.of(testNote), "next")));
+
+        // Act & Assert
+        webTestClient.get().uri("/api/notes/patient/patient1/page?limit=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.notes[0].id").isEqualTo("note1")
+                .jsonPath("$.nextCursor").isEqualTo("next");
+    }
+
+    @Test
+    void testCreateNote_WithValidData_ShouldReturnCreated() {
+        // Arrange
+        when(reactiveNoteService.createNote(eq("patient1"), any(String.class), any(String.class)))
+                .thenReturn(Mono.just(testNote));
+
+        // Act & Assert
+        webTestClient.post().uri("/api/notes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"patientId": "patient1", "content": "Patient reports feeling well", "authorName": "Dr. Smith"}
+                        """)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo("note1");
+    }
+
+    @Test
+    void testCreateNote_WithEmptyContent_ShouldReturnBadRequest() {
+        // Act & Assert
+        webTestClient.post().uri("/api/notes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"patientId": "patient1", "content": ""}
+                        """)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(reactiveNoteService);
+    }
+
+    @Test
+    void testDeleteNote_ShouldReturnNoContent() {
+        // Arrange
+        when(reactiveNoteService.deleteNote("note1")).thenReturn(Mono.empty());
+
+        // Act & Assert
+        webTestClient.delete().uri("/api/notes/note1")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        verify(reactiveNoteService, times(1)).deleteNote("note1");
+    }
+}
@@ -0,0 +1,156 @@
+package com.medilabo.note.repository;
+
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.model.Note;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the keyset note queries and the index they rely on
+ */
+class NoteRepositoryCustomImplTest {
+
+    private final MongoMappingContext mappingContext = new MongoMappingContext();
+
+    private QueryMapper queryMapper;
+
+    @BeforeEach
+    void setUp() {
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        queryMapper = new QueryMapper(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+    }
+
+    @Test
+    void testPageQuery_FirstPage_ShouldOnlyFilterOnPatient() {
+        // Act
+        Query query = NoteRepositoryCustomImpl.pageQuery("patient1", null, null, null, 21);
+
+        // Assert
+        assertEquals(new Document("$and", List.of(new Document("patientId", "patient1"))), query.getQueryObject());
+        assertEquals(21, query.getLimit());
+    }
+
+    @Test
+    void testPageQuery_WithCursorAndRange_ShouldContinueAfterCursor() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 7, 1, 0, 0);
+        NoteCursor after = new NoteCursor(LocalDateTime.of(2024, 5, 2, 9, 30), "65f0c0ffee0000000000abcd");
+
+        // Act
+        Query query = NoteRepositoryCustomImpl.pageQuery("patient1", after, from, to, 21);
+
+        // Assert
+        assertEquals(new Document("$and", List.of(
+                new Document("patientId", "patient1"),
+                new Document("createdAt", new Document("$gte", from)),
+                new Document("createdAt", new Document("$lt", to)),
+                new Document("$or", List.of(
+                        new Document("createdAt", new Document("$lt", after.createdAt())),
+                        new Document("createdAt", after.createdAt()).append("id", new Document("$lt", after.id())),
+                        new Document("createdAt", null))))),
+                query.getQueryObject());
+    }
+
+    @Test
+    void testPageQuery_WithUndatedCursor_ShouldContinueAmongUndatedNotes() {
+        // Arrange
+        NoteCursor after = new NoteCursor(null, "65f0c0ffee0000000000abcd");
+
+        // Act
+        Query query = NoteRepositoryCustomImpl.pageQuery("patient1", after, null, null, 21);
+
+        // Assert
+        assertEquals(new Document("$and", List.of(
+                        new Document("patientId", "patient1"),
+                        new Document("createdAt", null).append("id", new Document("$lt", after.id())))),
+                query.getQueryObject());
+    }
+
+    @Test
+    void testSearchQuery_ShouldFilterTextMatchesAndSortByScoreFirst() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // Act
+        Query query = NoteRepositoryCustomImpl.searchQuery("smoker \"high cholesterol\"", "patient1", from, null, 40, 21);
+
+        // Assert
+        assertEquals(new Document("$text", new Document("$search", "smoker \"high cholesterol\""))
+                        .append("patientId", "patient1")
+                        .append("createdAt", new Document("$gte", from)),
+                query.getQueryObject());
+        assertEquals(List.of("score", "createdAt", "id"), List.copyOf(query.getSortObject().keySet()));
+        assertEquals(new Document("$meta", "textScore"), query.getFieldsObject().get("score"));
+        assertEquals(1, query.getFieldsObject().get("content"));
+        assertNull(query.getFieldsObject().get("triggerMask"));
+        assertEquals(40, query.getSkip());
+        assertEquals(21, query.getLimit());
+    }
+
+    @Test
+    void testNoteIndexes_ShouldIncludeTextIndexOnContent() {
+        // Act
+        List<? extends IndexDefinition> textIndexes = StreamSupport.stream(new MongoPersistentEntityIndexResolver(mappingContext)
+                        .resolveIndexFor(Note.class).spliterator(), false)
+                .filter(definition -> definition.getIndexKeys().containsValue("text"))
+                .toList();
+
+        // Assert
+        assertEquals(1, textIndexes.size());
+        assertEquals(new Document("content", "text"), textIndexes.get(0).getIndexKeys());
+    }
+
+    @Test
+    void testPatientNotesIndex_ShouldMatchPageQueryEqualityThenSort() {
+        // Arrange
+        Document mappedSort = queryMapper.getMappedSort(
+                NoteRepositoryCustomImpl.pageQuery("patient1", null, null, null, 21).getSortObject(),
+                mappingContext.getPersistentEntity(Note.class));
+
+        // Act
+        IndexDefinition index = StreamSupport.stream(new MongoPersistentEntityIndexResolver(mappingContext)
+                        .resolveIndexFor(Note.class).spliterator(), false)
+                .filter(definition -> Note.PATIENT_NOTES_INDEX.equals(definition.getIndexOptions().get("name")))
+                .findFirst()
+                .orElseThrow();
+
+        // Assert: the patient equality prefix followed by the sort, so pages are read in index order
+        Document expected = new Document("patientId", 1);
+        expected.putAll(mappedSort);
+        assertEquals(expected, index.getIndexKeys());
+        assertEquals(List.of("patientId", "createdAt", "_id"), List.copyOf(index.getIndexKeys().keySet()));
+    }
+
+    @Test
+    void testTriggerMaskUpdate_ShouldOnlySetMaskOfUnchangedContent() {
+        // Arrange
+        Note note = new Note("patient1", "Smoker", "Dr. Smith");
+        note.setId("65f0c0ffee0000000000abcd");
+        note.setTriggerMask(0b1L);
+        note.setTriggerDictionaryVersion(2);
+
+        // Act
+        Query query = NoteRepositoryCustomImpl.triggerMaskQuery(note);
+        Document update = NoteRepositoryCustomImpl.triggerMaskUpdate(note).getUpdateObject();
+
+        // Assert
+        assertEquals(new Document("id", "65f0c0ffee0000000000abcd").append("content", "Smoker"), query.getQueryObject());
+        assertEquals(new Document("$set", new Document("triggerMask", 0b1L).append("triggerDictionaryVersion", 2)), update);
+    }
+}
@@ -0,0 +1,124 @@
+package com.medilabo.note.repository;
+
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.model.Note;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query plans of the keyset note queries against an embedded MongoDB
+ * Run with mvn -Pembedded-mongo test (downloads a MongoDB binary on first use)
+ */
+@Tag("embedded-mongo")
+@DataMongoTest(properties = {
+        "de.flapdoodle.mongodb.embedded.version=7.0.12",
+        "spring.data.mongodb.auto-index-creation=true"
+})
+class NoteRepositoryQueryPlanTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // Two notes per timestamp, so that pages have to break ties on the ID
+            Note note = new Note("patient" + (i % 4), "Note " + i, "Dr. Smith");
+            note.setCreatedAt(start.plusHours(i / 8));
+            notes.add(note);
+        }
+        noteRepository.saveAll(notes);
+    }
+
+    @Test
+    void testPageQuery_ShouldScanPatientNotesIndexWithoutSorting() {
+        // Arrange
+        NoteCursor after = new NoteCursor(start.plusHours(10), "ffffffffffffffffffffffff");
+
+        // Act
+        Document plan = explain(NoteRepositoryCustomImpl.pageQuery("patient1", after, start, start.plusDays(1), 11));
+
+        // Assert
+        String winningPlan = plan.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+        assertTrue(winningPlan.contains("\"IXSCAN\""), winningPlan);
+        assertTrue(winningPlan.contains(Note.PATIENT_NOTES_INDEX), winningPlan);
+        assertFalse(winningPlan.contains("\"SORT\""), winningPlan);
+        assertFalse(winningPlan.contains("\"COLLSCAN\""), winningPlan);
+    }
+
+    @Test
+    void testFindPageByPatientId_ShouldWalkEveryNoteOnceNewestFirst() {
+        // Act
+        List<Note> walked = new ArrayList<>();
+        NoteCursor after = null;
+        List<Note> page;
+        do {
+            page = noteRepository.findPageByPatientId("patient1", after, null, null, 7);
+            walked.addAll(page);
+            if (!page.isEmpty()) {
+                Note last = page.get(page.size() - 1);
+                after = new NoteCursor(last.getCreatedAt(), last.getId());
+            }
+        } while (page.size() == 7);
+
+        // Assert
+        assertEquals(noteRepository.findByPatientIdOrderByCreatedAtDesc("patient1").size(), walked.size());
+        assertEquals(walked.size(), walked.stream().map(Note::getId).distinct().count());
+        for (int i = 1; i < walked.size(); i++) {
+            assertFalse(walked.get(i).getCreatedAt().isAfter(walked.get(i - 1).getCreatedAt()));
+        }
+    }
+
+    @Test
+    void testSearchNotes_ShouldRankMatchesAndApplyFilters() {
+        // Arrange
+        Note once = new Note("patient1", "Patient is a smoker", "Dr. Smith");
+        once.setCreatedAt(start.plusDays(30));
+        Note twice = new Note("patient1", "Smoker, smoking every day, former smokers group", "Dr. Smith");
+        twice.setCreatedAt(start.plusDays(20));
+        Note otherPatient = new Note("patient2", "Smoker", "Dr. Smith");
+        otherPatient.setCreatedAt(start.plusDays(30));
+        noteRepository.saveAll(List.of(once, twice, otherPatient));
+
+        // Act
+        List<NoteSearchHit> practice = noteRepository.searchNotes("smokers", null, null, null, 0, 10);
+        List<NoteSearchHit> patient = noteRepository.searchNotes("smokers", "patient1", start.plusDays(25), null, 0, 10);
+
+        // Assert
+        assertEquals(3, practice.size());
+        assertEquals(twice.getContent(), practice.get(0).getContent());
+        assertTrue(practice.get(0).getScore() > practice.get(1).getScore());
+        assertEquals(1, patient.size());
+        assertEquals(once.getContent(), patient.get(0).getContent());
+    }
+
+    private Document explain(Query query) {
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        var entity = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Note.class);
+        Document find = new Document("find", mongoTemplate.getCollectionName(Note.class))
+                .append("filter", queryMapper.getMappedObject(query.getQueryObject(), entity))
+                .append("sort", queryMapper.getMappedSort(query.getSortObject(), entity))
+                .append("limit", query.getLimit());
+        return mongoTemplate.getDb().runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+    }
+}
@@ -0,0 +1,215 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.dto.BulkNoteRequest;
+import com.medilabo.note.dto.BulkNoteResult;
+import com.medilabo.note.model.Note;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NoteBulkImportService
+ */
+@ExtendWith(MockitoExtension.class)
+class NoteBulkImportServiceTest {
+
+    private static Validator validator;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private RiskCacheNotifier riskCacheNotifier;
+
+    private final List<List<Note>> chunks = new ArrayList<>();
+
+    private final List<BulkNoteResult> results = new ArrayList<>();
+
+    private NoteBulkImportService noteBulkImportService;
+
+    @BeforeAll
+    static void setUpValidator() {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    @BeforeEach
+    void setUp() {
+        noteBulkImportService = new NoteBulkImportService(mongoTemplate, validator,
+                new TriggerDictionary(1, List.of("smoker", "cholesterol", "dizziness")), riskCacheNotifier, 2);
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class)).thenReturn(bulkOperations);
+        lenient().when(bulkOperations.insert(anyList())).thenAnswer(invocation -> {
+            chunks.add(List.copyOf(invocation.<List<Note>>getArgument(0)));
+            return bulkOperations;
+        });
+    }
+
+    @Test
+    void testImportNotes_ShouldInsertValidNotesInUnorderedChunks() {
+        // Arrange
+        BulkNoteRequest legacy = new BulkNoteRequest("patient1", "Smoker with high cholesterol", "Dr. Smith",
+                LocalDateTime.of(2019, 5, 1, 10, 0));
+        BulkNoteRequest second = new BulkNoteRequest("patient2", "Dizziness", null, null);
+        BulkNoteRequest third = new BulkNoteRequest("patient1", "Feels well", null, null);
+
+        // Act
+        noteBulkImportService.importNotes(List.of(legacy, second, third).iterator(), results::add);
+
+        // Assert
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getError() == null));
+
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(1, chunks.get(1).size());
+        Note stored = chunks.get(0).get(0);
+        assertEquals(results.get(0).getId(), stored.getId());
+        assertEquals(LocalDateTime.of(2019, 5, 1, 10, 0), stored.getCreatedAt());
+        assertEquals(0b011L, stored.getTriggerMask());
+        assertEquals(1, stored.getTriggerDictionaryVersion());
+        assertEquals(results.get(2).getId(), chunks.get(1).get(0).getId());
+        verify(bulkOperations, times(2)).execute();
+
+        verify(riskCacheNotifier).patientChanged("patient1");
+        verify(riskCacheNotifier).patientChanged("patient2");
+        verifyNoMoreInteractions(riskCacheNotifier);
+    }
+
+    @Test
+    void testImportNotes_ShouldReportEachChunkInRequestOrderOnceWritten() {
+        // Arrange
+        BulkNoteRequest first = new BulkNoteRequest("patient1", "Smoker", null, null);
+        BulkNoteRequest invalid = new BulkNoteRequest(null, " ", "Dr. Smith", null);
+        BulkNoteRequest second = new BulkNoteRequest("patient2", "Dizziness", null, null);
+        List<Integer> reportedBeforeWrite = new ArrayList<>();
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            reportedBeforeWrite.add(results.size());
+            return BulkWriteResult.unacknowledged();
+        });
+
+        // Act
+        noteBulkImportService.importNotes(Arrays.asList(first, invalid, null, null, second).iterator(), results::add);
+
+        // Assert
+        assertEquals(List.of(0, 4), reportedBeforeWrite);
+        assertEquals(List.of(0, 1, 2, 3, 4), results.stream().map(BulkNoteResult::getIndex).toList());
+        assertEquals("Content cannot be empty, Patient ID is required", results.get(1).getError());
+        assertEquals("Malformed note", results.get(2).getError());
+        assertNull(results.get(1).getId());
+        assertEquals(chunks.get(1).get(0).getId(), results.get(4).getId());
+        verify(bulkOperations, times(2)).execute();
+    }
+
+    @Test
+    void testImportNotes_WhenInterrupted_ShouldStillNotifyStoredPatients() {
+        // Arrange
+        List<BulkNoteRequest> requests = List.of(
+                new BulkNoteRequest("patient1", "Smoker", null, null),
+                new BulkNoteRequest("patient1", "Relapse", null, null),
+                new BulkNoteRequest("patient2", "Antibodies", null, null));
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class, () -> noteBulkImportService.importNotes(requests.iterator(),
+                result -> {
+                    throw new UncheckedIOException(new IOException("Broken pipe"));
+                }));
+        verify(bulkOperations, times(1)).execute();
+        verify(riskCacheNotifier, only()).patientChanged("patient1");
+    }
+
+    @Test
+    void testImportNotes_WhenServerRejectsNote_ShouldReportItAndKeepTheOthers() {
+        // Arrange
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("Bulk write failed",
+                new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(duplicate), null,
+                        new ServerAddress(), Set.of())));
+
+        // Act
+        noteBulkImportService.importNotes(List.of(
+                new BulkNoteRequest("patient1", "Smoker", null, null),
+                new BulkNoteRequest("patient2", "Relapse", null, null)).iterator(), results::add);
+
+        // Assert
+        assertNotNull(results.get(0).getId());
+        assertNull(results.get(0).getError());
+        assertNull(results.get(1).getId());
+        assertEquals("E11000 duplicate key error", results.get(1).getError());
+
+        ArgumentCaptor<String> notified = ArgumentCaptor.forClass(String.class);
+        verify(riskCacheNotifier).patientChanged(notified.capture());
+        assertEquals("patient1", notified.getValue());
+    }
+
+    @Test
+    void testImportNotes_WhenWriteConcernFails_ShouldRejectTheNotes() {
+        // Arrange
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        WriteConcernError timeout = new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out",
+                new BsonDocument());
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("Bulk write failed",
+                new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(duplicate), timeout,
+                        new ServerAddress(), Set.of())));
+
+        // Act
+        noteBulkImportService.importNotes(List.of(
+                new BulkNoteRequest("patient1", "Smoker", null, null),
+                new BulkNoteRequest("patient2", "Relapse", null, null)).iterator(), results::add);
+
+        // Assert
+        assertEquals("Write concern error: waiting for replication timed out", results.get(0).getError());
+        assertEquals("E11000 duplicate key error", results.get(1).getError());
+        verifyNoInteractions(riskCacheNotifier);
+    }
+
+    @Test
+    void testImportNotes_WhenChunkCannotBeWritten_ShouldRejectOnlyThatChunk() {
+        // Arrange
+        when(bulkOperations.execute())
+                .thenThrow(new DataAccessResourceFailureException("Connection reset"))
+                .thenReturn(BulkWriteResult.unacknowledged());
+
+        // Act
+        noteBulkImportService.importNotes(List.of(
+                new BulkNoteRequest("patient1", "Smoker", null, null),
+                new BulkNoteRequest("patient1", "Relapse", null, null),
+                new BulkNoteRequest("patient2", "Antibodies", null, null)).iterator(), results::add);
+
+        // Assert
+        assertEquals(3, results.size());
+        assertEquals("Unable to store note", results.get(0).getError());
+        assertEquals("Unable to store note", results.get(1).getError());
+        assertNull(results.get(2).getError());
+        verify(riskCacheNotifier, only()).patientChanged("patient2");
+    }
+}
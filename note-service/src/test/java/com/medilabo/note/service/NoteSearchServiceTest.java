@@ -0,0 +1,141 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.dto.NoteSearchResponse;
+import com.medilabo.note.repository.NoteRepository;
+import com.medilabo.note.repository.NoteSearchHit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NoteSearchService
+ */
+@ExtendWith(MockitoExtension.class)
+class NoteSearchServiceTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @InjectMocks
+    private NoteSearchService noteSearchService;
+
+    @Test
+    void testSearch_ShouldReturnPageOfRankedResultsWithSnippets() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(noteRepository.searchNotes("smokers", "patient1", from, null, 2, 3)).thenReturn(List.of(
+                hit("n1", "Patient is a smoker", 1.5f),
+                hit("n2", "Former smoker", 0.75f),
+                hit("n3", "Smoker", 0.5f)));
+
+        // Act
+        NoteSearchResponse response = noteSearchService.search("smokers", "patient1", from, null, 1, 2);
+
+        // Assert
+        assertEquals(2, response.getResults().size());
+        assertTrue(response.isHasMore());
+        assertEquals(1, response.getPage());
+        assertEquals("n1", response.getResults().get(0).getId());
+        assertEquals(1.5f, response.getResults().get(0).getScore());
+        assertEquals("Patient is a smoker", response.getResults().get(0).getSnippet());
+    }
+
+    @Test
+    void testSearch_WithInvalidRequest_ShouldThrowException() {
+        // Arrange
+        LocalDateTime date = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> noteSearchService.search(" ", null, null, null, 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> noteSearchService.search("smoker", null, date, date, 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> noteSearchService.search("smoker", null, null, null, 50, 20));
+        verifyNoInteractions(noteRepository);
+    }
+
+    @Test
+    void testTerms_ShouldKeepSearchedWordsOnly() {
+        // Act
+        List<String> terms = NoteSearchService.terms("Smokers \"high cholesterol\" -relapse A1C");
+
+        // Assert
+        assertEquals(List.of("smoker", "high", "cholesterol", "a1c"), terms);
+    }
+
+    @Test
+    void testSnippet_ShouldCutAroundFirstMatchOnWordBoundaries() {
+        // Arrange
+        String before = "Patient reports feeling well. ".repeat(10);
+        String after = " Follow-up scheduled in three months.".repeat(10);
+        String content = before + "Lab results show abnormal cholesterol levels." + after;
+
+        // Act
+        String snippet = NoteSearchService.snippet(content, NoteSearchService.terms("cholesterol"));
+
+        // Assert
+        assertTrue(snippet.startsWith("…"), snippet);
+        assertTrue(snippet.endsWith("…"), snippet);
+        assertTrue(snippet.contains("abnormal cholesterol levels"), snippet);
+        assertTrue(snippet.length() <= NoteSearchService.SNIPPET_LENGTH + 2, snippet);
+        assertFalse(snippet.startsWith("… "), snippet);
+        assertTrue(content.contains(snippet.substring(1, snippet.length() - 1)), snippet);
+    }
+
+    @Test
+    void testStem_ShouldRemovePluralAndVerbEndingsOnly() {
+        // Act & Assert
+        assertEquals("smok", NoteSearchService.stem("smoking"));
+        assertEquals("smok", NoteSearchService.stem("smokes"));
+        assertEquals("smok", NoteSearchService.stem("smoked"));
+        assertEquals("smoker", NoteSearchService.stem("smokers"));
+        assertEquals("allergy", NoteSearchService.stem("allergies"));
+        assertEquals("dizziness", NoteSearchService.stem("dizziness"));
+        assertEquals("no", NoteSearchService.stem("no"));
+    }
+
+    @Test
+    void testSnippet_ShouldMatchWholeWordsOnly() {
+        // Arrange: "no" appears inside "normal" and "known" long before the word itself
+        String before = "Blood pressure normal, known history of asthma. ".repeat(4);
+        String content = before + "Patient reports no dizziness and keeps smoking daily." + " Follow-up in June.".repeat(5);
+
+        // Act
+        String noSnippet = NoteSearchService.snippet(content, NoteSearchService.terms("no"));
+        String smokeSnippet = NoteSearchService.snippet(content, NoteSearchService.terms("smokes"));
+
+        // Assert
+        assertTrue(noSnippet.contains("reports no dizziness"), noSnippet);
+        assertTrue(noSnippet.startsWith("…"), noSnippet);
+        assertTrue(smokeSnippet.contains("keeps smoking daily"), smokeSnippet);
+    }
+
+    @Test
+    void testSnippet_WithoutMatch_ShouldStartAtBeginning() {
+        // Arrange
+        String content = "Patient reports feeling well. ".repeat(10);
+
+        // Act
+        String snippet = NoteSearchService.snippet(content, List.of("smoke"));
+
+        // Assert
+        assertTrue(snippet.startsWith("Patient reports"), snippet);
+        assertTrue(snippet.endsWith("…"), snippet);
+    }
+
+    private static NoteSearchHit hit(String id, String content, float score) {
+        NoteSearchHit hit = new NoteSearchHit();
+        hit.setId(id);
+        hit.setPatientId("patient1");
+        hit.setContent(content);
+        hit.setCreatedAt(LocalDateTime.of(2024, 2, 1, 9, 0));
+        hit.setScore(score);
+        return hit;
+    }
+}
@@ -1,18 +1,26 @@
 package com.medilabo.note.service;
 
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.dto.NoteHistoryResponse;
+import com.medilabo.note.dto.NotePageResponse;
+import com.medilabo.note.dto.TriggerMaskResponse;
 import com.medilabo.note.model.Note;
+import com.medilabo.note.repository.NoteContent;
+import com.medilabo.note.repository.NoteHistoryEntry;
 import com.medilabo.note.repository.NoteRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,6 +35,15 @@ class NoteServiceTest {
     @Mock
     private NoteRepository noteRepository;
 
+    @Mock
+    private RiskCacheNotifier riskCacheNotifier;
+
+    @Mock
+    private NoteWriteBatcher noteWriteBatcher;
+
+    @Spy
+    private TriggerDictionary triggerDictionary = new TriggerDictionary(1, List.of("smoker", "cholesterol", "dizziness"));
+
     @InjectMocks
     private NoteService noteService;
 
@@ -71,6 +88,42 @@ class NoteServiceTest {
         verify(noteRepository, times(1)).findByPatientIdOrderByCreatedAtDesc("patient999");
     }
 
+    @Test
+    void testStreamNoteContentsByPatientId_ShouldReturnContentOnly() {
+        // Arrange
+        NoteContent content = () -> "Patient reports feeling well";
+        when(noteRepository.streamContentsByPatientId("patient1")).thenReturn(Stream.of(content));
+
+        // Act
+        List<String> result;
+        try (Stream<String> contents = noteService.streamNoteContentsByPatientId("patient1")) {
+            result = contents.toList();
+        }
+
+        // Assert
+        assertEquals(List.of("Patient reports feeling well"), result);
+        verify(noteRepository, never()).findByPatientIdOrderByCreatedAtDesc(any());
+    }
+
+    @Test
+    void testStreamNoteHistoryByPatientId_ShouldKeepRepositoryOrder() {
+        // Arrange
+        LocalDateTime first = LocalDateTime.of(2023, 1, 10, 9, 30);
+        LocalDateTime second = LocalDateTime.of(2024, 3, 5, 14, 0);
+        when(noteRepository.streamHistoryByPatientIdOrderByCreatedAtAsc("patient1"))
+                .thenReturn(Stream.of(historyEntry(first, "Smoker"), historyEntry(second, "Cholesterol high")));
+
+        // Act
+        List<NoteHistoryResponse> result;
+        try (Stream<NoteHistoryResponse> history = noteService.streamNoteHistoryByPatientId("patient1")) {
+            result = history.toList();
+        }
+
+        // Assert
+        assertEquals(List.of(new NoteHistoryResponse(first, "Smoker"),
+                new NoteHistoryResponse(second, "Cholesterol high")), result);
+    }
+
     @Test
     void testCreateNote_ShouldSaveAndReturnNote() {
         // Arrange
@@ -87,6 +140,83 @@ class NoteServiceTest {
         assertEquals("Test content", result.getContent());
         assertEquals("Dr. Smith", result.getAuthorName());
         verify(noteRepository, times(1)).save(any(Note.class));
+        verify(riskCacheNotifier, times(1)).patientChanged("patient1");
+    }
+
+    @Test
+    void testCreateNote_ShouldStoreTriggerMask() {
+        // Arrange
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Note result = noteService.createNote("patient1", "Smoker, reports DIZZINESS", "Dr. Smith");
+
+        // Assert
+        assertEquals(0b101L, result.getTriggerMask());
+        assertEquals(1, result.getTriggerDictionaryVersion());
+    }
+
+    @Test
+    void testCreateNote_WithWriteBatching_ShouldInsertThroughBatcher() {
+        // Arrange
+        when(noteWriteBatcher.isEnabled()).thenReturn(true);
+        when(noteWriteBatcher.insert(any(Note.class))).thenAnswer(invocation -> {
+            Note note = invocation.getArgument(0);
+            note.setId("note2");
+            return note;
+        });
+
+        // Act
+        Note result = noteService.createNote("patient1", "Smoker", "Dr. Smith");
+
+        // Assert
+        assertEquals("note2", result.getId());
+        assertEquals(0b001L, result.getTriggerMask());
+        verify(noteRepository, never()).save(any(Note.class));
+        verify(riskCacheNotifier, times(1)).patientChanged("patient1");
+    }
+
+    @Test
+    void testGetTriggerMask_WithCurrentMasks_ShouldNotWrite() {
+        // Arrange
+        Note current = new Note();
+        current.setId("note1");
+        current.setTriggerMask(0b100L);
+        current.setTriggerDictionaryVersion(1);
+        when(noteRepository.findTriggerMasksByPatientId("patient1")).thenReturn(List.of(current));
+
+        // Act
+        TriggerMaskResponse result = noteService.getTriggerMask("patient1");
+
+        // Assert
+        assertEquals(0b100L, result.getMask());
+        verify(noteRepository, never()).findAllById(any());
+        verify(noteRepository, never()).updateTriggerMasks(any());
+    }
+
+    @Test
+    void testGetTriggerMask_ShouldCombineMasksAndRetagStaleNotes() {
+        // Arrange
+        Note current = new Note();
+        current.setId("note1");
+        current.setTriggerMask(0b001L);
+        current.setTriggerDictionaryVersion(1);
+        Note stale = new Note();
+        stale.setId("note2");
+        Note staleWithContent = new Note("patient1", "Cholesterol is high", "Dr. Smith");
+        staleWithContent.setId("note2");
+        when(noteRepository.findTriggerMasksByPatientId("patient1")).thenReturn(List.of(current, stale));
+        when(noteRepository.findAllById(List.of("note2"))).thenReturn(List.of(staleWithContent));
+
+        // Act
+        TriggerMaskResponse result = noteService.getTriggerMask("patient1");
+
+        // Assert
+        assertEquals(0b011L, result.getMask());
+        assertEquals(1, result.getDictionaryVersion());
+        assertEquals(2, result.getNoteCount());
+        verify(noteRepository, times(1)).updateTriggerMasks(List.of(staleWithContent));
+        verify(noteRepository, never()).save(any(Note.class));
     }
 
     @Test
@@ -103,6 +233,7 @@ class NoteServiceTest {
         assertEquals("Updated content", result.getContent());
         verify(noteRepository, times(1)).findById("note1");
         verify(noteRepository, times(1)).save(any(Note.class));
+        verify(riskCacheNotifier, times(1)).patientChanged("patient1");
     }
 
     @Test
@@ -117,6 +248,20 @@ class NoteServiceTest {
 
         verify(noteRepository, times(1)).findById("note999");
         verify(noteRepository, never()).save(any(Note.class));
+        verifyNoInteractions(riskCacheNotifier);
+    }
+
+    @Test
+    void testDeleteNote_WhenNoteExists_ShouldNotifyRiskService() {
+        // Arrange
+        when(noteRepository.findById("note1")).thenReturn(Optional.of(testNote));
+
+        // Act
+        noteService.deleteNote("note1");
+
+        // Assert
+        verify(noteRepository, times(1)).deleteById("note1");
+        verify(riskCacheNotifier, times(1)).patientChanged("patient1");
     }
 
     @Test
@@ -130,5 +275,80 @@ class NoteServiceTest {
         // Assert
         verify(noteRepository, times(1)).deleteById("note1");
     }
-}
 
+    /**
+     * Helper method to create a history projection for testing
+     *
+     * @param createdAt the note creation date
+     * @param content the note content
+     * @return the projection
+     */
+    private NoteHistoryEntry historyEntry(LocalDateTime createdAt, String content) {
+        return new NoteHistoryEntry() {
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+
+            @Override
+            public String getContent() {
+                return content;
+            }
+        };
+    }
+
+    @Test
+    void testGetNotePage_WhenMoreNotes_ShouldReturnCursorOfLastNote() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 2, 9, 30);
+        Note second = new Note();
+        second.setId("note2");
+        second.setCreatedAt(createdAt);
+        when(noteRepository.findPageByPatientId("patient1", null, null, null, 3))
+                .thenReturn(List.of(testNote, second, new Note()));
+
+        // Act
+        NotePageResponse page = noteService.getNotePage("patient1", null, null, null, 2);
+
+        // Assert
+        assertEquals(List.of(testNote, second), page.getNotes());
+        assertEquals(new NoteCursor(createdAt, "note2"), NoteCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void testGetNotePage_OnLastPage_ShouldReturnNoCursor() {
+        // Arrange
+        NoteCursor after = new NoteCursor(LocalDateTime.of(2024, 5, 2, 9, 30), "note2");
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(noteRepository.findPageByPatientId("patient1", after, from, null, 3)).thenReturn(List.of(testNote));
+
+        // Act
+        NotePageResponse page = noteService.getNotePage("patient1", after.encode(), from, null, 2);
+
+        // Assert
+        assertEquals(List.of(testNote), page.getNotes());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetNotePage_WhenLastNoteUndated_ShouldReturnDecodableCursor() {
+        // Arrange
+        Note undated = new Note();
+        undated.setId("note2");
+        when(noteRepository.findPageByPatientId("patient1", null, null, null, 3))
+                .thenReturn(List.of(testNote, undated, new Note()));
+
+        // Act
+        NotePageResponse page = noteService.getNotePage("patient1", null, null, null, 2);
+
+        // Assert
+        assertEquals(new NoteCursor(null, "note2"), NoteCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void testGetNotePage_WhenCursorInvalid_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> noteService.getNotePage("patient1", "bm90LWEtY3Vyc29y", null, null, 2));
+        verifyNoInteractions(noteRepository);
+    }
+}
@@ -0,0 +1,84 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.model.Note;
+import com.medilabo.note.repository.NoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NoteTriggerBackfill
+ */
+@ExtendWith(MockitoExtension.class)
+class NoteTriggerBackfillTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    private NoteTriggerBackfill noteTriggerBackfill;
+
+    @BeforeEach
+    void setUp() {
+        noteTriggerBackfill = new NoteTriggerBackfill(noteRepository,
+                new TriggerDictionary(2, List.of("smoker", "cholesterol", "dizziness")), 2);
+    }
+
+    @Test
+    void testBackfill_ShouldUpdateMasksOnlyUntilNoStaleNoteIsLeft() {
+        // Arrange
+        Note first = note("note1", "Smoker");
+        Note second = note("note2", "Cholesterol and dizziness");
+        when(noteRepository.findByTriggerDictionaryVersionNot(2, PageRequest.of(0, 2)))
+                .thenReturn(List.of(first, second), List.of());
+        when(noteRepository.updateTriggerMasks(List.of(first, second))).thenReturn(2);
+
+        // Act
+        long retagged = noteTriggerBackfill.backfill();
+
+        // Assert
+        assertEquals(2, retagged);
+        assertEquals(0b001L, first.getTriggerMask());
+        assertEquals(0b110L, second.getTriggerMask());
+        assertEquals(2, second.getTriggerDictionaryVersion());
+        verify(noteRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testBackfill_WhenNotesCannotBeUpdated_ShouldStop() {
+        // Arrange
+        Note stuck = note("note1", "Smoker");
+        when(noteRepository.findByTriggerDictionaryVersionNot(2, PageRequest.of(0, 2))).thenReturn(List.of(stuck));
+        when(noteRepository.updateTriggerMasks(List.of(stuck))).thenReturn(0);
+
+        // Act
+        long retagged = noteTriggerBackfill.backfill();
+
+        // Assert
+        assertEquals(0, retagged);
+        verify(noteRepository, times(1)).updateTriggerMasks(any());
+    }
+
+    /**
+     * Helper method to create a note tagged with an older dictionary
+     *
+     * @param id the note ID
+     * @param content the note content
+     * @return the note
+     */
+    private Note note(String id, String content) {
+        Note note = new Note("patient1", content, "Dr. Smith");
+        note.setId(id);
+        note.setTriggerMask(0L);
+        note.setTriggerDictionaryVersion(1);
+        return note;
+    }
+}
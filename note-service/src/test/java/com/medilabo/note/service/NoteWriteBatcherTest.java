@@ -0,0 +1,236 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.model.Note;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NoteWriteBatcher
+ */
+@ExtendWith(MockitoExtension.class)
+class NoteWriteBatcherTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<List<Note>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    private NoteWriteBatcher noteWriteBatcher;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class)).thenReturn(bulkOperations);
+        lenient().when(bulkOperations.insert(anyList())).thenAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.<List<Note>>getArgument(0)));
+            return bulkOperations;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (noteWriteBatcher != null) {
+            noteWriteBatcher.stop();
+        }
+    }
+
+    @Test
+    void testInsert_WithConcurrentCallers_ShouldWriteThemAsOneBatch() throws Exception {
+        // Arrange: a long window, closed early by the size limit
+        noteWriteBatcher = new NoteWriteBatcher(mongoTemplate, true, Duration.ofSeconds(10), 3,
+                1000, Duration.ofSeconds(30), meterRegistry);
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+
+        // Act
+        List<Future<Note>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                Note note = new Note("patient" + i, "Note " + i, "Dr. Smith");
+                results.add(callers.submit(() -> noteWriteBatcher.insert(note)));
+            }
+            for (Future<Note> result : results) {
+                assertNotNull(result.get().getId());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+        verify(bulkOperations, times(1)).execute();
+        DistributionSummary batchSizes = meterRegistry.get("note.write.batch.size").summary();
+        assertEquals(1, batchSizes.count());
+        assertEquals(3.0, batchSizes.totalAmount());
+    }
+
+    @Test
+    void testInsert_WhenWindowExpires_ShouldWriteAlone() {
+        // Arrange
+        noteWriteBatcher = new NoteWriteBatcher(mongoTemplate, true, Duration.ofMillis(5), 100,
+                1000, Duration.ofSeconds(30), meterRegistry);
+
+        // Act
+        Note result = noteWriteBatcher.insert(new Note("patient1", "Smoker", "Dr. Smith"));
+
+        // Assert
+        assertNotNull(result.getId());
+        assertEquals(List.of(result), batches.get(0));
+    }
+
+    @Test
+    void testInsert_WhenDisabled_ShouldThrowException() {
+        // Arrange
+        noteWriteBatcher = new NoteWriteBatcher(mongoTemplate, false, Duration.ofMillis(5), 100,
+                1000, Duration.ofSeconds(30), meterRegistry);
+
+        // Act & Assert
+        assertFalse(noteWriteBatcher.isEnabled());
+        assertThrows(IllegalStateException.class,
+                () -> noteWriteBatcher.insert(new Note("patient1", "Smoker", "Dr. Smith")));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testInsert_WhenQueueIsFull_ShouldRejectNote() throws Exception {
+        // Arrange: the flusher is stuck writing a first note and one more note fits in the queue
+        noteWriteBatcher = new NoteWriteBatcher(mongoTemplate, true, Duration.ofMillis(5), 1,
+                1, Duration.ofSeconds(30), meterRegistry);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return BulkWriteResult.unacknowledged();
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+
+        try {
+            Future<Note> first = callers.submit(() -> noteWriteBatcher.insert(new Note("patient1", "Smoker", null)));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            // Act: of two more notes, one is queued and the other rejected at once
+            CompletableFuture<Note> second = CompletableFuture.supplyAsync(
+                    () -> noteWriteBatcher.insert(new Note("patient2", "Relapse", null)), callers);
+            CompletableFuture<Note> third = CompletableFuture.supplyAsync(
+                    () -> noteWriteBatcher.insert(new Note("patient3", "Dizziness", null)), callers);
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                    () -> CompletableFuture.anyOf(second, third).get(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            // Assert
+            assertInstanceOf(IllegalStateException.class, rejected.getCause());
+            CompletableFuture<Note> queued = second.isCompletedExceptionally() ? third : second;
+            assertNotNull(first.get(5, TimeUnit.SECONDS).getId());
+            assertNotNull(queued.get(5, TimeUnit.SECONDS).getId());
+            assertEquals(2, batches.size());
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testInsert_WhenFlusherDies_ShouldFailCallerAndStop() {
+        // Arrange
+        noteWriteBatcher = new NoteWriteBatcher(mongoTemplate, true, Duration.ofMillis(5), 100,
+                1000, Duration.ofSeconds(30), meterRegistry);
+        when(bulkOperations.execute()).thenThrow(new StackOverflowError());
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> noteWriteBatcher.insert(new Note("patient1", "Smoker", null)));
+        assertThrows(IllegalStateException.class,
+                () -> noteWriteBatcher.insert(new Note("patient2", "Relapse", null)));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void testFlush_WhenServerRejectsOneNote_ShouldFailOnlyItsCaller() {
+        // Arrange
+        noteWriteBatcher = new NoteWriteBatcher(mongoTemplate, false, Duration.ofMillis(5), 100,
+                1000, Duration.ofSeconds(30), meterRegistry);
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("Bulk write failed",
+                new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(duplicate), null,
+                        new ServerAddress(), Set.of())));
+        List<NoteWriteBatcher.PendingNote> batch = List.of(
+                new NoteWriteBatcher.PendingNote(new Note("patient1", "Smoker", null), new CompletableFuture<>()),
+                new NoteWriteBatcher.PendingNote(new Note("patient2", "Relapse", null), new CompletableFuture<>()),
+                new NoteWriteBatcher.PendingNote(new Note("patient3", "Dizziness", null), new CompletableFuture<>()));
+
+        // Act
+        noteWriteBatcher.flush(batch);
+
+        // Assert
+        assertEquals("patient1", batch.get(0).result().join().getPatientId());
+        assertTrue(batch.get(1).result().isCompletedExceptionally());
+        assertThrows(DataIntegrityViolationException.class, () -> {
+            try {
+                batch.get(1).result().join();
+            } catch (RuntimeException e) {
+                throw e.getCause();
+            }
+        });
+        assertEquals("patient3", batch.get(2).result().join().getPatientId());
+    }
+
+    @Test
+    void testFlush_WhenWriteConcernFails_ShouldFailEveryCaller() {
+        // Arrange
+        noteWriteBatcher = new NoteWriteBatcher(mongoTemplate, false, Duration.ofMillis(5), 100,
+                1000, Duration.ofSeconds(30), meterRegistry);
+        WriteConcernError timeout = new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out",
+                new BsonDocument());
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("Bulk write failed",
+                new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(), timeout,
+                        new ServerAddress(), Set.of())));
+        List<NoteWriteBatcher.PendingNote> batch = List.of(
+                new NoteWriteBatcher.PendingNote(new Note("patient1", "Smoker", null), new CompletableFuture<>()),
+                new NoteWriteBatcher.PendingNote(new Note("patient2", "Relapse", null), new CompletableFuture<>()));
+
+        // Act
+        noteWriteBatcher.flush(batch);
+
+        // Assert
+        assertTrue(batch.get(0).result().isCompletedExceptionally());
+        assertTrue(batch.get(1).result().isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,159 @@
+package com.medilabo.note.service;
+
+import com.medilabo.note.dto.NoteCursor;
+import com.medilabo.note.model.Note;
+import com.medilabo.note.repository.ReactiveNoteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReactiveNoteService
+ */
+@ExtendWith(MockitoExtension.class)
+class ReactiveNoteServiceTest {
+
+    @Mock
+    private ReactiveNoteRepository reactiveNoteRepository;
+
+    @Mock
+    private RiskCacheNotifier riskCacheNotifier;
+
+    @Spy
+    private TriggerDictionary triggerDictionary = new TriggerDictionary(1, List.of("smoker", "cholesterol", "dizziness"));
+
+    @InjectMocks
+    private ReactiveNoteService reactiveNoteService;
+
+    @Test
+    void testGetNotePage_ShouldFetchOneExtraNoteForNextCursor() {
+        // Arrange
+        Note newest = note("n3", LocalDateTime.of(2024, 3, 1, 9, 0));
+        Note middle = note("n2", LocalDateTime.of(2024, 2, 1, 9, 0));
+        Note oldest = note("n1", LocalDateTime.of(2024, 1, 1, 9, 0));
+        when(reactiveNoteRepository.findPageByPatientId("patient1", null, null, null, 3))
+                .thenReturn(Flux.just(newest, middle, oldest));
+
+        // Act & Assert
+        StepVerifier.create(reactiveNoteService.getNotePage("patient1", null, null, null, 2))
+                .assertNext(page -> {
+                    assertEquals(List.of(newest, middle), page.getNotes());
+                    assertEquals(new NoteCursor(middle.getCreatedAt(), "n2"), NoteCursor.decode(page.getNextCursor()));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetNotePage_WithInvalidCursor_ShouldEmitError() {
+        // Act & Assert
+        StepVerifier.create(reactiveNoteService.getNotePage("patient1", "garbage", null, null, 2))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(reactiveNoteRepository);
+    }
+
+    @Test
+    void testGetTriggerMask_ShouldCombineMasksAndRetagStaleNotes() {
+        // Arrange
+        Note current = new Note();
+        current.setId("note1");
+        current.setTriggerMask(0b001L);
+        current.setTriggerDictionaryVersion(1);
+        Note stale = new Note();
+        stale.setId("note2");
+        Note staleWithContent = new Note("patient1", "Cholesterol is high", "Dr. Smith");
+        staleWithContent.setId("note2");
+        when(reactiveNoteRepository.findTriggerMasksByPatientId("patient1")).thenReturn(Flux.just(current, stale));
+        when(reactiveNoteRepository.findAllById(List.of("note2"))).thenReturn(Flux.just(staleWithContent));
+        when(reactiveNoteRepository.updateTriggerMasks(anyList())).thenReturn(Mono.just(1));
+
+        // Act & Assert
+        StepVerifier.create(reactiveNoteService.getTriggerMask("patient1"))
+                .assertNext(response -> {
+                    assertEquals(0b011L, response.getMask());
+                    assertEquals(2, response.getNoteCount());
+                    assertEquals(1, response.getDictionaryVersion());
+                })
+                .verifyComplete();
+        verify(reactiveNoteRepository, times(1)).updateTriggerMasks(List.of(staleWithContent));
+        verify(reactiveNoteRepository, never()).save(any(Note.class));
+    }
+
+    @Test
+    void testGetTriggerMask_WhenAllMasksCurrent_ShouldNotWrite() {
+        // Arrange
+        Note current = new Note();
+        current.setId("note1");
+        current.setTriggerMask(0b100L);
+        current.setTriggerDictionaryVersion(1);
+        when(reactiveNoteRepository.findTriggerMasksByPatientId("patient1")).thenReturn(Flux.just(current));
+
+        // Act & Assert
+        StepVerifier.create(reactiveNoteService.getTriggerMask("patient1"))
+                .assertNext(response -> assertEquals(0b100L, response.getMask()))
+                .verifyComplete();
+        verify(reactiveNoteRepository, never()).updateTriggerMasks(anyList());
+    }
+
+    @Test
+    void testCreateNote_ShouldSaveTaggedNoteAndNotify() {
+        // Arrange
+        when(reactiveNoteRepository.save(any(Note.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // Act & Assert
+        StepVerifier.create(reactiveNoteService.createNote("patient1", "Smoker, reports DIZZINESS", "Dr. Smith"))
+                .assertNext(note -> {
+                    assertEquals(0b101L, note.getTriggerMask());
+                    assertEquals("patient1", note.getPatientId());
+                })
+                .verifyComplete();
+        verify(riskCacheNotifier, times(1)).patientChanged("patient1");
+    }
+
+    @Test
+    void testUpdateNote_WhenNotFound_ShouldEmitError() {
+        // Arrange
+        when(reactiveNoteRepository.findById("missing")).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(reactiveNoteService.updateNote("missing", "New content"))
+                .expectErrorMessage("Note not found")
+                .verify();
+        verify(reactiveNoteRepository, never()).save(any(Note.class));
+        verifyNoInteractions(riskCacheNotifier);
+    }
+
+    @Test
+    void testDeleteNote_ShouldDeleteAndNotifyPatient() {
+        // Arrange
+        when(reactiveNoteRepository.findById("note1")).thenReturn(Mono.just(note("note1", LocalDateTime.now())));
+        when(reactiveNoteRepository.deleteById("note1")).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(reactiveNoteService.deleteNote("note1"))
+                .verifyComplete();
+        verify(reactiveNoteRepository, times(1)).deleteById("note1");
+        verify(riskCacheNotifier, times(1)).patientChanged("patient1");
+    }
+
+    private static Note note(String id, LocalDateTime createdAt) {
+        Note note = new Note("patient1", "Content " + id, "Dr. Smith");
+        note.setId(id);
+        note.setCreatedAt(createdAt);
+        return note;
+    }
+}
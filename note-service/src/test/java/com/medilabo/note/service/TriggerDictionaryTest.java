@@ -0,0 +1,47 @@
+package com.medilabo.note.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TriggerDictionary
+ */
+class TriggerDictionaryTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testLoad_ShouldReadVersionAndTermsFromSharedFile() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("triggers.json");
+        Files.writeString(file, "{\"version\": 3, \"terms\": [\"smoker\", \"relapse\"]}");
+
+        // Act
+        TriggerDictionary dictionary = new TriggerDictionary(new FileSystemResource(file), new ObjectMapper());
+
+        // Assert
+        assertEquals(3, dictionary.getVersion());
+        assertEquals(List.of("smoker", "relapse"), dictionary.getTerms());
+    }
+
+    @Test
+    void testLoad_WhenFileIsMissing_ShouldUsePackagedCopy() {
+        // Act
+        TriggerDictionary dictionary = new TriggerDictionary(
+                new FileSystemResource(tempDir.resolve("missing.json")), new ObjectMapper());
+
+        // Assert
+        assertEquals(1, dictionary.getVersion());
+        assertEquals("hemoglobin a1c", dictionary.getTerms().get(0));
+    }
+}
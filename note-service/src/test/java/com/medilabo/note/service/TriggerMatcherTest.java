@@ -0,0 +1,97 @@
+package com.medilabo.note.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TriggerMatcher
+ */
+class TriggerMatcherTest {
+
+    private final TriggerMatcher matcher = TriggerMatcher.compile(Arrays.asList(
+            "hemoglobin a1c",
+            "microalbumin",
+            "height",
+            "weight",
+            "smoker",
+            "abnormal",
+            "cholesterol",
+            "dizziness",
+            "relapse",
+            "reaction",
+            "antibodies"
+    ));
+
+    @Test
+    void testScan_ShouldIgnoreCase() {
+        // Act
+        long found = matcher.scan("Patient reports: HEMOGLOBIN A1C elevated, Smoker", 0L);
+
+        // Assert
+        assertEquals(List.of("hemoglobin a1c", "smoker"), matcher.triggersIn(found));
+    }
+
+    @Test
+    void testScan_ShouldFindOverlappingTriggers() {
+        // Arrange
+        TriggerMatcher overlapping = TriggerMatcher.compile(List.of("he", "she", "his", "hers"));
+
+        // Act
+        long found = overlapping.scan("ushers", 0L);
+
+        // Assert
+        assertEquals(List.of("he", "she", "hers"), overlapping.triggersIn(found));
+    }
+
+    @Test
+    void testScan_ShouldFindTriggersInsideWords() {
+        // Act
+        long found = matcher.scan("Weights and heights recorded", 0L);
+
+        // Assert
+        assertEquals(List.of("height", "weight"), matcher.triggersIn(found));
+    }
+
+    @Test
+    void testScan_ShouldNotMatchAcrossNotes() {
+        // Act
+        long found = matcher.scan("A1C normal", matcher.scan("Hemoglobin", 0L));
+
+        // Assert
+        assertEquals(0L, found);
+    }
+
+    @Test
+    void testScan_ShouldHandleNonAsciiTriggers() {
+        // Arrange
+        TriggerMatcher accented = TriggerMatcher.compile(List.of("vertige", "hémoglobine"));
+
+        // Act
+        long found = accented.scan("HÉMOGLOBINE glyquée élevée", 0L);
+
+        // Assert
+        assertEquals(List.of("hémoglobine"), accented.triggersIn(found));
+    }
+
+    @Test
+    void testScan_WhenAllTriggersFound_ShouldBeComplete() {
+        // Act
+        long found = matcher.scan("Hemoglobin A1C, Microalbumin, Height, Weight, Smoker, Abnormal", 0L);
+        found = matcher.scan("Cholesterol, Dizziness, Relapse, Reaction, Antibodies", found);
+        found = matcher.scan(null, found);
+
+        // Assert
+        assertTrue(matcher.isComplete(found));
+        assertEquals(matcher.getTriggers().size(), Long.bitCount(found));
+    }
+
+    @Test
+    void testCompile_WithBlankTrigger_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> TriggerMatcher.compile(List.of("smoker", " ")));
+    }
+}
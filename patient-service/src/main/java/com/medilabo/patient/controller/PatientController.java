@@ -1,5 +1,6 @@
 package com.medilabo.patient.controller;
 
+import com.medilabo.patient.dto.PatientIdPage;
 import com.medilabo.patient.model.Patient;
 import com.medilabo.patient.service.PatientService;
 import jakarta.validation.Valid;
@@ -36,6 +37,24 @@ public class PatientController {
         return ResponseEntity.ok(patients);
     }
 
+    /**
+     * GET /api/patients/ids - Page through patient IDs in ascending order
+     *
+     * @param after the last ID of the previous page, exclusive
+     * @param limit the maximum number of IDs to return (1 to 1000)
+     * @return the page of IDs and the total patient count
+     */
+    @GetMapping("/ids")
+    public ResponseEntity<PatientIdPage> getPatientIds(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "500") int limit) {
+        log.info("GET /api/patients/ids - after {} limit {}", after, limit);
+        if (limit < 1 || limit > 1000) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(patientService.getPatientIds(after, limit));
+    }
+
     /**
      * GET /api/patients/{id} - View information of a specific patient
      *
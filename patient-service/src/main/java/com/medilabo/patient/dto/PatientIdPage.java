@@ -0,0 +1,21 @@
+package com.medilabo.patient.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for one page of patient IDs in ascending order
+ * Used by bulk consumers to walk the whole population with a keyset cursor
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientIdPage {
+
+    private List<Long> ids;
+
+    private long total;
+}
@@ -1,7 +1,10 @@
 package com.medilabo.patient.repository;
 
 import com.medilabo.patient.model.Patient;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -29,5 +32,15 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
      * @return list of patients with the given last name
      */
     List<Patient> findByLastName(String lastName);
+
+    /**
+     * Find patient IDs greater than a given ID, in ascending order
+     *
+     * @param afterId the exclusive lower bound
+     * @param pageable the page size
+     * @return the next patient IDs
+     */
+    @Query("select p.id from Patient p where p.id > :afterId order by p.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
 
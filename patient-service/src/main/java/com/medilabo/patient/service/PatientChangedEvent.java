@@ -0,0 +1,9 @@
+package com.medilabo.patient.service;
+
+/**
+ * Event published when a patient is created, updated or deleted
+ *
+ * @param patientId the patient ID
+ */
+public record PatientChangedEvent(Long patientId) {
+}
@@ -1,9 +1,12 @@
 package com.medilabo.patient.service;
 
+import com.medilabo.patient.dto.PatientIdPage;
 import com.medilabo.patient.model.Patient;
 import com.medilabo.patient.repository.PatientRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +24,8 @@ public class PatientService {
 
     private final PatientRepository patientRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * View personal information of patients
      *
@@ -31,6 +36,20 @@ public class PatientService {
         return patientRepository.findAll();
     }
 
+    /**
+     * List patient IDs after a cursor, for bulk consumers paging through all patients
+     *
+     * @param afterId the last ID of the previous page, exclusive
+     * @param limit the maximum number of IDs to return
+     * @return the page of IDs in ascending order with the total patient count
+     */
+    @Transactional(readOnly = true)
+    public PatientIdPage getPatientIds(Long afterId, int limit) {
+        log.info("Fetching up to {} patient IDs after {}", limit, afterId);
+        List<Long> ids = patientRepository.findIdsAfter(afterId, PageRequest.of(0, limit));
+        return new PatientIdPage(ids, patientRepository.count());
+    }
+
     /**
      * View personal information of a patient
      *
@@ -50,7 +69,10 @@ public class PatientService {
      */
     public Patient addPatient(Patient patient) {
         log.info("Adding new patient: {} {}", patient.getFirstName(), patient.getLastName());
-        return patientRepository.save(patient);
+        Patient saved = patientRepository.save(patient);
+        // Lets risk-service add the patient to its risk table without waiting for a restart
+        eventPublisher.publishEvent(new PatientChangedEvent(saved.getId()));
+        return saved;
     }
 
     /**
@@ -71,7 +93,9 @@ public class PatientService {
                     if (patientDetails.getContactInfo() != null) {
                         patient.setContactInfo(patientDetails.getContactInfo());
                     }
-                    return patientRepository.save(patient);
+                    Patient saved = patientRepository.save(patient);
+                    eventPublisher.publishEvent(new PatientChangedEvent(id));
+                    return saved;
                 });
     }
 
@@ -85,6 +109,7 @@ public class PatientService {
         log.info("Deleting patient with ID: {}", id);
         if (patientRepository.existsById(id)) {
             patientRepository.deleteById(id);
+            eventPublisher.publishEvent(new PatientChangedEvent(id));
             return true;
         }
         return false;
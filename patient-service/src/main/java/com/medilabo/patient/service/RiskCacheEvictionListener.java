@@ -0,0 +1,25 @@
+package com.medilabo.patient.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Forwards patient changes to risk-service once the transaction has committed
+ */
+@Component
+@RequiredArgsConstructor
+public class RiskCacheEvictionListener {
+
+    private final RiskCacheNotifier riskCacheNotifier;
+
+    /**
+     * Evict the cached risk assessment of a changed patient
+     *
+     * @param event the patient change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        riskCacheNotifier.patientChanged(String.valueOf(event.patientId()));
+    }
+}
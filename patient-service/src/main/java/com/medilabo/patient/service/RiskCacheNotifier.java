@@ -0,0 +1,65 @@
+package com.medilabo.patient.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+/**
+ * Notifies risk-service that a patient's cached risk assessment is stale
+ * Runs asynchronously so writes never wait on risk-service; failures are only logged.
+ * note-service and patient-service are built separately and keep identical copies of this class.
+ */
+@Component
+@Slf4j
+public class RiskCacheNotifier {
+
+    private final RestClient restClient;
+
+    private final boolean enabled;
+
+    /**
+     * Constructor for the notifier
+     *
+     * @param restClientBuilder the RestClient builder
+     * @param riskServiceUrl the base URL of risk-service
+     * @param enabled whether notifications are sent
+     */
+    public RiskCacheNotifier(RestClient.Builder restClientBuilder,
+                             @Value("${risk.service.url}") String riskServiceUrl,
+                             @Value("${risk.cache.notify.enabled:true}") boolean enabled) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(1));
+        requestFactory.setReadTimeout(Duration.ofSeconds(2));
+        this.restClient = restClientBuilder
+                .baseUrl(riskServiceUrl)
+                .requestFactory(requestFactory)
+                .build();
+        this.enabled = enabled;
+    }
+
+    /**
+     * Evict the cached risk assessment of a patient whose data or notes changed
+     *
+     * @param patientId the patient ID
+     */
+    @Async
+    public void patientChanged(String patientId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            restClient.delete()
+                    .uri("/api/risk/cache/{patientId}", patientId)
+                    .retrieve()
+                    .toBodilessEntity();
+            log.debug("Evicted cached risk assessment for patient {}", patientId);
+        } catch (Exception e) {
+            log.warn("Unable to evict cached risk assessment for patient {}: {}", patientId, e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.medilabo.patient.controller;
 
+import com.medilabo.patient.dto.PatientIdPage;
 import com.medilabo.patient.model.ContactInfo;
 import com.medilabo.patient.model.Patient;
 import com.medilabo.patient.service.PatientService;
@@ -13,10 +14,12 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -67,6 +70,27 @@ class PatientControllerTest {
         verify(patientService, times(1)).getAllPatients();
     }
 
+    @Test
+    void testGetPatientIds_ShouldReturnPage() throws Exception {
+        when(patientService.getPatientIds(10L, 2)).thenReturn(new PatientIdPage(List.of(11L, 12L), 40));
+
+        mockMvc.perform(get("/api/patients/ids").param("after", "10").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids", hasSize(2)))
+                .andExpect(jsonPath("$.ids[0]").value(11))
+                .andExpect(jsonPath("$.total").value(40));
+
+        verify(patientService, times(1)).getPatientIds(10L, 2);
+    }
+
+    @Test
+    void testGetPatientIds_WithInvalidLimit_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/patients/ids").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(patientService, never()).getPatientIds(any(), anyInt());
+    }
+
     @Test
     void testGetPatientById_WhenPatientExists_ShouldReturnPatient() throws Exception {
         when(patientService.getPatientById(1L)).thenReturn(Optional.of(testPatient));
@@ -1,5 +1,6 @@
 package com.medilabo.patient.service;
 
+import com.medilabo.patient.dto.PatientIdPage;
 import com.medilabo.patient.model.ContactInfo;
 import com.medilabo.patient.model.Patient;
 import com.medilabo.patient.repository.PatientRepository;
@@ -9,6 +10,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -17,6 +21,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,6 +33,9 @@ class PatientServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PatientService patientService;
 
@@ -62,6 +70,18 @@ class PatientServiceTest {
         verify(patientRepository, times(1)).findAll();
     }
 
+    @Test
+    void testGetPatientIds_ShouldReturnPageAndTotal() {
+        when(patientRepository.findIdsAfter(eq(5L), any(Pageable.class))).thenReturn(List.of(6L, 7L));
+        when(patientRepository.count()).thenReturn(7L);
+
+        PatientIdPage result = patientService.getPatientIds(5L, 2);
+
+        assertEquals(List.of(6L, 7L), result.getIds());
+        assertEquals(7L, result.getTotal());
+        verify(patientRepository, times(1)).findIdsAfter(5L, PageRequest.of(0, 2));
+    }
+
     @Test
     void testGetPatientById_WhenPatientExists_ShouldReturnPatient() {
         when(patientRepository.findById(1L)).thenReturn(Optional.of(testPatient));
@@ -94,6 +114,7 @@ class PatientServiceTest {
         assertEquals("John", result.getFirstName());
         assertEquals("Doe", result.getLastName());
         verify(patientRepository, times(1)).save(testPatient);
+        verify(eventPublisher, times(1)).publishEvent(new PatientChangedEvent(testPatient.getId()));
     }
 
     @Test
@@ -120,6 +141,7 @@ class PatientServiceTest {
         assertEquals("Smith", result.get().getLastName());
         verify(patientRepository, times(1)).findById(1L);
         verify(patientRepository, times(1)).save(any(Patient.class));
+        verify(eventPublisher, times(1)).publishEvent(new PatientChangedEvent(1L));
     }
 
     @Test
@@ -132,6 +154,7 @@ class PatientServiceTest {
         assertFalse(result.isPresent());
         verify(patientRepository, times(1)).findById(999L);
         verify(patientRepository, never()).save(any(Patient.class));
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -144,6 +167,7 @@ class PatientServiceTest {
         assertTrue(result);
         verify(patientRepository, times(1)).existsById(1L);
         verify(patientRepository, times(1)).deleteById(1L);
+        verify(eventPublisher, times(1)).publishEvent(new PatientChangedEvent(1L));
     }
 
     @Test
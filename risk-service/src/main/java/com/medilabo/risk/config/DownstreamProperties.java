@@ -0,0 +1,76 @@
+package com.medilabo.risk.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeout settings for each downstream microservice
+ */
+@Data
+@ConfigurationProperties(prefix = "risk.downstream")
+public class DownstreamProperties {
+
+    private Client patient = new Client();
+
+    private Client note = new Client();
+
+    private Hedging hedging = new Hedging();
+
+    /**
+     * Settings of the HTTP client dedicated to one downstream service
+     */
+    @Data
+    public static class Client {
+
+        // Maximum time to establish a TCP connection
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        // Maximum idle time between two network reads of a response, not a limit on the whole exchange
+        private Duration responseTimeout = Duration.ofSeconds(5);
+
+        // Maximum time of a whole call, until the last element of a streamed response
+        private Duration deadline = Duration.ofSeconds(30);
+
+        private int maxConnections = 50;
+
+        // Requests allowed to wait for a free connection before new ones are rejected
+        private int pendingAcquireMaxCount = 200;
+
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+
+        // Idle connections are closed before the downstream or a proxy drops them
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        private Duration evictionInterval = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Settings of request hedging: a second identical request is sent when the first one is slow
+     */
+    @Data
+    public static class Hedging {
+
+        private boolean enabled = false;
+
+        // Latency percentile after which a hedge is sent
+        private double percentile = 0.95;
+
+        // Hedge delay used until enough latencies have been observed
+        private Duration initialDelay = Duration.ofMillis(50);
+
+        private Duration minDelay = Duration.ofMillis(5);
+
+        // Hedges allowed per primary request, e.g. 0.05 caps the extra load at 5%
+        private double budgetRatio = 0.05;
+
+        // Hedges that can be sent in a burst once the budget has been saved up
+        private int maxBurst = 10;
+
+        // Number of recent latencies the percentile is computed from
+        private int sampleSize = 512;
+    }
+}
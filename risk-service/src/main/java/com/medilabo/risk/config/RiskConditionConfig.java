@@ -0,0 +1,12 @@
+package com.medilabo.risk.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the configuration of additional risk conditions
+ */
+@Configuration
+@EnableConfigurationProperties(RiskConditionProperties.class)
+public class RiskConditionConfig {
+}
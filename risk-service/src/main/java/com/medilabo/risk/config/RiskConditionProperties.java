@@ -0,0 +1,35 @@
+package com.medilabo.risk.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Additional conditions screened alongside diabetes, declared by name:
+ * risk.engine.conditions.&lt;name&gt;.triggers and thresholds
+ */
+@Data
+@ConfigurationProperties(prefix = "risk.engine")
+public class RiskConditionProperties {
+
+    private Map<String, Definition> conditions = new LinkedHashMap<>();
+
+    /**
+     * Vocabulary and thresholds of one condition.
+     * A threshold is the trigger count from which the level applies; levels without one are never assigned.
+     */
+    @Data
+    public static class Definition {
+
+        private List<String> triggers;
+
+        private Integer borderline;
+
+        private Integer inDanger;
+
+        private Integer earlyOnset;
+    }
+}
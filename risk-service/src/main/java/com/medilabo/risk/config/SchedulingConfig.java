@@ -0,0 +1,12 @@
+package com.medilabo.risk.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled tasks such as polling the trigger dictionary file
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,23 +1,119 @@
 package com.medilabo.risk.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 /**
  * Configuration for WebClient to communicate with other microservices
+ * Each downstream service gets its own connection pool so that a slow service cannot
+ * starve calls to the other one; pool metrics are published under reactor.netty.connection.provider
  */
 @Configuration
+@EnableConfigurationProperties(DownstreamProperties.class)
 public class WebClientConfig {
 
     /**
-     * Creates a WebClient builder bean
+     * Creates the connection pool for patient-service
      *
-     * @return the WebClient builder
+     * @param properties the downstream settings
+     * @return the connection provider
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider patientConnectionProvider(DownstreamProperties properties) {
+        return connectionProvider("patient-service", properties.getPatient());
+    }
+
+    /**
+     * Creates the connection pool for note-service
+     *
+     * @param properties the downstream settings
+     * @return the connection provider
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider noteConnectionProvider(DownstreamProperties properties) {
+        return connectionProvider("note-service", properties.getNote());
+    }
+
+    /**
+     * Creates the WebClient for patient-service
+     *
+     * @param builder the auto-configured WebClient builder
+     * @param connectionProvider the patient-service connection pool
+     * @param properties the downstream settings
+     * @param baseUrl the patient-service base URL
+     * @return the WebClient
      */
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient patientWebClient(WebClient.Builder builder,
+                                      @Qualifier("patientConnectionProvider") ConnectionProvider connectionProvider,
+                                      DownstreamProperties properties,
+                                      @Value("${patient.service.url}") String baseUrl) {
+        return webClient(builder, connectionProvider, properties.getPatient(), baseUrl);
     }
-}
 
+    /**
+     * Creates the WebClient for note-service
+     *
+     * @param builder the auto-configured WebClient builder
+     * @param connectionProvider the note-service connection pool
+     * @param properties the downstream settings
+     * @param baseUrl the note-service base URL
+     * @return the WebClient
+     */
+    @Bean
+    public WebClient noteWebClient(WebClient.Builder builder,
+                                   @Qualifier("noteConnectionProvider") ConnectionProvider connectionProvider,
+                                   DownstreamProperties properties,
+                                   @Value("${note.service.url}") String baseUrl) {
+        return webClient(builder, connectionProvider, properties.getNote(), baseUrl);
+    }
+
+    /**
+     * Build a bounded, instrumented connection pool
+     *
+     * @param name the pool name, used as the metrics tag
+     * @param settings the pool settings
+     * @return the connection provider
+     */
+    static ConnectionProvider connectionProvider(String name, DownstreamProperties.Client settings) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .evictInBackground(settings.getEvictionInterval())
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * Build a WebClient with explicit timeouts on top of a connection pool
+     *
+     * @param builder the WebClient builder, cloned so that each client keeps its own settings
+     * @param connectionProvider the connection pool
+     * @param settings the timeout settings
+     * @param baseUrl the base URL of the downstream service
+     * @return the WebClient
+     */
+    static WebClient webClient(WebClient.Builder builder, ConnectionProvider connectionProvider,
+                               DownstreamProperties.Client settings, String baseUrl) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(settings.getResponseTimeout())
+                .keepAlive(true);
+        return builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
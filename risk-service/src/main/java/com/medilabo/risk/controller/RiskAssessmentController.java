@@ -1,11 +1,32 @@
 package com.medilabo.risk.controller;
 
+import com.medilabo.risk.dto.CohortDistributionDTO;
+import com.medilabo.risk.dto.MultiConditionAssessmentDTO;
 import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.dto.RiskBatchRequest;
+import com.medilabo.risk.dto.RiskBatchResultDTO;
+import com.medilabo.risk.dto.RiskTransitionDTO;
+import com.medilabo.risk.dto.StoredRiskAssessmentDTO;
+import com.medilabo.risk.model.DiabetesThresholds;
+import com.medilabo.risk.service.CohortAnalyticsService;
+import com.medilabo.risk.service.RiskAssessmentCache;
 import com.medilabo.risk.service.RiskAssessmentService;
+import com.medilabo.risk.service.RiskBatchService;
+import com.medilabo.risk.service.RiskExportService;
+import com.medilabo.risk.service.RiskTableStore;
+import com.medilabo.risk.service.RiskTimelineService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 /**
  * REST Controller for diabetes risk assessment
@@ -18,6 +39,18 @@ public class RiskAssessmentController {
 
     private final RiskAssessmentService riskAssessmentService;
 
+    private final RiskBatchService riskBatchService;
+
+    private final RiskExportService riskExportService;
+
+    private final RiskTimelineService riskTimelineService;
+
+    private final RiskAssessmentCache riskAssessmentCache;
+
+    private final RiskTableStore riskTable;
+
+    private final CohortAnalyticsService cohortAnalyticsService;
+
     /**
      * Assess diabetes risk for a specific patient
      *
@@ -25,18 +58,169 @@ public class RiskAssessmentController {
      * @return the risk assessment result
      */
     @GetMapping("/{patientId}")
-    public ResponseEntity<RiskAssessmentDTO> assessRisk(@PathVariable String patientId) {
+    public Mono<RiskAssessmentDTO> assessRisk(@PathVariable String patientId) {
         log.info("Received request to assess risk for patient: {}", patientId);
 
+        return Mono.defer(() -> riskAssessmentService.assessDiabetesRisk(patientId))
+                .onErrorMap(RuntimeException.class, e -> {
+                    log.error("Error assessing risk for patient {}: {}", patientId, e.getMessage());
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+                });
+    }
+
+    /**
+     * Assess the risk of every registered condition for a specific patient, from a single scan of the notes
+     *
+     * @param patientId the patient ID
+     * @return one assessment per condition
+     */
+    @GetMapping("/{patientId}/conditions")
+    public Mono<MultiConditionAssessmentDTO> assessConditions(@PathVariable String patientId) {
+        log.info("Received request to assess all conditions for patient: {}", patientId);
+
+        return Mono.defer(() -> riskAssessmentService.assessConditions(patientId))
+                .onErrorMap(RuntimeException.class, e -> {
+                    log.error("Error assessing conditions for patient {}: {}", patientId, e.getMessage());
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+                });
+    }
+
+    /**
+     * Get how the diabetes risk level of a specific patient changed over time
+     *
+     * @param patientId the patient ID
+     * @return the level as of the first note, then every change of level, in date order, and the level as of today;
+     * 404 if the patient is not found, 503 if its notes cannot be fetched
+     */
+    @GetMapping("/{patientId}/timeline")
+    public Flux<RiskTransitionDTO> getRiskTimeline(@PathVariable String patientId) {
+        log.info("Received request for the risk timeline of patient: {}", patientId);
+
+        return Flux.defer(() -> riskTimelineService.getRiskTimeline(patientId))
+                .onErrorMap(RuntimeException.class, e -> {
+                    log.error("Error computing risk timeline for patient {}: {}", patientId, e.getMessage());
+                    HttpStatus status = e instanceof IllegalStateException
+                            ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.NOT_FOUND;
+                    return new ResponseStatusException(status, e.getMessage(), e);
+                });
+    }
+
+    /**
+     * Assess diabetes risk for several patients at once
+     *
+     * @param request the batch request containing the patient IDs
+     * @return one entry per patient ID, in request order, with either the assessment or the error
+     */
+    @PostMapping("/batch")
+    public Flux<RiskBatchResultDTO> assessRiskBatch(@Valid @RequestBody RiskBatchRequest request) {
+        log.info("Received request to assess risk for {} patients", request.getPatientIds().size());
+
         try {
-            RiskAssessmentDTO assessment = riskAssessmentService.assessDiabetesRisk(patientId);
-            return ResponseEntity.ok(assessment);
-        } catch (RuntimeException e) {
-            log.error("Error assessing risk for patient {}: {}", patientId, e.getMessage());
-            return ResponseEntity.notFound().build();
+            return riskBatchService.assessBatch(request.getPatientIds());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
         }
     }
 
+    /**
+     * Stream the assessment of every patient as newline-delimited JSON.
+     * Each line is written as soon as it is computed and a slow client slows the export down.
+     *
+     * @return one entry per line, in ascending patient ID order, holding the assessment or the error
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RiskBatchResultDTO> exportRisk() {
+        log.info("Received request to export risk for all patients");
+        return riskExportService.exportAll();
+    }
+
+    /**
+     * Get the stored assessment of a patient from the materialized risk table, without any downstream call
+     *
+     * @param patientId the patient ID
+     * @return the latest stored assessment with its date and whether a refresh is pending,
+     * or 404 if the patient was never assessed
+     */
+    @GetMapping("/table/{patientId}")
+    public ResponseEntity<StoredRiskAssessmentDTO> getStoredRisk(@PathVariable String patientId) {
+        return riskTable.get(patientId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get the stored assessments of several patients from the materialized risk table, without any downstream call
+     *
+     * @param patientIds the patient IDs
+     * @return the stored assessments, in request order; patients never assessed are left out
+     */
+    @GetMapping("/table")
+    public List<StoredRiskAssessmentDTO> getStoredRisks(@RequestParam List<String> patientIds) {
+        return riskTable.getAll(patientIds);
+    }
+
+    /**
+     * Count patients per diabetes risk level by age band and gender, from the in-memory population snapshot
+     *
+     * @param bandWidth the number of years per age band
+     * @return the distribution, or 503 if the snapshot is not built yet
+     */
+    @GetMapping("/cohort/distribution")
+    public Mono<CohortDistributionDTO> getCohortDistribution(@RequestParam(defaultValue = "10") int bandWidth) {
+        return cohortDistribution(bandWidth, new DiabetesThresholds());
+    }
+
+    /**
+     * Count patients per diabetes risk level by age band and gender as if other thresholds applied
+     *
+     * @param bandWidth the number of years per age band
+     * @param thresholds the what-if thresholds, omitted values keep the current rules
+     * @return the distribution, or 503 if the snapshot is not built yet
+     */
+    @PostMapping("/cohort/distribution")
+    public Mono<CohortDistributionDTO> simulateCohortDistribution(@RequestParam(defaultValue = "10") int bandWidth,
+                                                                  @Valid @RequestBody DiabetesThresholds thresholds) {
+        return cohortDistribution(bandWidth, thresholds);
+    }
+
+    private Mono<CohortDistributionDTO> cohortDistribution(int bandWidth, DiabetesThresholds thresholds) {
+        log.info("Received request for the cohort risk distribution by {}-year age bands", bandWidth);
+
+        return Mono.defer(() -> cohortAnalyticsService.distribution(bandWidth, thresholds))
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e))
+                .onErrorMap(IllegalStateException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e));
+    }
+
+    /**
+     * Evict the cached assessment of a patient after its patient data or notes changed,
+     * and flag its stored assessment for refresh
+     *
+     * @param patientId the patient ID
+     * @return 204 No Content
+     */
+    @DeleteMapping("/cache/{patientId}")
+    public ResponseEntity<Void> evictCachedRisk(@PathVariable String patientId) {
+        log.info("Evicting cached risk assessment for patient: {}", patientId);
+        riskAssessmentCache.evict(patientId);
+        riskTable.markStale(patientId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Evict every cached assessment and flag every stored assessment for refresh
+     *
+     * @return 204 No Content
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> evictAllCachedRisks() {
+        log.info("Evicting all cached risk assessments");
+        riskAssessmentCache.evictAll();
+        riskTable.markAllStale();
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Health check endpoint
      */
@@ -0,0 +1,66 @@
+package com.medilabo.risk.controller;
+
+import com.medilabo.risk.dto.BackfillStatusDTO;
+import com.medilabo.risk.service.RiskBackfillService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint to control and monitor the population risk backfill
+ * GET reports progress, POST starts or resumes a run, DELETE cancels it
+ */
+@Component
+@Endpoint(id = "riskbackfill")
+@RequiredArgsConstructor
+@Slf4j
+public class RiskBackfillEndpoint {
+
+    private static final int STATUS_CONFLICT = 409;
+
+    private final RiskBackfillService riskBackfillService;
+
+    /**
+     * GET /actuator/riskbackfill - Progress, throughput and ETA of the backfill
+     *
+     * @return the backfill status
+     */
+    @ReadOperation
+    public BackfillStatusDTO status() {
+        return riskBackfillService.getStatus();
+    }
+
+    /**
+     * POST /actuator/riskbackfill - Start the backfill, resuming from the checkpoint by default
+     *
+     * @param restart true to start over from the first patient
+     * @return the backfill status, with 409 Conflict if a run is already in progress
+     */
+    @WriteOperation
+    public WebEndpointResponse<BackfillStatusDTO> start(@Nullable Boolean restart) {
+        log.info("Backfill start requested (restart: {})", restart);
+        try {
+            return new WebEndpointResponse<>(riskBackfillService.start(Boolean.TRUE.equals(restart)));
+        } catch (IllegalStateException e) {
+            log.warn("Backfill start rejected: {}", e.getMessage());
+            return new WebEndpointResponse<>(riskBackfillService.getStatus(), STATUS_CONFLICT);
+        }
+    }
+
+    /**
+     * DELETE /actuator/riskbackfill - Cancel the running backfill
+     *
+     * @return the backfill status
+     */
+    @DeleteOperation
+    public BackfillStatusDTO cancel() {
+        log.info("Backfill cancellation requested");
+        return riskBackfillService.cancel();
+    }
+}
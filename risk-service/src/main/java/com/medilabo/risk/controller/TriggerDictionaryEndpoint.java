@@ -0,0 +1,44 @@
+package com.medilabo.risk.controller;
+
+import com.medilabo.risk.dto.TriggerDictionaryDTO;
+import com.medilabo.risk.service.TriggerDictionaryProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint to inspect and reload the trigger dictionary
+ * GET reports the active version and terms, POST reloads the dictionary file immediately
+ */
+@Component
+@Endpoint(id = "triggerdictionary")
+@RequiredArgsConstructor
+@Slf4j
+public class TriggerDictionaryEndpoint {
+
+    private final TriggerDictionaryProvider triggerDictionaryProvider;
+
+    /**
+     * GET /actuator/triggerdictionary - Active trigger dictionary
+     *
+     * @return the version and terms
+     */
+    @ReadOperation
+    public TriggerDictionaryDTO dictionary() {
+        return triggerDictionaryProvider.current().toDTO();
+    }
+
+    /**
+     * POST /actuator/triggerdictionary - Reload the dictionary file without waiting for the next poll
+     *
+     * @return the active dictionary after reloading
+     */
+    @WriteOperation
+    public TriggerDictionaryDTO reload() {
+        log.info("Trigger dictionary reload requested");
+        return triggerDictionaryProvider.reload();
+    }
+}
@@ -0,0 +1,40 @@
+package com.medilabo.risk.dto;
+
+import com.medilabo.risk.model.BackfillState;
+import com.medilabo.risk.model.RiskLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * DTO to report progress of the population risk backfill
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackfillStatusDTO {
+
+    private BackfillState state;
+
+    private String lastPatientId;
+
+    private long processed;
+
+    private long failed;
+
+    private long total;
+
+    private double throughputPerSecond;
+
+    private Duration eta;
+
+    private Instant startedAt;
+
+    private Instant updatedAt;
+
+    private Map<RiskLevel, Long> riskLevelCounts;
+}
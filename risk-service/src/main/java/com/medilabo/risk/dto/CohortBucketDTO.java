@@ -0,0 +1,27 @@
+package com.medilabo.risk.dto;
+
+import com.medilabo.risk.model.RiskLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO to report the diabetes risk levels of the patients of one age band and gender
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortBucketDTO {
+
+    private int minAge;
+
+    private int maxAge; // Inclusive
+
+    private String gender;
+
+    private long patientCount;
+
+    private Map<RiskLevel, Long> riskLevels;
+}
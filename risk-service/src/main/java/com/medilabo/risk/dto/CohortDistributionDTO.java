@@ -0,0 +1,30 @@
+package com.medilabo.risk.dto;
+
+import com.medilabo.risk.model.DiabetesThresholds;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DTO to report the diabetes risk distribution of the population by age band and gender
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CohortDistributionDTO {
+
+    private Instant snapshotAt; // When the population snapshot the distribution is computed from was built
+
+    private int dictionaryVersion;
+
+    private int patientCount;
+
+    private int bandWidth;
+
+    private DiabetesThresholds thresholds;
+
+    private List<CohortBucketDTO> buckets; // Non-empty buckets only, by age band then gender
+}
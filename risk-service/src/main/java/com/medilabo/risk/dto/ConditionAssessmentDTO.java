@@ -0,0 +1,23 @@
+package com.medilabo.risk.dto;
+
+import com.medilabo.risk.model.RiskLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO to return the risk assessment of one condition
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConditionAssessmentDTO {
+
+    private String condition;
+
+    private RiskLevel riskLevel;
+
+    private int triggerCount;
+
+    private boolean partialTriggerCount; // True when the scan stopped once the levels were settled: triggerCount is a lower bound
+}
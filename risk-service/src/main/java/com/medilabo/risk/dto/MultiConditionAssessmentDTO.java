@@ -0,0 +1,26 @@
+package com.medilabo.risk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO to return the risk assessment of every registered condition for a patient
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiConditionAssessmentDTO {
+
+    private String patientId;
+
+    private String patientName;
+
+    private int age;
+
+    private String gender;
+
+    private List<ConditionAssessmentDTO> conditions;
+}
@@ -0,0 +1,16 @@
+package com.medilabo.risk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO to receive the content of a note streamed by note-service
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteContentDTO {
+
+    private String content;
+}
@@ -7,21 +7,14 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 /**
- * DTO to retrieve medical notes from note-service
+ * DTO to receive a dated note streamed by note-service, oldest first
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class NoteDTO {
-
-    private String id;
-
-    private String patientId;
-
-    private String content;
+public class NoteHistoryDTO {
 
     private LocalDateTime createdAt;
 
-    private String authorName;
+    private String content;
 }
-
@@ -0,0 +1,20 @@
+package com.medilabo.risk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO to retrieve one page of patient IDs from patient-service
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientIdPageDTO {
+
+    private List<String> ids;
+
+    private long total;
+}
@@ -25,6 +25,10 @@ public class RiskAssessmentDTO {
 
     private int triggerCount;
 
+    private boolean partialTriggerCount; // True when the scan stopped once the level was settled: triggerCount is a lower bound
+
     private String message;
+
+    private int dictionaryVersion; // Version of the trigger dictionary the triggers were counted with
 }
 
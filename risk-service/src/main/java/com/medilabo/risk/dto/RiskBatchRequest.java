@@ -0,0 +1,21 @@
+package com.medilabo.risk.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for requesting risk assessments of several patients at once
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskBatchRequest {
+
+    @NotEmpty(message = "At least one patient ID is required")
+    private List<@NotBlank(message = "Patient ID cannot be blank") String> patientIds;
+}
@@ -0,0 +1,42 @@
+package com.medilabo.risk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for one entry of a batch risk assessment.
+ * Either the assessment or the error is set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskBatchResultDTO {
+
+    private String patientId;
+
+    private RiskAssessmentDTO assessment;
+
+    private String error;
+
+    /**
+     * Create a successful entry
+     *
+     * @param assessment the risk assessment
+     * @return the batch entry
+     */
+    public static RiskBatchResultDTO success(RiskAssessmentDTO assessment) {
+        return new RiskBatchResultDTO(assessment.getPatientId(), assessment, null);
+    }
+
+    /**
+     * Create a failed entry
+     *
+     * @param patientId the patient ID
+     * @param error the error message
+     * @return the batch entry
+     */
+    public static RiskBatchResultDTO failure(String patientId, String error) {
+        return new RiskBatchResultDTO(patientId, null, error);
+    }
+}
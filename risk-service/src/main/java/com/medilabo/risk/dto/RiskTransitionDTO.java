@@ -0,0 +1,30 @@
+package com.medilabo.risk.dto;
+
+import com.medilabo.risk.model.RiskLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO to return a change of diabetes risk level in a patient's history
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskTransitionDTO {
+
+    private LocalDateTime date; // Date from which the level applies: a note creation date, a birthday, or now for the last entry
+
+    private int age; // Patient age at that date
+
+    private RiskLevel riskLevel;
+
+    private int triggerCount;
+
+    private List<String> triggers; // Every trigger found up to that date
+
+    private int dictionaryVersion;
+}
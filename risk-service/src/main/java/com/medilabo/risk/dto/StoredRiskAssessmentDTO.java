@@ -0,0 +1,22 @@
+package com.medilabo.risk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO to return an assessment from the materialized risk table, with how current it is
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredRiskAssessmentDTO {
+
+    private RiskAssessmentDTO assessment;
+
+    private Instant assessedAt;
+
+    private boolean stale; // Patient data or notes changed since, a refresh is pending
+}
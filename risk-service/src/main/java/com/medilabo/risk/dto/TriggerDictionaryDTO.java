@@ -0,0 +1,20 @@
+package com.medilabo.risk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO describing a versioned trigger dictionary, as stored in the dictionary file
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TriggerDictionaryDTO {
+
+    private int version;
+
+    private List<String> terms;
+}
@@ -0,0 +1,22 @@
+package com.medilabo.risk.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO to retrieve the combined trigger mask of a patient's notes from note-service
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TriggerMaskDTO {
+
+    private String patientId;
+
+    private int dictionaryVersion;
+
+    private long mask;
+
+    private int noteCount;
+}
@@ -0,0 +1,45 @@
+package com.medilabo.risk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Persisted position of the population risk backfill
+ * Every patient up to and including lastPatientId has been scored, and counted in riskLevelCounts unless it failed
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackfillCheckpoint {
+
+    private BackfillState state;
+
+    private String lastPatientId;
+
+    private long processed;
+
+    private long failed;
+
+    private long total;
+
+    private Instant startedAt;
+
+    private Instant updatedAt;
+
+    private Map<RiskLevel, Long> riskLevelCounts = new EnumMap<>(RiskLevel.class);
+
+    /**
+     * Create the checkpoint of a run starting from the first patient
+     *
+     * @return a fresh checkpoint
+     */
+    public static BackfillCheckpoint fresh() {
+        Instant now = Instant.now();
+        return new BackfillCheckpoint(BackfillState.RUNNING, "0", 0, 0, 0, now, now, new EnumMap<>(RiskLevel.class));
+    }
+}
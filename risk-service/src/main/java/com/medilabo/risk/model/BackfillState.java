@@ -0,0 +1,12 @@
+package com.medilabo.risk.model;
+
+/**
+ * Lifecycle of the population risk backfill
+ */
+public enum BackfillState {
+    IDLE,
+    RUNNING,
+    CANCELLED,
+    FAILED,
+    COMPLETED
+}
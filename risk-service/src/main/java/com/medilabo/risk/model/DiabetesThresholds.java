@@ -0,0 +1,67 @@
+package com.medilabo.risk.model;
+
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Trigger count thresholds of the diabetes screening, defaulting to the Sprint 3 rules.
+ * Patients under the age limit are never borderline and have gender-specific thresholds;
+ * the others share one set of thresholds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiabetesThresholds {
+
+    @Min(0)
+    private int ageLimit = 30;
+
+    @Min(0)
+    private int youngMaleInDanger = 3;
+
+    @Min(0)
+    private int youngMaleEarlyOnset = 5;
+
+    @Min(0)
+    private int youngFemaleInDanger = 4;
+
+    @Min(0)
+    private int youngFemaleEarlyOnset = 7;
+
+    @Min(0)
+    private int borderline = 2;
+
+    @Min(0)
+    private int inDanger = 6;
+
+    @Min(0)
+    private int earlyOnset = 8;
+
+    /**
+     * Determine the risk level of a patient
+     *
+     * @param age the patient age
+     * @param male whether the patient is male
+     * @param triggerCount the number of triggers found
+     * @return the risk level
+     */
+    public RiskLevel assess(int age, boolean male, int triggerCount) {
+        if (age < ageLimit) {
+            if (male) {
+                if (triggerCount >= youngMaleEarlyOnset) return RiskLevel.EARLY_ONSET;
+                if (triggerCount >= youngMaleInDanger) return RiskLevel.IN_DANGER;
+            } else {
+                if (triggerCount >= youngFemaleEarlyOnset) return RiskLevel.EARLY_ONSET;
+                if (triggerCount >= youngFemaleInDanger) return RiskLevel.IN_DANGER;
+            }
+            return RiskLevel.NONE;
+        }
+
+        if (triggerCount >= earlyOnset) return RiskLevel.EARLY_ONSET;
+        if (triggerCount >= inDanger) return RiskLevel.IN_DANGER;
+        if (triggerCount >= borderline) return RiskLevel.BORDERLINE;
+        return RiskLevel.NONE;
+    }
+}
@@ -0,0 +1,27 @@
+package com.medilabo.risk.model;
+
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Row of the materialized risk table: the latest assessment of a patient
+ * and what is needed to tell when it must be recomputed
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskTableEntry {
+
+    private RiskAssessmentDTO assessment;
+
+    private LocalDate nextBirthday; // The age, and so possibly the risk level, changes on that day
+
+    private Instant assessedAt;
+
+    private boolean stale; // Patient data or notes changed since the assessment was computed
+}
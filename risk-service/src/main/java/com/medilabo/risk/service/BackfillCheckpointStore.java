@@ -0,0 +1,74 @@
+package com.medilabo.risk.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.risk.model.BackfillCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * File-based storage of the backfill checkpoint
+ * Writes go to a temporary file that is atomically moved over the previous checkpoint
+ */
+@Component
+@Slf4j
+public class BackfillCheckpointStore {
+
+    private final Path checkpointFile;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor for the checkpoint store
+     *
+     * @param checkpointFile the path of the checkpoint file
+     * @param objectMapper the JSON mapper
+     */
+    public BackfillCheckpointStore(@Value("${risk.backfill.checkpoint-file:data/risk-backfill-checkpoint.json}") Path checkpointFile,
+                                   ObjectMapper objectMapper) {
+        this.checkpointFile = checkpointFile;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Load the last saved checkpoint
+     *
+     * @return the checkpoint, empty if none was saved or it cannot be read
+     */
+    public Optional<BackfillCheckpoint> load() {
+        if (!Files.exists(checkpointFile)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(checkpointFile.toFile(), BackfillCheckpoint.class));
+        } catch (IOException e) {
+            log.error("Unable to read backfill checkpoint {}: {}", checkpointFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Save a checkpoint, replacing the previous one
+     *
+     * @param checkpoint the checkpoint to save
+     * @throws UncheckedIOException if the checkpoint cannot be written
+     */
+    public void save(BackfillCheckpoint checkpoint) {
+        try {
+            Path directory = checkpointFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "risk-backfill", ".tmp");
+            objectMapper.writeValue(temp.toFile(), checkpoint);
+            Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write backfill checkpoint " + checkpointFile, e);
+        }
+    }
+}
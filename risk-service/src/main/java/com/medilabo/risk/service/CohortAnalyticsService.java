@@ -0,0 +1,288 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.CohortBucketDTO;
+import com.medilabo.risk.dto.CohortDistributionDTO;
+import com.medilabo.risk.dto.PatientDTO;
+import com.medilabo.risk.dto.PatientIdPageDTO;
+import com.medilabo.risk.model.DiabetesThresholds;
+import com.medilabo.risk.model.RiskLevel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Population risk analytics over a columnar snapshot of every patient.
+ * The snapshot is rebuilt periodically from patient-service and note-service, in the background
+ * so that the scheduler thread is not held by the crawl; aggregate queries then run in memory
+ * on the fork-join pool, with the current or what-if thresholds, without any downstream call.
+ */
+@Service
+@Slf4j
+public class CohortAnalyticsService {
+
+    static final int MAX_AGE = 150;
+
+    private static final RiskLevel[] LEVELS = RiskLevel.values();
+
+    private final RiskAssessmentService riskAssessmentService;
+
+    private final MicroserviceClientService microserviceClient;
+
+    private final TriggerDictionaryProvider triggerDictionaryProvider;
+
+    private final int pageSize;
+
+    private final int concurrency;
+
+    private final AtomicReference<CohortSnapshot> snapshot = new AtomicReference<>();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * Constructor for the cohort analytics service
+     *
+     * @param riskAssessmentService the service finding the triggers of a patient
+     * @param microserviceClient the client for patient-service
+     * @param triggerDictionaryProvider the provider of the active trigger dictionary
+     * @param pageSize the number of patient IDs fetched per page
+     * @param concurrency the maximum number of patients fetched at the same time
+     */
+    public CohortAnalyticsService(RiskAssessmentService riskAssessmentService,
+                                  MicroserviceClientService microserviceClient,
+                                  TriggerDictionaryProvider triggerDictionaryProvider,
+                                  @Value("${risk.cohort.page-size:500}") int pageSize,
+                                  @Value("${risk.cohort.concurrency:16}") int concurrency) {
+        this.riskAssessmentService = riskAssessmentService;
+        this.microserviceClient = microserviceClient;
+        this.triggerDictionaryProvider = triggerDictionaryProvider;
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Get the current snapshot
+     *
+     * @return the snapshot, empty until the first refresh completed
+     */
+    public Optional<CohortSnapshot> getSnapshot() {
+        return Optional.ofNullable(snapshot.get());
+    }
+
+    /**
+     * Start rebuilding the snapshot in the background, unless the previous rebuild is still running
+     */
+    @Scheduled(initialDelayString = "${risk.cohort.initial-delay:PT10S}",
+            fixedDelayString = "${risk.cohort.refresh-interval:PT1H}")
+    public void scheduleRefresh() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.debug("Previous cohort snapshot rebuild still running, skipping this one");
+            return;
+        }
+        refresh()
+                .doFinally(signal -> rebuilding.set(false))
+                .subscribe();
+    }
+
+    /**
+     * Rebuild the snapshot from the downstream services, then publish it with a single swap.
+     * Patients that cannot be fetched are left out; if the patient IDs cannot be listed,
+     * the previous snapshot is kept.
+     *
+     * @return a mono completing once the snapshot is published or the rebuild failed
+     */
+    public Mono<Void> refresh() {
+        return Mono.defer(() -> {
+            TriggerDictionary dictionary = triggerDictionaryProvider.current();
+            long start = System.nanoTime();
+            return microserviceClient.getPatientIdPages("0", pageSize)
+                    .concatMapIterable(PatientIdPageDTO::getIds, 1)
+                    .flatMap(patientId -> row(patientId, dictionary), concurrency)
+                    .reduceWith(() -> CohortSnapshot.builder(dictionary.getVersion()), (builder, row) -> builder.add(
+                            row.patient().getBirthDate(), "M".equalsIgnoreCase(row.patient().getGender()), row.mask()))
+                    .map(CohortSnapshot.Builder::build)
+                    .doOnNext(built -> {
+                        snapshot.set(built);
+                        log.info("Cohort snapshot rebuilt with {} patients in {} ms",
+                                built.getSize(), (System.nanoTime() - start) / 1_000_000);
+                    })
+                    .onErrorResume(e -> {
+                        log.error("Unable to rebuild cohort snapshot, keeping the previous one: {}", e.getMessage());
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * Count patients per diabetes risk level, by age band and gender
+     *
+     * @param bandWidth the number of years per age band
+     * @param thresholds the thresholds to assess the patients with, the current rules or a what-if change
+     * @return a mono emitting the distribution, or an error if there is no snapshot yet
+     * @throws IllegalArgumentException if the band width is not positive
+     */
+    public Mono<CohortDistributionDTO> distribution(int bandWidth, DiabetesThresholds thresholds) {
+        if (bandWidth < 1) {
+            throw new IllegalArgumentException("Age band width must be at least 1 year");
+        }
+        CohortSnapshot current = snapshot.get();
+        if (current == null) {
+            return Mono.error(new IllegalStateException("Cohort snapshot is not built yet"));
+        }
+        return Mono.fromFuture(() -> CompletableFuture.supplyAsync(
+                () -> distribution(current, LocalDate.now(), bandWidth, thresholds), ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Count patients per diabetes risk level, by age band and gender, splitting the rows across the fork-join pool
+     *
+     * @param snapshot the population snapshot
+     * @param today the date the ages are computed at
+     * @param bandWidth the number of years per age band
+     * @param thresholds the thresholds to assess the patients with
+     * @return the distribution
+     */
+    CohortDistributionDTO distribution(CohortSnapshot snapshot, LocalDate today, int bandWidth,
+                                       DiabetesThresholds thresholds) {
+        // Birth day from which a patient has at least a given age, so that ages are found without dates
+        long[] ageCutoffs = new long[MAX_AGE + 1];
+        for (int age = 0; age <= MAX_AGE; age++) {
+            ageCutoffs[age] = today.minusYears(age).toEpochDay();
+        }
+        int bands = MAX_AGE / bandWidth + 1;
+        long[] counts = new CountTask(snapshot, 0, snapshot.getSize(), ageCutoffs, bandWidth, bands, thresholds).invoke();
+
+        List<CohortBucketDTO> buckets = new ArrayList<>();
+        for (int band = 0; band < bands; band++) {
+            for (int male = 1; male >= 0; male--) {
+                int offset = (band * 2 + male) * LEVELS.length;
+                long patients = 0;
+                Map<RiskLevel, Long> levels = new EnumMap<>(RiskLevel.class);
+                for (RiskLevel level : LEVELS) {
+                    levels.put(level, counts[offset + level.ordinal()]);
+                    patients += counts[offset + level.ordinal()];
+                }
+                if (patients > 0) {
+                    buckets.add(new CohortBucketDTO(band * bandWidth, band * bandWidth + bandWidth - 1,
+                            male == 1 ? "M" : "F", patients, levels));
+                }
+            }
+        }
+        return new CohortDistributionDTO(snapshot.getBuiltAt(), snapshot.getDictionaryVersion(), snapshot.getSize(),
+                bandWidth, thresholds, buckets);
+    }
+
+    /**
+     * Fetch the snapshot row of one patient, skipping it on failure
+     *
+     * @param patientId the patient ID
+     * @param dictionary the dictionary to find triggers with
+     * @return a mono emitting the row, empty if it failed
+     */
+    private Mono<Row> row(String patientId, TriggerDictionary dictionary) {
+        return Mono.zip(microserviceClient.getPatient(patientId).filter(patient -> patient.getBirthDate() != null),
+                        riskAssessmentService.findTriggers(patientId, dictionary))
+                .map(data -> new Row(data.getT1(), data.getT2()))
+                .onErrorResume(e -> {
+                    log.warn("Patient {} left out of the cohort snapshot: {}", patientId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private record Row(PatientDTO patient, long mask) {
+    }
+
+    /**
+     * Counts of a range of rows, indexed by age band, gender and risk level
+     */
+    private static final class CountTask extends RecursiveTask<long[]> {
+
+        private static final int SPLIT_THRESHOLD = 8192;
+
+        private final CohortSnapshot snapshot;
+
+        private final int from;
+
+        private final int to;
+
+        private final long[] ageCutoffs;
+
+        private final int bandWidth;
+
+        private final int bands;
+
+        private final DiabetesThresholds thresholds;
+
+        private CountTask(CohortSnapshot snapshot, int from, int to, long[] ageCutoffs, int bandWidth, int bands,
+                          DiabetesThresholds thresholds) {
+            this.snapshot = snapshot;
+            this.from = from;
+            this.to = to;
+            this.ageCutoffs = ageCutoffs;
+            this.bandWidth = bandWidth;
+            this.bands = bands;
+            this.thresholds = thresholds;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                return countRows();
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(snapshot, from, middle, ageCutoffs, bandWidth, bands, thresholds);
+            left.fork();
+            long[] counts = new CountTask(snapshot, middle, to, ageCutoffs, bandWidth, bands, thresholds).compute();
+            long[] leftCounts = left.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += leftCounts[i];
+            }
+            return counts;
+        }
+
+        private long[] countRows() {
+            long[] counts = new long[bands * 2 * LEVELS.length];
+            for (int row = from; row < to; row++) {
+                int age = age(snapshot.birthEpochDay(row));
+                boolean male = snapshot.isMale(row);
+                RiskLevel level = thresholds.assess(age, male, Long.bitCount(snapshot.triggerMask(row)));
+                counts[((age / bandWidth) * 2 + (male ? 1 : 0)) * LEVELS.length + level.ordinal()]++;
+            }
+            return counts;
+        }
+
+        /**
+         * Find the age of a patient by binary search over the descending age cutoffs
+         */
+        private int age(long birthEpochDay) {
+            int low = 0;
+            int high = MAX_AGE;
+            if (birthEpochDay > ageCutoffs[0]) {
+                return 0;
+            }
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (birthEpochDay <= ageCutoffs[middle]) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.medilabo.risk.service;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Immutable columnar snapshot of the patient population, one row per patient:
+ * the birth date as an epoch day, the gender as one bit and the diabetes trigger mask.
+ * Columns are primitive arrays, about 12 bytes per patient, so that aggregations scan
+ * contiguous memory without touching any object per row.
+ */
+public final class CohortSnapshot {
+
+    private final int[] birthEpochDays;
+
+    private final long[] maleBits;
+
+    private final long[] triggerMasks;
+
+    @Getter
+    private final int size;
+
+    @Getter
+    private final int dictionaryVersion;
+
+    @Getter
+    private final Instant builtAt;
+
+    private CohortSnapshot(int[] birthEpochDays, long[] maleBits, long[] triggerMasks, int size,
+                           int dictionaryVersion, Instant builtAt) {
+        this.birthEpochDays = birthEpochDays;
+        this.maleBits = maleBits;
+        this.triggerMasks = triggerMasks;
+        this.size = size;
+        this.dictionaryVersion = dictionaryVersion;
+        this.builtAt = builtAt;
+    }
+
+    /**
+     * Start a snapshot
+     *
+     * @param dictionaryVersion the version of the dictionary the trigger masks are computed with
+     * @return an empty builder
+     */
+    public static Builder builder(int dictionaryVersion) {
+        return new Builder(dictionaryVersion);
+    }
+
+    /**
+     * Get the birth date of a patient
+     *
+     * @param row the row index
+     * @return the birth date as a count of days since 1970-01-01
+     */
+    public int birthEpochDay(int row) {
+        return birthEpochDays[row];
+    }
+
+    /**
+     * Tell whether a patient is male
+     *
+     * @param row the row index
+     * @return true for a male patient
+     */
+    public boolean isMale(int row) {
+        return (maleBits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Get the diabetes triggers found in a patient's notes
+     *
+     * @param row the row index
+     * @return the trigger mask
+     */
+    public long triggerMask(int row) {
+        return triggerMasks[row];
+    }
+
+    /**
+     * Growable columns, appended to as patients are fetched
+     */
+    public static final class Builder {
+
+        private final int dictionaryVersion;
+
+        private int[] birthEpochDays = new int[1024];
+
+        private long[] maleBits = new long[16];
+
+        private long[] triggerMasks = new long[1024];
+
+        private int size;
+
+        private Builder(int dictionaryVersion) {
+            this.dictionaryVersion = dictionaryVersion;
+        }
+
+        /**
+         * Append a patient
+         *
+         * @param birthDate the birth date
+         * @param male whether the patient is male
+         * @param triggerMask the diabetes triggers found in the patient's notes
+         * @return this builder
+         */
+        public Builder add(LocalDate birthDate, boolean male, long triggerMask) {
+            if (size == birthEpochDays.length) {
+                birthEpochDays = Arrays.copyOf(birthEpochDays, size * 2);
+                triggerMasks = Arrays.copyOf(triggerMasks, size * 2);
+                maleBits = Arrays.copyOf(maleBits, size * 2 / 64);
+            }
+            birthEpochDays[size] = Math.toIntExact(birthDate.toEpochDay());
+            if (male) {
+                maleBits[size >>> 6] |= 1L << size;
+            }
+            triggerMasks[size] = triggerMask;
+            size++;
+            return this;
+        }
+
+        /**
+         * Freeze the columns, trimmed to the number of patients
+         *
+         * @return the snapshot
+         */
+        public CohortSnapshot build() {
+            return new CohortSnapshot(Arrays.copyOf(birthEpochDays, size), Arrays.copyOf(maleBits, (size + 63) >>> 6),
+                    Arrays.copyOf(triggerMasks, size), size, dictionaryVersion, Instant.now());
+        }
+    }
+}
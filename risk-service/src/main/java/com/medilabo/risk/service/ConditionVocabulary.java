@@ -0,0 +1,70 @@
+package com.medilabo.risk.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable union of the trigger vocabularies of several conditions, compiled into a single matcher.
+ * A term shared by several conditions is matched once; each condition keeps a mask of its own terms
+ * over the bits of the combined matcher.
+ */
+@Getter
+public final class ConditionVocabulary {
+
+    private final List<RiskCondition> conditions;
+
+    private final List<List<String>> triggers;
+
+    private final TriggerMatcher matcher;
+
+    private final long[] conditionMasks;
+
+    private ConditionVocabulary(List<RiskCondition> conditions, List<List<String>> triggers,
+                                TriggerMatcher matcher, long[] conditionMasks) {
+        this.conditions = conditions;
+        this.triggers = triggers;
+        this.matcher = matcher;
+        this.conditionMasks = conditionMasks;
+    }
+
+    /**
+     * Compile the vocabularies of the given conditions
+     *
+     * @param conditions the conditions
+     * @param triggers the trigger terms of each condition, in condition order
+     * @return the compiled vocabulary
+     * @throws IllegalArgumentException if the conditions have more distinct terms than a matcher supports
+     */
+    public static ConditionVocabulary compile(List<RiskCondition> conditions, List<List<String>> triggers) {
+        Map<String, Integer> bits = new LinkedHashMap<>();
+        long[] conditionMasks = new long[conditions.size()];
+        for (int i = 0; i < conditions.size(); i++) {
+            for (String term : triggers.get(i)) {
+                int bit = bits.computeIfAbsent(term.toLowerCase(Locale.ROOT), folded -> bits.size());
+                if (bit >= TriggerMatcher.MAX_TRIGGERS) {
+                    throw new IllegalArgumentException("Risk conditions have more than " + TriggerMatcher.MAX_TRIGGERS
+                            + " distinct triggers");
+                }
+                conditionMasks[i] |= 1L << bit;
+            }
+        }
+        TriggerMatcher matcher = TriggerMatcher.compile(new ArrayList<>(bits.keySet()));
+        return new ConditionVocabulary(List.copyOf(conditions), List.copyOf(triggers), matcher, conditionMasks);
+    }
+
+    /**
+     * Count the distinct triggers of a condition among the triggers found
+     *
+     * @param index the index of the condition
+     * @param found the mask of found triggers, over the combined matcher
+     * @return the number of triggers of this condition found
+     */
+    public int triggerCount(int index, long found) {
+        return Long.bitCount(found & conditionMasks[index]);
+    }
+}
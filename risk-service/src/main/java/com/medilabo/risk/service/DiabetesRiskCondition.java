@@ -0,0 +1,45 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.model.DiabetesThresholds;
+import com.medilabo.risk.model.RiskLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Diabetes screening, using the active trigger dictionary and the Sprint 3 thresholds
+ */
+@Component
+@RequiredArgsConstructor
+public class DiabetesRiskCondition implements RiskCondition {
+
+    public static final String NAME = "diabetes";
+
+    private final TriggerDictionaryProvider triggerDictionaryProvider;
+
+    private final DiabetesThresholds thresholds = new DiabetesThresholds();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<String> getTriggers() {
+        return triggerDictionaryProvider.current().getTerms();
+    }
+
+    /**
+     * Determine risk level according to Sprint 3 algorithm
+     *
+     * @param age the patient age
+     * @param gender the patient gender (M or F)
+     * @param triggerCount the number of triggers found
+     * @return the risk level
+     */
+    @Override
+    public RiskLevel assess(int age, String gender, int triggerCount) {
+        return thresholds.assess(age, "M".equalsIgnoreCase(gender), triggerCount);
+    }
+}
@@ -1,80 +1,248 @@
 package com.medilabo.risk.service;
 
-import com.medilabo.risk.dto.NoteDTO;
+import com.medilabo.risk.config.DownstreamProperties;
+import com.medilabo.risk.dto.NoteContentDTO;
+import com.medilabo.risk.dto.NoteHistoryDTO;
+import com.medilabo.risk.dto.PatientIdPageDTO;
 import com.medilabo.risk.dto.PatientDTO;
+import com.medilabo.risk.dto.TriggerMaskDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
+import java.time.Duration;
+import java.util.function.Function;
 
 /**
  * Service to communicate with other microservices
+ * Concurrent lookups for the same patient share a single downstream call,
+ * and single-valued lookups can be hedged when the downstream is slow to answer.
+ * A lookup only joins a call started after the patient's last cache eviction, so data
+ * read before a change is never shared with a caller that already saw the change.
+ * Every call is bounded by the deadline of its downstream, including streamed responses,
+ * since the response timeout of the HTTP client only bounds the silence between two reads.
  */
 @Service
 @Slf4j
 public class MicroserviceClientService {
 
-    private final WebClient webClient;
+    private final WebClient patientWebClient;
 
-    @Value("${patient.service.url}")
-    private String patientServiceUrl;
+    private final WebClient noteWebClient;
 
-    @Value("${note.service.url}")
-    private String noteServiceUrl;
+    private final SingleFlight<String> patientCalls;
+
+    private final SingleFlight<String> noteCalls;
+
+    private final SingleFlight<String> triggerMaskCalls;
+
+    private final RequestHedger patientHedger;
+
+    private final RequestHedger triggerMaskHedger;
+
+    private final RiskAssessmentCache riskAssessmentCache;
+
+    private final Duration patientDeadline;
+
+    private final Duration noteDeadline;
 
     /**
-     * Constructor that initializes the WebClient
+     * Constructor for the client
      *
-     * @param webClientBuilder the WebClient builder
+     * @param patientWebClient the WebClient bound to patient-service
+     * @param noteWebClient the WebClient bound to note-service
+     * @param downstreamProperties the downstream settings, including deadlines and hedging
+     * @param riskAssessmentCache the cache whose per-patient generations scope the shared calls
+     * @param meterRegistry the registry for the coalescing and hedging metrics
      */
-    public MicroserviceClientService(WebClient.Builder webClientBuilder) {
-        this.webClient = webClientBuilder.build();
+    public MicroserviceClientService(@Qualifier("patientWebClient") WebClient patientWebClient,
+                                     @Qualifier("noteWebClient") WebClient noteWebClient,
+                                     DownstreamProperties downstreamProperties,
+                                     RiskAssessmentCache riskAssessmentCache,
+                                     MeterRegistry meterRegistry) {
+        this.patientWebClient = patientWebClient;
+        this.noteWebClient = noteWebClient;
+        this.patientCalls = new SingleFlight<>("patient", meterRegistry);
+        this.noteCalls = new SingleFlight<>("notes", meterRegistry);
+        this.triggerMaskCalls = new SingleFlight<>("trigger-mask", meterRegistry);
+        this.patientHedger = new RequestHedger("patient", downstreamProperties.getHedging(), meterRegistry);
+        this.triggerMaskHedger = new RequestHedger("trigger-mask", downstreamProperties.getHedging(), meterRegistry);
+        this.riskAssessmentCache = riskAssessmentCache;
+        this.patientDeadline = downstreamProperties.getPatient().getDeadline();
+        this.noteDeadline = downstreamProperties.getNote().getDeadline();
     }
 
     /**
      * Retrieve patient information
      *
      * @param patientId the patient ID
-     * @return the patient data
-     * @throws RuntimeException if patient cannot be fetched
+     * @return a mono emitting the patient data, or an error if patient cannot be fetched
      */
-    public PatientDTO getPatient(String patientId) {
-        log.info("Fetching patient with ID: {}", patientId);
-        try {
-            return webClient.get()
-                    .uri(patientServiceUrl + "/api/patients/" + patientId)
-                    .retrieve()
-                    .bodyToMono(PatientDTO.class)
-                    .block();
-        } catch (Exception e) {
-            log.error("Error fetching patient {}: {}", patientId, e.getMessage());
-            throw new RuntimeException("Unable to fetch patient data for ID: " + patientId, e);
-        }
+    public Mono<PatientDTO> getPatient(String patientId) {
+        return Mono.defer(() -> patientCalls.mono(flightKey(patientId), () -> patientHedger.mono(() -> patientWebClient.get()
+                        .uri("/api/patients/{id}", patientId)
+                        .retrieve()
+                        .bodyToMono(PatientDTO.class)
+                        .timeout(patientDeadline))
+                .doOnSubscribe(subscription -> log.info("Fetching patient with ID: {}", patientId))
+                .onErrorMap(e -> {
+                    log.error("Error fetching patient {}: {}", patientId, e.getMessage());
+                    return new RuntimeException("Unable to fetch patient data for ID: " + patientId, e);
+                })));
     }
 
     /**
-     * Retrieve all notes for a patient
+     * Retrieve the content of all notes for a patient, decoded one by one as note-service streams them.
+     * Cancelling the flux closes the response, so the remaining notes are neither sent nor decoded.
      *
      * @param patientId the patient ID
-     * @return list of patient notes, empty list if none found
+     * @return a flux of note contents, empty if none found
      */
-    public List<NoteDTO> getPatientNotes(String patientId) {
-        log.info("Fetching notes for patient ID: {}", patientId);
-        try {
-            return webClient.get()
-                    .uri(noteServiceUrl + "/api/notes/patient/" + patientId)
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<List<NoteDTO>>() {})
-                    .block();
-        } catch (Exception e) {
-            log.error("Error fetching notes for patient {}: {}", patientId, e.getMessage());
-            // Return empty list if no notes found
-            return List.of();
-        }
+    public Flux<String> getPatientNoteContents(String patientId) {
+        return Flux.defer(() -> noteCalls.flux(flightKey(patientId), () -> noteWebClient.get()
+                .uri("/api/notes/patient/{id}/contents", patientId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(NoteContentDTO.class)
+                .transform(withDeadline(noteDeadline))
+                .map(NoteContentDTO::getContent)
+                .doOnSubscribe(subscription -> log.info("Fetching note contents for patient ID: {}", patientId))
+                .doOnCancel(() -> log.debug("Cancelled note contents fetch for patient ID: {}", patientId))
+                .onErrorResume(e -> {
+                    log.error("Error fetching notes for patient {}: {}", patientId, e.getMessage());
+                    // Return no notes if none found
+                    return Flux.empty();
+                })));
+    }
+
+    /**
+     * Retrieve the raw NDJSON stream of a patient's note contents, for callers that scan the bytes themselves.
+     * Lookups are not coalesced: every subscriber receives its own buffers and must release them,
+     * so callers share the scan of the buffers instead.
+     *
+     * @param patientId the patient ID
+     * @return a flux of response buffers, empty if the notes cannot be fetched
+     */
+    public Flux<DataBuffer> getPatientNoteContentBuffers(String patientId) {
+        return noteWebClient.get()
+                .uri("/api/notes/patient/{id}/contents", patientId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .transform(withDeadline(noteDeadline))
+                .doOnSubscribe(subscription -> log.info("Fetching note content buffers for patient ID: {}", patientId))
+                .doOnCancel(() -> log.debug("Cancelled note content buffers fetch for patient ID: {}", patientId))
+                .onErrorResume(e -> {
+                    log.error("Error fetching notes for patient {}: {}", patientId, e.getMessage());
+                    // Return no notes if none found
+                    return Flux.empty();
+                });
+    }
+
+    /**
+     * Retrieve the dated notes of a patient, oldest first, decoded one by one as note-service streams them
+     *
+     * @param patientId the patient ID
+     * @return a flux of notes ordered by creation date, empty if none found,
+     * or an IllegalStateException if the notes cannot be fetched
+     */
+    public Flux<NoteHistoryDTO> getPatientNoteHistory(String patientId) {
+        return noteWebClient.get()
+                .uri("/api/notes/patient/{id}/history", patientId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(NoteHistoryDTO.class)
+                .transform(withDeadline(noteDeadline))
+                .doOnSubscribe(subscription -> log.info("Fetching note history for patient ID: {}", patientId))
+                .onErrorMap(e -> {
+                    log.error("Error fetching note history for patient {}: {}", patientId, e.getMessage());
+                    return new IllegalStateException("Unable to fetch note history for patient ID: " + patientId, e);
+                });
     }
-}
 
+    /**
+     * Retrieve the combined trigger mask that note-service stores for a patient's notes
+     *
+     * @param patientId the patient ID
+     * @return a mono emitting the trigger mask, empty if it cannot be fetched
+     */
+    public Mono<TriggerMaskDTO> getPatientTriggerMask(String patientId) {
+        return Mono.defer(() -> triggerMaskCalls.mono(flightKey(patientId), () -> triggerMaskHedger.mono(() -> noteWebClient.get()
+                        .uri("/api/notes/patient/{id}/trigger-mask", patientId)
+                        .retrieve()
+                        .bodyToMono(TriggerMaskDTO.class)
+                        .timeout(noteDeadline))
+                .doOnSubscribe(subscription -> log.info("Fetching trigger mask for patient ID: {}", patientId))
+                .onErrorResume(e -> {
+                    log.warn("Error fetching trigger mask for patient {}: {}", patientId, e.getMessage());
+                    // The caller falls back to scanning the notes
+                    return Mono.empty();
+                })));
+    }
+
+    /**
+     * Retrieve one page of patient IDs in ascending order
+     *
+     * @param afterId the last ID of the previous page, exclusive
+     * @param limit the maximum number of IDs to return
+     * @return a mono emitting the page of IDs and the total patient count
+     */
+    public Mono<PatientIdPageDTO> getPatientIds(String afterId, int limit) {
+        return patientWebClient.get()
+                .uri("/api/patients/ids?after={after}&limit={limit}", afterId, limit)
+                .retrieve()
+                .bodyToMono(PatientIdPageDTO.class)
+                .timeout(patientDeadline)
+                .doOnSubscribe(subscription -> log.debug("Fetching {} patient IDs after {}", limit, afterId));
+    }
+
+    /**
+     * Key of a shared call: the patient and the cache generation when the lookup is subscribed.
+     * A call in flight is keyed by the generation it started in, so it is only shared with
+     * lookups that did not see a later eviction.
+     *
+     * @param patientId the patient ID
+     * @return the call key
+     */
+    private String flightKey(String patientId) {
+        return patientId + "@" + riskAssessmentCache.generation(patientId);
+    }
+
+    /**
+     * Fail a streamed response with a TimeoutException once a deadline has passed since its subscription.
+     * Unlike {@code Flux.timeout(Duration)}, which restarts for every element, the deadline is shared by
+     * all the elements of the stream.
+     *
+     * @param deadline the longest time the whole stream may take
+     * @param <T> the element type
+     * @return the operator to apply with {@code transform}
+     */
+    static <T> Function<Flux<T>, Flux<T>> withDeadline(Duration deadline) {
+        return flux -> Flux.defer(() -> {
+            Mono<Long> expiry = Mono.delay(deadline).cache();
+            return flux.timeout(expiry, element -> expiry);
+        });
+    }
+
+    /**
+     * Stream the pages of patient IDs after a cursor, in ascending order.
+     * The next page is only fetched once the previous one has been consumed, so memory use
+     * does not grow with the size of the population.
+     *
+     * @param afterId the last ID already processed, exclusive
+     * @param pageSize the number of IDs per page
+     * @return a flux of pages, the last one holding fewer than pageSize IDs
+     */
+    public Flux<PatientIdPageDTO> getPatientIdPages(String afterId, int pageSize) {
+        return getPatientIds(afterId, pageSize)
+                .expand(page -> page.getIds().size() < pageSize
+                        ? Mono.empty()
+                        : getPatientIds(page.getIds().get(page.getIds().size() - 1), pageSize));
+    }
+}
@@ -0,0 +1,115 @@
+package com.medilabo.risk.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Resumable trigger scanner over the raw UTF-8 bytes of the NDJSON note contents stream.
+ * Only the characters of JSON string values are fed to the matcher, folding ASCII case,
+ * so no object is created per note. A buffer may end anywhere, including inside an
+ * escape sequence, and scanning resumes with the next buffer.
+ * An instance holds the state of a single stream and is not thread-safe.
+ */
+public final class NoteContentByteScanner {
+
+    private final TriggerMatcher matcher;
+
+    private boolean inString;
+
+    private boolean inValue;
+
+    private boolean expectValue;
+
+    private boolean escaped;
+
+    private int hexDigitsToSkip;
+
+    private int state;
+
+    private long found;
+
+    /**
+     * Constructor for the scanner
+     *
+     * @param matcher the matcher to run, which must only contain ASCII triggers
+     * @throws IllegalArgumentException if the matcher has non-ASCII triggers
+     */
+    public NoteContentByteScanner(TriggerMatcher matcher) {
+        if (!matcher.isAscii()) {
+            throw new IllegalArgumentException("Byte scanning requires ASCII triggers");
+        }
+        this.matcher = matcher;
+    }
+
+    /**
+     * Scan the readable bytes of a buffer without consuming or releasing it
+     *
+     * @param buffer the next part of the stream
+     * @return the mask of the triggers found since the start of the stream
+     */
+    public long scan(DataBuffer buffer) {
+        // Read through ByteBuffer views: they share the buffer's memory and, unlike
+        // DataBuffer.getByte, do not box the index for argument checks on every byte
+        try (DataBuffer.ByteBufferIterator views = buffer.readableByteBuffers()) {
+            while (views.hasNext() && !matcher.isComplete(found)) {
+                ByteBuffer view = views.next();
+                for (int i = view.position(), end = view.limit(); i < end && !matcher.isComplete(found); i++) {
+                    accept(view.get(i));
+                }
+            }
+        }
+        return found;
+    }
+
+    private void accept(byte b) {
+        if (!inString) {
+            if (b == '"') {
+                inString = true;
+                inValue = expectValue;
+            } else if (b == ':') {
+                expectValue = true;
+            } else if (b == ',' || b == '{' || b == '\n') {
+                expectValue = false;
+            }
+            return;
+        }
+        if (hexDigitsToSkip > 0) {
+            // A unicode escape stands for a character that is not an ASCII letter in Jackson's output
+            hexDigitsToSkip--;
+            return;
+        }
+        if (escaped) {
+            escaped = false;
+            if (b == 'u') {
+                hexDigitsToSkip = 4;
+                feed((byte) 0);
+            } else if (b == '"' || b == '\\' || b == '/') {
+                feed(b);
+            } else {
+                // \n, \t and the other control escapes separate words
+                feed((byte) 0);
+            }
+            return;
+        }
+        if (b == '\\') {
+            escaped = true;
+        } else if (b == '"') {
+            // Each note is matched on its own, as when it is decoded
+            inString = false;
+            inValue = false;
+            expectValue = false;
+            state = 0;
+        } else {
+            feed(b);
+        }
+    }
+
+    private void feed(byte b) {
+        if (!inValue) {
+            return;
+        }
+        state = matcher.next(state, b);
+        found |= matcher.outputOf(state);
+    }
+}
@@ -0,0 +1,175 @@
+package com.medilabo.risk.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Size-bounded in-memory cache of risk assessments keyed by patient ID.
+ * Entries expire after the configured TTL, or at the patient's next birthday if sooner,
+ * since the age drives the risk rules (the 30-year threshold) and the reported result.
+ * Each eviction bumps the invalidation generation of the patient's stripe, so an assessment computed
+ * before the eviction is not cached afterwards, without holding back the assessments of other patients.
+ */
+@Component
+@Slf4j
+public class RiskAssessmentCache {
+
+    private final Cache<String, CachedAssessment> cache;
+
+    private final Duration ttl;
+
+    private final boolean enabled;
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Constructor for the risk assessment cache
+     *
+     * @param maxSize the maximum number of cached assessments
+     * @param ttl the maximum time an assessment is served from the cache
+     * @param enabled whether assessments are cached at all
+     * @param meterRegistry the registry for cache metrics
+     */
+    public RiskAssessmentCache(@Value("${risk.cache.max-size:10000}") long maxSize,
+                               @Value("${risk.cache.ttl:10m}") Duration ttl,
+                               @Value("${risk.cache.enabled:true}") boolean enabled,
+                               MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedAssessment>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedAssessment value, long currentTime) {
+                        return value.lifetime().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedAssessment value, long currentTime, long currentDuration) {
+                        return value.lifetime().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedAssessment value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "risk.assessments");
+    }
+
+    /**
+     * Get a cached assessment
+     *
+     * @param patientId the patient ID
+     * @return the cached assessment, empty if absent or expired
+     */
+    public Optional<RiskAssessmentDTO> get(String patientId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CachedAssessment entry = cache.getIfPresent(patientId);
+        return entry == null ? Optional.empty() : Optional.of(entry.assessment());
+    }
+
+    /**
+     * Get the current invalidation generation of a patient.
+     * Capture it before fetching downstream data and pass it to {@link #put} so that a result
+     * computed from data older than an eviction is not cached.
+     *
+     * @param patientId the patient ID
+     * @return the generation
+     */
+    public long generation(String patientId) {
+        return generations.get(stripe(patientId));
+    }
+
+    /**
+     * Cache an assessment until the TTL elapses or the patient's next birthday.
+     * The generation is checked under the entry's lock, so an eviction either happens
+     * before the check and the assessment is dropped, or after the write and removes it.
+     *
+     * @param assessment the assessment to cache
+     * @param birthDate the patient's birth date
+     * @param generation the generation captured before the assessment was computed
+     */
+    public void put(RiskAssessmentDTO assessment, LocalDate birthDate, long generation) {
+        if (!enabled) {
+            return;
+        }
+        Duration lifetime = lifetime(birthDate, ZonedDateTime.now());
+        if (lifetime.isZero()) {
+            return;
+        }
+        cache.asMap().compute(assessment.getPatientId(), (patientId, current) ->
+                generation == generation(patientId) ? new CachedAssessment(assessment, lifetime) : current);
+    }
+
+    /**
+     * Evict the cached assessment of a patient
+     *
+     * @param patientId the patient ID
+     */
+    public void evict(String patientId) {
+        generations.incrementAndGet(stripe(patientId));
+        cache.invalidate(patientId);
+        log.debug("Evicted cached risk assessment for patient {}", patientId);
+    }
+
+    /**
+     * Evict all cached assessments
+     */
+    public void evictAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+        log.info("Evicted all cached risk assessments");
+    }
+
+    /**
+     * Compute how long an assessment stays valid: the TTL, capped by the start of the
+     * day the patient's age next changes
+     *
+     * @param birthDate the patient's birth date
+     * @param now the current time
+     * @return the lifetime of the cache entry
+     */
+    Duration lifetime(LocalDate birthDate, ZonedDateTime now) {
+        LocalDate today = now.toLocalDate();
+        int age = Period.between(birthDate, today).getYears();
+        ZonedDateTime nextBirthday = birthDate.plusYears(age + 1L).atStartOfDay(now.getZone());
+        Duration untilBirthday = Duration.between(now, nextBirthday);
+        if (untilBirthday.isNegative()) {
+            return Duration.ZERO;
+        }
+        return untilBirthday.compareTo(ttl) < 0 ? untilBirthday : ttl;
+    }
+
+    private static int stripe(String patientId) {
+        return Math.floorMod(patientId.hashCode(), GENERATION_STRIPES);
+    }
+
+    /**
+     * Cache entry with its own lifetime
+     */
+    private record CachedAssessment(RiskAssessmentDTO assessment, Duration lifetime) {
+    }
+}
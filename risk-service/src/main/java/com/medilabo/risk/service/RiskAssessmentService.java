@@ -1,69 +1,221 @@
 package com.medilabo.risk.service;
 
-import com.medilabo.risk.dto.NoteDTO;
+import com.medilabo.risk.dto.ConditionAssessmentDTO;
+import com.medilabo.risk.dto.MultiConditionAssessmentDTO;
 import com.medilabo.risk.dto.PatientDTO;
 import com.medilabo.risk.dto.RiskAssessmentDTO;
 import com.medilabo.risk.model.RiskLevel;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
 import java.time.LocalDate;
 import java.time.Period;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
+import java.util.function.LongPredicate;
 
 /**
- * Service to assess diabetes risk for a patient
+ * Service to assess diabetes risk for a patient, and the risk of every registered condition in a single pass over the notes
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RiskAssessmentService {
 
     private final MicroserviceClientService microserviceClient;
 
-    // List of diabetes triggers (medical terms)
-    private static final List<String> DIABETES_TRIGGERS = Arrays.asList(
-            "hemoglobin a1c",
-            "microalbumin",
-            "height",
-            "weight",
-            "smoker",
-            "abnormal",
-            "cholesterol",
-            "dizziness",
-            "relapse",
-            "reaction",
-            "antibodies"
-    );
+    private final RiskAssessmentCache riskAssessmentCache;
+
+    private final TriggerDictionaryProvider triggerDictionaryProvider;
+
+    private final DiabetesRiskCondition diabetesCondition;
+
+    private final RiskConditionRegistry riskConditionRegistry;
+
+    private final RiskTableStore riskTable;
+
+    private final boolean byteScanning;
+
+    private final SingleFlight<NoteScanKey> noteScans;
+
+    /**
+     * Constructor for the risk assessment service
+     *
+     * @param microserviceClient the client for patient-service and note-service
+     * @param riskAssessmentCache the cache of assessments
+     * @param triggerDictionaryProvider the provider of the active trigger dictionary
+     * @param diabetesCondition the diabetes thresholds
+     * @param riskConditionRegistry the conditions of a multi-condition assessment
+     * @param riskTable the materialized table of the latest assessments
+     * @param byteScanning whether notes are matched on the raw response bytes instead of decoded strings,
+     * when the dictionary only contains ASCII triggers
+     * @param meterRegistry the registry for the coalescing metrics of the byte scans
+     */
+    public RiskAssessmentService(MicroserviceClientService microserviceClient,
+                                 RiskAssessmentCache riskAssessmentCache,
+                                 TriggerDictionaryProvider triggerDictionaryProvider,
+                                 DiabetesRiskCondition diabetesCondition,
+                                 RiskConditionRegistry riskConditionRegistry,
+                                 RiskTableStore riskTable,
+                                 @Value("${risk.notes.byte-scanning:true}") boolean byteScanning,
+                                 MeterRegistry meterRegistry) {
+        this.microserviceClient = microserviceClient;
+        this.riskAssessmentCache = riskAssessmentCache;
+        this.triggerDictionaryProvider = triggerDictionaryProvider;
+        this.diabetesCondition = diabetesCondition;
+        this.riskConditionRegistry = riskConditionRegistry;
+        this.riskTable = riskTable;
+        this.byteScanning = byteScanning;
+        this.noteScans = new SingleFlight<>("note-scan", meterRegistry);
+    }
 
     /**
-     * Assess diabetes risk for a given patient
+     * Assess diabetes risk for a given patient, serving a cached result when available
      *
      * @param patientId the patient ID
-     * @return the risk assessment result
-     * @throws RuntimeException if patient not found
+     * @return a mono emitting the risk assessment result, or an error if patient not found
+     */
+    public Mono<RiskAssessmentDTO> assessDiabetesRisk(String patientId) {
+        return Mono.defer(() -> riskAssessmentCache.get(patientId)
+                .map(cached -> {
+                    log.debug("Serving cached risk assessment for patient ID: {}", patientId);
+                    return Mono.just(cached);
+                })
+                .orElseGet(() -> refreshDiabetesRisk(patientId)));
+    }
+
+    /**
+     * Assess diabetes risk for a given patient from fresh downstream data and update the cache and the risk table
+     *
+     * @param patientId the patient ID
+     * @return a mono emitting the risk assessment result, or an error if patient not found
      */
-    public RiskAssessmentDTO assessDiabetesRisk(String patientId) {
+    public Mono<RiskAssessmentDTO> refreshDiabetesRisk(String patientId) {
         log.info("Assessing diabetes risk for patient ID: {}", patientId);
+        long cacheGeneration = riskAssessmentCache.generation(patientId);
+        TriggerDictionary dictionary = triggerDictionaryProvider.current();
 
+        // Notes are requested speculatively alongside the patient; zip cancels them if the patient is missing
+        Mono<PatientDTO> patientLookup = lookupPatient(patientId);
+        Mono<LongPredicate> settled = patientLookup.map(patient -> {
+            int saturation = diabetesCondition.saturationCount(calculateAge(patient.getBirthDate()),
+                    patient.getGender(), dictionary.getTerms().size());
+            return found -> Long.bitCount(found) >= saturation;
+        });
+        Mono<TriggerScan> triggerLookup = storedTriggers(patientId, dictionary)
+                .map(found -> new TriggerScan(found, false))
+                .switchIfEmpty(Mono.defer(() -> countTriggers(
+                        scanNotes(patientId, dictionary.getMatcher()), dictionary, settled)));
 
-        PatientDTO patient = microserviceClient.getPatient(patientId);
-        if (patient == null) {
-            throw new RuntimeException("Patient not found with ID: " + patientId);
-        }
+        return Mono.zip(patientLookup, triggerLookup)
+                .map(data -> {
+                    RiskAssessmentDTO assessment = buildAssessment(patientId, data.getT1(), data.getT2(), dictionary);
+                    riskAssessmentCache.put(assessment, data.getT1().getBirthDate(), cacheGeneration);
+                    // Data that changed during the assessment leaves the row flagged for the next refresh
+                    riskTable.put(assessment, data.getT1().getBirthDate(),
+                            () -> cacheGeneration != riskAssessmentCache.generation(patientId));
+                    return assessment;
+                });
+    }
 
+    /**
+     * Assess the risk of every registered condition for a given patient.
+     * The notes are scanned once for the triggers of all conditions, and the scan stops
+     * as soon as no condition can reach a higher risk level.
+     *
+     * @param patientId the patient ID
+     * @return a mono emitting one assessment per condition, or an error if patient not found
+     */
+    public Mono<MultiConditionAssessmentDTO> assessConditions(String patientId) {
+        log.info("Assessing all conditions for patient ID: {}", patientId);
+        ConditionVocabulary vocabulary = riskConditionRegistry.vocabulary();
+        List<RiskCondition> conditions = vocabulary.getConditions();
 
-        List<NoteDTO> notes = microserviceClient.getPatientNotes(patientId);
+        Mono<PatientDTO> patientLookup = lookupPatient(patientId);
+        Mono<LongPredicate> settled = patientLookup.map(patient -> {
+            int age = calculateAge(patient.getBirthDate());
+            int[] saturation = new int[conditions.size()];
+            for (int i = 0; i < saturation.length; i++) {
+                saturation[i] = conditions.get(i).saturationCount(age, patient.getGender(),
+                        vocabulary.getTriggers().get(i).size());
+            }
+            return found -> {
+                for (int i = 0; i < saturation.length; i++) {
+                    if (vocabulary.triggerCount(i, found) < saturation[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        });
+        Mono<TriggerScan> triggerLookup = Mono.defer(() -> scanUntilSettled(
+                scanNotes(patientId, vocabulary.getMatcher()), vocabulary.getMatcher(), settled));
 
-        int age = calculateAge(patient.getBirthDate());
+        return Mono.zip(patientLookup, triggerLookup)
+                .map(data -> {
+                    PatientDTO patient = data.getT1();
+                    int age = calculateAge(patient.getBirthDate());
+                    List<ConditionAssessmentDTO> results = new ArrayList<>(conditions.size());
+                    for (int i = 0; i < conditions.size(); i++) {
+                        int triggerCount = vocabulary.triggerCount(i, data.getT2().found());
+                        results.add(new ConditionAssessmentDTO(conditions.get(i).getName(),
+                                conditions.get(i).assess(age, patient.getGender(), triggerCount), triggerCount,
+                                data.getT2().partial()));
+                    }
+                    log.info("Condition assessment completed for patient {}: {}", patientId, results);
+                    return new MultiConditionAssessmentDTO(patientId,
+                            patient.getFirstName() + " " + patient.getLastName(), age, patient.getGender(), results);
+                });
+    }
 
-        int triggerCount = countTriggers(notes);
+    /**
+     * Find every diabetes trigger present in a patient's notes, from the stored masks when they
+     * match the dictionary, otherwise by scanning the notes until all triggers are found
+     *
+     * @param patientId the patient ID
+     * @param dictionary the dictionary to match
+     * @return a mono emitting the mask of triggers found
+     */
+    public Mono<Long> findTriggers(String patientId, TriggerDictionary dictionary) {
+        TriggerMatcher matcher = dictionary.getMatcher();
+        return storedTriggers(patientId, dictionary)
+                .switchIfEmpty(Mono.defer(() -> scanNotes(patientId, matcher)
+                        .takeUntil(matcher::isComplete)
+                        .last(0L)));
+    }
 
-        RiskLevel riskLevel = determineRiskLevel(age, patient.getGender(), triggerCount);
+    /**
+     * Look up a patient once, however many times the result is subscribed to
+     *
+     * @param patientId the patient ID
+     * @return a mono emitting the patient, or an error if patient not found
+     */
+    private Mono<PatientDTO> lookupPatient(String patientId) {
+        return microserviceClient.getPatient(patientId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Patient not found with ID: " + patientId)))
+                .cache();
+    }
 
+    /**
+     * Build the assessment result once patient data and triggers are known
+     *
+     * @param patientId the patient ID
+     * @param patient the patient data
+     * @param triggers the triggers found
+     * @param dictionary the dictionary the triggers were counted with
+     * @return the risk assessment result
+     */
+    private RiskAssessmentDTO buildAssessment(String patientId, PatientDTO patient, TriggerScan triggers,
+                                              TriggerDictionary dictionary) {
+        int age = calculateAge(patient.getBirthDate());
+        int triggerCount = Long.bitCount(triggers.found());
+
+        RiskLevel riskLevel = diabetesCondition.assess(age, patient.getGender(), triggerCount);
 
         String message = buildRiskMessage(patient, age, riskLevel, triggerCount);
 
@@ -77,7 +229,9 @@ public class RiskAssessmentService {
                 patient.getGender(),
                 riskLevel,
                 triggerCount,
-                message
+                triggers.partial(),
+                message,
+                dictionary.getVersion()
         );
     }
 
@@ -92,69 +246,102 @@ public class RiskAssessmentService {
     }
 
     /**
-     * Count the number of diabetes triggers in notes
+     * Get the diabetes triggers from the masks note-service computed when the notes were written
      *
-     * @param notes the list of medical notes
-     * @return the count of unique triggers found
+     * @param patientId the patient ID
+     * @param dictionary the dictionary the masks must have been computed with
+     * @return a mono emitting the mask of triggers found, empty if the stored masks
+     * are unavailable or were computed with another dictionary version
      */
-    private int countTriggers(List<NoteDTO> notes) {
-        if (notes == null || notes.isEmpty()) {
-            return 0;
-        }
-
-        StringBuilder allNotes = new StringBuilder();
-        for (NoteDTO note : notes) {
-            if (note.getContent() != null) {
-                allNotes.append(note.getContent().toLowerCase(Locale.ENGLISH)).append(" ");
-            }
-        }
-
-        String fullText = allNotes.toString();
-        int count = 0;
-
-        for (String trigger : DIABETES_TRIGGERS) {
-            if (fullText.contains(trigger.toLowerCase())) {
-                count++;
-                log.debug("Trigger found: {}", trigger);
-            }
-        }
-
-        return count;
+    private Mono<Long> storedTriggers(String patientId, TriggerDictionary dictionary) {
+        return microserviceClient.getPatientTriggerMask(patientId)
+                .filter(stored -> {
+                    boolean current = stored.getDictionaryVersion() == dictionary.getVersion();
+                    if (!current) {
+                        log.warn("Trigger mask for patient {} uses dictionary version {} instead of {}, scanning notes",
+                                patientId, stored.getDictionaryVersion(), dictionary.getVersion());
+                    }
+                    return current;
+                })
+                .map(stored -> {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Triggers found: {}", dictionary.getMatcher().triggersIn(stored.getMask()));
+                    }
+                    return stored.getMask();
+                });
     }
 
     /**
-     * Determine risk level according to Sprint 3 algorithm
+     * Scan a patient's notes as they arrive, on the raw response bytes when possible.
+     * The raw bytes cannot be shared between callers, since each one releases the buffers it reads,
+     * so concurrent byte scans of the same patient with the same matcher share the scan itself:
+     * one note-service call, scanned once, whose masks reach every caller.
      *
-     * @param age the patient age
-     * @param gender the patient gender (M or F)
-     * @param triggerCount the number of triggers found
-     * @return the risk level
+     * @param patientId the patient ID
+     * @param matcher the matcher to run
+     * @return a flux of the triggers found so far, starting with none
      */
-    private RiskLevel determineRiskLevel(int age, String gender, int triggerCount) {
-        boolean isMale = "M".equalsIgnoreCase(gender);
-        boolean isYoung = age < 30;
-
-        if (isYoung) {
-            if (isMale) {
-                if (triggerCount >= 5) return RiskLevel.EARLY_ONSET;
-                if (triggerCount >= 3) return RiskLevel.IN_DANGER;
-            } else {
-                if (triggerCount >= 7) return RiskLevel.EARLY_ONSET;
-                if (triggerCount >= 4) return RiskLevel.IN_DANGER;
-            }
-            return RiskLevel.NONE;
+    private Flux<Long> scanNotes(String patientId, TriggerMatcher matcher) {
+        if (byteScanning && matcher.isAscii()) {
+            return Flux.defer(() -> noteScans.flux(
+                    new NoteScanKey(patientId, riskAssessmentCache.generation(patientId), matcher), () -> {
+                        NoteContentByteScanner scanner = new NoteContentByteScanner(matcher);
+                        return microserviceClient.getPatientNoteContentBuffers(patientId)
+                                .map(buffer -> {
+                                    try {
+                                        return scanner.scan(buffer);
+                                    } finally {
+                                        DataBufferUtils.release(buffer);
+                                    }
+                                })
+                                .startWith(0L);
+                    }));
         }
+        return microserviceClient.getPatientNoteContents(patientId)
+                .scan(0L, (found, content) -> matcher.scan(content, found));
+    }
 
-        // Rules for patients 30 years and older
-        if (age >= 30) {
-            if (triggerCount >= 8) return RiskLevel.EARLY_ONSET;
-            if (triggerCount >= 6) return RiskLevel.IN_DANGER;
-            if (triggerCount >= 2) return RiskLevel.BORDERLINE;
-        }
+    /**
+     * Count the number of diabetes triggers in notes as they arrive
+     *
+     * @param masks the triggers found so far, updated as notes arrive
+     * @param dictionary the dictionary to match
+     * @param settled tells, once the patient is known, whether more triggers could still change the risk level
+     * @return a mono emitting the unique triggers found
+     */
+    private Mono<TriggerScan> countTriggers(Flux<Long> masks, TriggerDictionary dictionary,
+                                            Mono<LongPredicate> settled) {
+        TriggerMatcher matcher = dictionary.getMatcher();
+        return scanUntilSettled(masks, matcher, settled)
+                .doOnNext(scan -> {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Triggers found: {}{}", matcher.triggersIn(scan.found()),
+                                scan.partial() ? " (scan stopped early)" : "");
+                    }
+                });
+    }
 
-        return RiskLevel.NONE;
+    /**
+     * Follow the triggers found as notes arrive.
+     * The notes are cancelled as soon as every trigger has been found, or as soon as the
+     * assessment is settled once the patient is known: the scan is then flagged as partial, since
+     * its counts are lower bounds, but more triggers could not change the risk levels.
+     *
+     * @param masks the triggers found so far, updated as notes arrive
+     * @param matcher the matcher the masks come from
+     * @param settled tells, once the patient is known, whether more triggers could still change the result
+     * @return a mono emitting the triggers found
+     */
+    private Mono<TriggerScan> scanUntilSettled(Flux<Long> masks, TriggerMatcher matcher,
+                                               Mono<LongPredicate> settled) {
+        return Flux.combineLatest(settled, masks.takeUntil(matcher::isComplete), Tuples::of)
+                .takeUntil(progress -> progress.getT1().test(progress.getT2()))
+                .map(progress -> new TriggerScan(progress.getT2(),
+                        !matcher.isComplete(progress.getT2()) && progress.getT1().test(progress.getT2())))
+                .last(new TriggerScan(0L, false));
     }
 
+
     /**
      * Build a custom message for the risk assessment
      *
@@ -185,5 +372,24 @@ public class RiskAssessmentService {
                         patientName, age);
         }
     }
-}
 
+    /**
+     * Triggers found in a patient's notes
+     *
+     * @param found the mask of triggers found
+     * @param partial true if the notes were not all read, so more triggers may be present
+     */
+    private record TriggerScan(long found, boolean partial) {
+    }
+
+    /**
+     * Key of a shared byte scan: the patient, the cache generation when the scan is subscribed,
+     * like the note calls of the client, and the matcher, since masks of different matchers differ
+     *
+     * @param patientId the patient ID
+     * @param generation the cache generation of the patient
+     * @param matcher the matcher run over the notes, compared by identity
+     */
+    private record NoteScanKey(String patientId, long generation, TriggerMatcher matcher) {
+    }
+}
@@ -0,0 +1,267 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.BackfillStatusDTO;
+import com.medilabo.risk.dto.PatientIdPageDTO;
+import com.medilabo.risk.dto.RiskBatchResultDTO;
+import com.medilabo.risk.model.BackfillCheckpoint;
+import com.medilabo.risk.model.BackfillState;
+import com.medilabo.risk.model.RiskLevel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background job re-scoring the whole patient population.
+ * Pages through patient IDs in ascending order, scores them with bounded concurrency
+ * and checkpoints the last fully scored ID so an interrupted run can resume.
+ * Every score is stored in the materialized risk table, which is written to its file when the run ends.
+ */
+@Service
+@Slf4j
+public class RiskBackfillService {
+
+    private final RiskAssessmentService riskAssessmentService;
+
+    private final MicroserviceClientService microserviceClient;
+
+    private final BackfillCheckpointStore checkpointStore;
+
+    private final RiskTableStore riskTable;
+
+    private final int pageSize;
+
+    private final int concurrency;
+
+    private final int checkpointInterval;
+
+    private final boolean resumeOnStartup;
+
+    // Last persisted position, only modified while holding the lock
+    private BackfillCheckpoint checkpoint = new BackfillCheckpoint(BackfillState.IDLE, "0", 0, 0, 0, null, null,
+            new EnumMap<>(RiskLevel.class));
+
+    private Disposable subscription;
+
+    // Live progress, ahead of the checkpoint by at most one checkpoint interval
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong processedThisRun = new AtomicLong();
+
+    private final Map<RiskLevel, AtomicLong> riskLevelCounts = new EnumMap<>(RiskLevel.class);
+
+    private volatile long total;
+
+    private volatile long runStartNanos;
+
+    /**
+     * Constructor for the backfill service
+     *
+     * @param riskAssessmentService the risk assessment service
+     * @param microserviceClient the client for patient-service
+     * @param checkpointStore the checkpoint storage
+     * @param riskTable the materialized risk table holding the scores
+     * @param pageSize the number of patient IDs fetched per page
+     * @param concurrency the maximum number of patients scored at the same time
+     * @param checkpointInterval the number of scored patients between two checkpoints
+     * @param resumeOnStartup whether an interrupted run resumes when the service starts
+     */
+    public RiskBackfillService(RiskAssessmentService riskAssessmentService,
+                               MicroserviceClientService microserviceClient,
+                               BackfillCheckpointStore checkpointStore,
+                               RiskTableStore riskTable,
+                               @Value("${risk.backfill.page-size:200}") int pageSize,
+                               @Value("${risk.backfill.concurrency:8}") int concurrency,
+                               @Value("${risk.backfill.checkpoint-interval:100}") int checkpointInterval,
+                               @Value("${risk.backfill.resume-on-startup:true}") boolean resumeOnStartup) {
+        this.riskAssessmentService = riskAssessmentService;
+        this.microserviceClient = microserviceClient;
+        this.checkpointStore = checkpointStore;
+        this.riskTable = riskTable;
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+        this.checkpointInterval = checkpointInterval;
+        this.resumeOnStartup = resumeOnStartup;
+        for (RiskLevel level : RiskLevel.values()) {
+            riskLevelCounts.put(level, new AtomicLong());
+        }
+    }
+
+    /**
+     * Resume a run that was still in progress when the service stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRun() {
+        checkpointStore.load().ifPresent(saved -> {
+            synchronized (this) {
+                checkpoint = saved;
+            }
+            if (resumeOnStartup && saved.getState() == BackfillState.RUNNING) {
+                log.info("Resuming interrupted risk backfill after patient {}", saved.getLastPatientId());
+                start(false);
+            }
+        });
+    }
+
+    /**
+     * Start the backfill, resuming from the last checkpoint unless it completed or a restart is requested
+     *
+     * @param restart true to ignore the checkpoint and start from the first patient
+     * @return the status after starting
+     * @throws IllegalStateException if a run is already in progress
+     */
+    public synchronized BackfillStatusDTO start(boolean restart) {
+        if (subscription != null && !subscription.isDisposed()) {
+            throw new IllegalStateException("Risk backfill is already running");
+        }
+
+        BackfillCheckpoint from = restart ? null : checkpointStore.load()
+                .filter(saved -> saved.getState() != BackfillState.COMPLETED)
+                .orElse(null);
+        if (from == null) {
+            from = BackfillCheckpoint.fresh();
+        } else {
+            from.setState(BackfillState.RUNNING);
+        }
+        checkpoint = from;
+        checkpointStore.save(checkpoint);
+
+        processed.set(from.getProcessed());
+        failed.set(from.getFailed());
+        total = from.getTotal();
+        processedThisRun.set(0);
+        riskLevelCounts.forEach((level, count) -> count.set(checkpoint.getRiskLevelCounts().getOrDefault(level, 0L)));
+        runStartNanos = System.nanoTime();
+        log.info("Starting risk backfill after patient {} ({} already processed)",
+                from.getLastPatientId(), from.getProcessed());
+
+        subscription = microserviceClient.getPatientIdPages(from.getLastPatientId(), pageSize)
+                .doOnNext(page -> total = page.getTotal())
+                .concatMapIterable(PatientIdPageDTO::getIds, 1)
+                .flatMapSequential(this::score, concurrency)
+                .doOnNext(this::record)
+                .buffer(checkpointInterval)
+                .concatMap(chunk -> Mono.fromRunnable(() -> advance(chunk)).subscribeOn(Schedulers.boundedElastic()))
+                .subscribe(null, this::fail, this::complete);
+
+        return getStatus();
+    }
+
+    /**
+     * Cancel the current run, keeping its checkpoint so it can be resumed
+     *
+     * @return the status after cancelling
+     */
+    public synchronized BackfillStatusDTO cancel() {
+        if (subscription != null && !subscription.isDisposed()) {
+            subscription.dispose();
+            finish(BackfillState.CANCELLED);
+            log.info("Risk backfill cancelled after patient {}", checkpoint.getLastPatientId());
+        }
+        return getStatus();
+    }
+
+    /**
+     * Get progress, throughput and estimated time to completion
+     *
+     * @return the current status
+     */
+    public synchronized BackfillStatusDTO getStatus() {
+        double elapsedSeconds = (System.nanoTime() - runStartNanos) / 1e9;
+        double throughput = checkpoint.getState() == BackfillState.RUNNING && elapsedSeconds > 0
+                ? processedThisRun.get() / elapsedSeconds
+                : 0;
+        long remaining = Math.max(0, total - processed.get());
+        Duration eta = throughput > 0 ? Duration.ofSeconds((long) Math.ceil(remaining / throughput)) : null;
+
+        Map<RiskLevel, Long> levels = new EnumMap<>(RiskLevel.class);
+        riskLevelCounts.forEach((level, count) -> levels.put(level, count.get()));
+
+        return new BackfillStatusDTO(
+                checkpoint.getState(),
+                checkpoint.getLastPatientId(),
+                processed.get(),
+                failed.get(),
+                total,
+                throughput,
+                eta,
+                checkpoint.getStartedAt(),
+                checkpoint.getUpdatedAt(),
+                levels
+        );
+    }
+
+    /**
+     * Score one patient, turning any failure into an error entry
+     *
+     * @param patientId the patient ID
+     * @return a mono emitting the scoring outcome
+     */
+    private Mono<RiskBatchResultDTO> score(String patientId) {
+        return Mono.defer(() -> riskAssessmentService.refreshDiabetesRisk(patientId))
+                .map(RiskBatchResultDTO::success)
+                .onErrorResume(e -> {
+                    log.warn("Backfill assessment failed for patient {}: {}", patientId, e.getMessage());
+                    return Mono.just(RiskBatchResultDTO.failure(patientId, e.getMessage()));
+                });
+    }
+
+    private void record(RiskBatchResultDTO result) {
+        processed.incrementAndGet();
+        processedThisRun.incrementAndGet();
+        if (result.getError() != null) {
+            failed.incrementAndGet();
+        } else {
+            riskLevelCounts.get(result.getAssessment().getRiskLevel()).incrementAndGet();
+        }
+    }
+
+    private synchronized void advance(List<RiskBatchResultDTO> chunk) {
+        if (checkpoint.getState() != BackfillState.RUNNING) {
+            return;
+        }
+        long chunkFailures = chunk.stream().filter(result -> result.getError() != null).count();
+        checkpoint.setLastPatientId(chunk.get(chunk.size() - 1).getPatientId());
+        checkpoint.setProcessed(checkpoint.getProcessed() + chunk.size());
+        checkpoint.setFailed(checkpoint.getFailed() + chunkFailures);
+        for (RiskBatchResultDTO result : chunk) {
+            if (result.getError() == null) {
+                checkpoint.getRiskLevelCounts().merge(result.getAssessment().getRiskLevel(), 1L, Long::sum);
+            }
+        }
+        checkpoint.setTotal(total);
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointStore.save(checkpoint);
+    }
+
+    private synchronized void complete() {
+        finish(BackfillState.COMPLETED);
+        log.info("Risk backfill completed: {} patients processed, {} failed", processed.get(), failed.get());
+    }
+
+    private synchronized void fail(Throwable error) {
+        finish(BackfillState.FAILED);
+        log.error("Risk backfill failed after patient {}: {}", checkpoint.getLastPatientId(), error.getMessage());
+    }
+
+    private void finish(BackfillState state) {
+        riskTable.flush();
+        checkpoint.setState(state);
+        checkpoint.setTotal(total);
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointStore.save(checkpoint);
+    }
+}
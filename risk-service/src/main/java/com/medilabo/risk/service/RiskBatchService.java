@@ -0,0 +1,81 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.RiskBatchResultDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service to assess diabetes risk for many patients in one request
+ */
+@Service
+@Slf4j
+public class RiskBatchService {
+
+    private final RiskAssessmentService riskAssessmentService;
+
+    private final int concurrency;
+
+    private final int maxSize;
+
+    /**
+     * Constructor for the batch service
+     *
+     * @param riskAssessmentService the single-patient risk assessment service
+     * @param concurrency the maximum number of patients assessed at the same time
+     * @param maxSize the maximum number of patient IDs in one batch
+     */
+    public RiskBatchService(RiskAssessmentService riskAssessmentService,
+                            @Value("${risk.batch.concurrency:16}") int concurrency,
+                            @Value("${risk.batch.max-size:500}") int maxSize) {
+        this.riskAssessmentService = riskAssessmentService;
+        this.concurrency = concurrency;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Assess diabetes risk for a list of patients.
+     * Results are emitted in input order; a failing patient yields an error entry
+     * instead of failing the whole batch. Duplicate IDs are only assessed once.
+     *
+     * @param patientIds the patient IDs
+     * @return a flux of batch entries, one per input ID
+     * @throws IllegalArgumentException if the batch exceeds the maximum size
+     */
+    public Flux<RiskBatchResultDTO> assessBatch(List<String> patientIds) {
+        if (patientIds.size() > maxSize) {
+            throw new IllegalArgumentException("Batch size " + patientIds.size() + " exceeds maximum of " + maxSize);
+        }
+        log.info("Assessing diabetes risk for batch of {} patients", patientIds.size());
+
+        Map<String, Mono<RiskBatchResultDTO>> assessments = new HashMap<>();
+        for (String patientId : patientIds) {
+            assessments.computeIfAbsent(patientId, this::assessOne);
+        }
+
+        return Flux.fromIterable(patientIds)
+                .flatMapSequential(assessments::get, concurrency);
+    }
+
+    /**
+     * Assess one patient, turning any failure into an error entry
+     *
+     * @param patientId the patient ID
+     * @return a cached mono emitting the batch entry
+     */
+    private Mono<RiskBatchResultDTO> assessOne(String patientId) {
+        return Mono.defer(() -> riskAssessmentService.assessDiabetesRisk(patientId))
+                .map(RiskBatchResultDTO::success)
+                .onErrorResume(e -> {
+                    log.warn("Batch assessment failed for patient {}: {}", patientId, e.getMessage());
+                    return Mono.just(RiskBatchResultDTO.failure(patientId, e.getMessage()));
+                })
+                .cache();
+    }
+}
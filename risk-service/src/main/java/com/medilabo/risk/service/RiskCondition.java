@@ -0,0 +1,54 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.model.RiskLevel;
+
+import java.util.List;
+
+/**
+ * A condition screened from a patient's notes: its trigger vocabulary and the rules
+ * turning a trigger count into a risk level. Every registered condition is matched
+ * in the same pass over the notes, see {@link RiskConditionRegistry}.
+ */
+public interface RiskCondition {
+
+    /**
+     * Get the name identifying the condition in assessment results
+     *
+     * @return the condition name
+     */
+    String getName();
+
+    /**
+     * Get the trigger terms of the condition, matched case-insensitively
+     *
+     * @return the trigger terms
+     */
+    List<String> getTriggers();
+
+    /**
+     * Determine the risk level of a patient
+     *
+     * @param age the patient age
+     * @param gender the patient gender (M or F)
+     * @param triggerCount the number of distinct triggers found
+     * @return the risk level
+     */
+    RiskLevel assess(int age, String gender, int triggerCount);
+
+    /**
+     * Find the smallest trigger count that yields the highest risk level for a patient,
+     * from which more triggers cannot change the assessment
+     *
+     * @param age the patient age
+     * @param gender the patient gender (M or F)
+     * @param triggerLimit the number of triggers that can be found at most
+     * @return the saturation count, at most the trigger limit
+     */
+    default int saturationCount(int age, String gender, int triggerLimit) {
+        int count = 0;
+        while (count < triggerLimit && assess(age, gender, count) != RiskLevel.EARLY_ONSET) {
+            count++;
+        }
+        return count;
+    }
+}
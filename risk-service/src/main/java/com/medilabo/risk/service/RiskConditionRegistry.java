@@ -0,0 +1,87 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.config.RiskConditionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registry of the conditions screened in a multi-condition assessment: every {@link RiskCondition}
+ * bean, followed by the conditions declared under risk.engine.conditions.
+ * Their vocabularies are compiled into one matcher on startup, and recompiled when a vocabulary changes.
+ * A changed vocabulary that cannot be compiled is rejected once, and the previous matcher is kept.
+ */
+@Component
+@Slf4j
+public class RiskConditionRegistry {
+
+    private final List<RiskCondition> conditions;
+
+    private final AtomicReference<ConditionVocabulary> vocabulary;
+
+    private volatile List<List<String>> rejectedTriggers = List.of();
+
+    /**
+     * Constructor for the registry
+     *
+     * @param conditionBeans the conditions implemented as beans
+     * @param properties the conditions declared in configuration
+     * @throws IllegalArgumentException if two conditions have the same name, or more distinct triggers
+     * than a matcher supports
+     */
+    public RiskConditionRegistry(List<RiskCondition> conditionBeans, RiskConditionProperties properties) {
+        List<RiskCondition> all = new ArrayList<>(conditionBeans);
+        properties.getConditions().forEach((name, definition) -> all.add(new ThresholdRiskCondition(name, definition)));
+
+        Set<String> names = new HashSet<>();
+        for (RiskCondition condition : all) {
+            if (!names.add(condition.getName())) {
+                throw new IllegalArgumentException("Duplicate risk condition: " + condition.getName());
+            }
+        }
+        this.conditions = List.copyOf(all);
+        this.vocabulary = new AtomicReference<>(ConditionVocabulary.compile(conditions, triggers()));
+        log.info("Registered risk conditions: {}", conditions.stream().map(RiskCondition::getName).toList());
+    }
+
+    /**
+     * Get the registered conditions, in result order
+     *
+     * @return the conditions
+     */
+    public List<RiskCondition> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * Get the combined vocabulary of the registered conditions
+     *
+     * @return the vocabulary matching the current triggers of every condition
+     */
+    public ConditionVocabulary vocabulary() {
+        List<List<String>> triggers = triggers();
+        ConditionVocabulary current = vocabulary.get();
+        if (current.getTriggers().equals(triggers) || rejectedTriggers.equals(triggers)) {
+            return current;
+        }
+        try {
+            current = ConditionVocabulary.compile(conditions, triggers);
+        } catch (IllegalArgumentException e) {
+            log.error("Unable to compile the changed risk condition triggers, keeping the previous ones: {}",
+                    e.getMessage());
+            rejectedTriggers = triggers;
+            return current;
+        }
+        vocabulary.set(current);
+        return current;
+    }
+
+    private List<List<String>> triggers() {
+        return conditions.stream().map(RiskCondition::getTriggers).toList();
+    }
+}
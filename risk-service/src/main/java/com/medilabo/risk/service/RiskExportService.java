@@ -0,0 +1,74 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.PatientIdPageDTO;
+import com.medilabo.risk.dto.RiskBatchResultDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service to stream the risk assessment of every patient.
+ * Patient ID pages are only fetched as the consumer requests more assessments,
+ * so memory use does not grow with the size of the population.
+ */
+@Service
+@Slf4j
+public class RiskExportService {
+
+    private final RiskAssessmentService riskAssessmentService;
+
+    private final MicroserviceClientService microserviceClient;
+
+    private final int pageSize;
+
+    private final int concurrency;
+
+    /**
+     * Constructor for the export service
+     *
+     * @param riskAssessmentService the single-patient risk assessment service
+     * @param microserviceClient the client for patient-service
+     * @param pageSize the number of patient IDs fetched per page
+     * @param concurrency the maximum number of patients assessed at the same time
+     */
+    public RiskExportService(RiskAssessmentService riskAssessmentService,
+                             MicroserviceClientService microserviceClient,
+                             @Value("${risk.export.page-size:200}") int pageSize,
+                             @Value("${risk.export.concurrency:8}") int concurrency) {
+        this.riskAssessmentService = riskAssessmentService;
+        this.microserviceClient = microserviceClient;
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Assess every patient in ascending ID order.
+     * A patient whose assessment fails gets an entry with the error instead of the assessment.
+     *
+     * @return a flux of one entry per patient, driven by the subscriber's demand
+     */
+    public Flux<RiskBatchResultDTO> exportAll() {
+        log.info("Starting risk export");
+        return microserviceClient.getPatientIdPages("0", pageSize)
+                .concatMapIterable(PatientIdPageDTO::getIds, 1)
+                .flatMapSequential(this::assessOne, concurrency, 1)
+                .doOnCancel(() -> log.info("Risk export cancelled by the client"));
+    }
+
+    /**
+     * Assess one patient, turning any failure into an error entry
+     *
+     * @param patientId the patient ID
+     * @return a mono emitting the export entry
+     */
+    private Mono<RiskBatchResultDTO> assessOne(String patientId) {
+        return Mono.defer(() -> riskAssessmentService.assessDiabetesRisk(patientId))
+                .map(RiskBatchResultDTO::success)
+                .onErrorResume(e -> {
+                    log.warn("Export assessment failed for patient {}: {}", patientId, e.getMessage());
+                    return Mono.just(RiskBatchResultDTO.failure(patientId, e.getMessage()));
+                });
+    }
+}
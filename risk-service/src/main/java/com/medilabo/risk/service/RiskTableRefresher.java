@@ -0,0 +1,146 @@
+package com.medilabo.risk.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Incremental refresh of the materialized risk table.
+ * Only the patients whose data or notes changed, whose age changed, or whose triggers were counted
+ * with an older dictionary are assessed again; the rest of the table is left untouched.
+ * The first run also seeds the table with the patients never assessed, from the whole patient list.
+ * Runs are subscribed in the background, so the scheduler thread is never blocked, and never overlap.
+ */
+@Service
+@Slf4j
+public class RiskTableRefresher {
+
+    private final RiskAssessmentService riskAssessmentService;
+
+    private final RiskTableStore riskTable;
+
+    private final TriggerDictionaryProvider triggerDictionaryProvider;
+
+    private final MicroserviceClientService microserviceClient;
+
+    private final int pageSize;
+
+    private final int concurrency;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile boolean seeded;
+
+    /**
+     * Constructor for the risk table refresher
+     *
+     * @param riskAssessmentService the risk assessment service, which stores every assessment in the table
+     * @param riskTable the materialized risk table
+     * @param triggerDictionaryProvider the provider of the active trigger dictionary
+     * @param microserviceClient the client listing the patients to seed the table with
+     * @param pageSize the number of patient IDs requested per page when seeding
+     * @param concurrency the maximum number of patients assessed at the same time
+     */
+    public RiskTableRefresher(RiskAssessmentService riskAssessmentService,
+                              RiskTableStore riskTable,
+                              TriggerDictionaryProvider triggerDictionaryProvider,
+                              MicroserviceClientService microserviceClient,
+                              @Value("${risk.table.seed-page-size:500}") int pageSize,
+                              @Value("${risk.table.refresh-concurrency:4}") int concurrency) {
+        this.riskAssessmentService = riskAssessmentService;
+        this.riskTable = riskTable;
+        this.triggerDictionaryProvider = triggerDictionaryProvider;
+        this.microserviceClient = microserviceClient;
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Start a refresh in the background, unless the previous one is still running
+     */
+    @Scheduled(initialDelayString = "${risk.table.refresh-interval:PT1M}",
+            fixedDelayString = "${risk.table.refresh-interval:PT1M}")
+    public void scheduleRefresh() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Previous risk table refresh still running, skipping this one");
+            return;
+        }
+        refresh()
+                .doFinally(signal -> running.set(false))
+                .subscribe(refreshed -> { }, e -> log.error("Risk table refresh failed: {}", e.getMessage()));
+    }
+
+    /**
+     * Assess again every patient whose stored assessment may no longer be current, seeding the table first
+     * if it was not yet. A patient that no longer exists is removed from the table; on other errors the
+     * previous assessment is kept and retried on the next run.
+     *
+     * @return a mono emitting the number of patients refreshed
+     */
+    public Mono<Integer> refresh() {
+        return seed().then(Mono.defer(() -> {
+            List<String> patientIds = riskTable.idsToRefresh(LocalDate.now(), triggerDictionaryProvider.current().getVersion());
+            if (patientIds.isEmpty()) {
+                return Mono.just(0);
+            }
+            log.info("Refreshing {} risk assessments, {} stored", patientIds.size(), riskTable.size());
+
+            return Flux.fromIterable(patientIds)
+                    .flatMap(this::refresh, concurrency)
+                    .filter(Boolean::booleanValue)
+                    .count()
+                    .map(Long::intValue);
+        }));
+    }
+
+    private Mono<Void> seed() {
+        // Patients created after the seed are queued by the change notification patient-service sends on creation
+        if (seeded) {
+            return Mono.empty();
+        }
+        return microserviceClient.getPatientIdPages("0", pageSize)
+                .map(page -> riskTable.seed(page.getIds()))
+                .reduce(0, Integer::sum)
+                .doOnNext(count -> {
+                    seeded = true;
+                    log.info("Seeded the risk table with {} patients never assessed", count);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Unable to list patients to seed the risk table, retrying on the next run: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Boolean> refresh(String patientId) {
+        return riskAssessmentService.refreshDiabetesRisk(patientId)
+                .thenReturn(true)
+                .onErrorResume(e -> {
+                    if (isNotFound(e)) {
+                        log.info("Patient {} no longer exists, removing it from the risk table", patientId);
+                        riskTable.remove(patientId);
+                    } else {
+                        log.warn("Unable to refresh risk assessment of patient {}, keeping the previous one: {}",
+                                patientId, e.getMessage());
+                    }
+                    return Mono.just(false);
+                });
+    }
+
+    private static boolean isNotFound(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebClientResponseException.NotFound) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,240 @@
+package com.medilabo.risk.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.dto.StoredRiskAssessmentDTO;
+import com.medilabo.risk.model.RiskTableEntry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Materialized table of the latest risk assessment of every assessed patient.
+ * Reads are served from memory and never reach patient-service or note-service; the table is
+ * written back to a JSON file (temporary file atomically moved over the previous one) when it changed,
+ * and loaded again on startup. Patients known but not assessed yet, seeded from the patient list or
+ * flagged by a change, are kept apart until their first assessment.
+ */
+@Component
+@Slf4j
+public class RiskTableStore {
+
+    private static final TypeReference<List<RiskTableEntry>> ENTRIES = new TypeReference<>() {
+    };
+
+    private final Path tableFile;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, RiskTableEntry> entries = new ConcurrentHashMap<>();
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * Constructor that loads the table saved by a previous run
+     *
+     * @param tableFile the path of the table file
+     * @param objectMapper the JSON mapper
+     */
+    public RiskTableStore(@Value("${risk.table.file:data/risk-table.json}") Path tableFile,
+                          ObjectMapper objectMapper) {
+        this.tableFile = tableFile;
+        this.objectMapper = objectMapper;
+        load();
+    }
+
+    /**
+     * Get the stored assessment of a patient
+     *
+     * @param patientId the patient ID
+     * @return the assessment with its date and staleness, empty if the patient was never assessed
+     */
+    public Optional<StoredRiskAssessmentDTO> get(String patientId) {
+        RiskTableEntry entry = entries.get(patientId);
+        return entry == null ? Optional.empty()
+                : Optional.of(new StoredRiskAssessmentDTO(entry.getAssessment(), entry.getAssessedAt(), entry.isStale()));
+    }
+
+    /**
+     * Get the stored assessments of several patients
+     *
+     * @param patientIds the patient IDs
+     * @return the assessments found, in request order; patients never assessed are left out
+     */
+    public List<StoredRiskAssessmentDTO> getAll(Collection<String> patientIds) {
+        List<StoredRiskAssessmentDTO> found = new ArrayList<>(patientIds.size());
+        for (String patientId : patientIds) {
+            get(patientId).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    /**
+     * Store the latest assessment of a patient.
+     * Whether the data changed meanwhile is checked in the same atomic update as the write,
+     * so a concurrent {@link #markStale} is never overwritten.
+     *
+     * @param assessment the assessment
+     * @param birthDate the patient's birth date
+     * @param changed whether the patient data or notes changed while the assessment was computed
+     */
+    public void put(RiskAssessmentDTO assessment, LocalDate birthDate, BooleanSupplier changed) {
+        LocalDate nextBirthday = birthDate.plusYears(Period.between(birthDate, LocalDate.now()).getYears() + 1L);
+        entries.compute(assessment.getPatientId(), (id, current) ->
+                new RiskTableEntry(assessment, nextBirthday, Instant.now(), changed.getAsBoolean()));
+        pending.remove(assessment.getPatientId());
+        dirty.set(true);
+    }
+
+    /**
+     * Flag the assessment of a patient for refresh after its data or notes changed.
+     * A patient not assessed yet is queued for its first assessment.
+     *
+     * @param patientId the patient ID
+     */
+    public void markStale(String patientId) {
+        RiskTableEntry entry = entries.computeIfPresent(patientId, (id, current) -> new RiskTableEntry(
+                current.getAssessment(), current.getNextBirthday(), current.getAssessedAt(), true));
+        if (entry != null) {
+            dirty.set(true);
+        } else {
+            pending.add(patientId);
+        }
+    }
+
+    /**
+     * Queue the patients of a page of the patient list that are not in the table yet
+     *
+     * @param patientIds the patient IDs
+     * @return the number of patients queued
+     */
+    public int seed(Collection<String> patientIds) {
+        int seeded = 0;
+        for (String patientId : patientIds) {
+            if (!entries.containsKey(patientId) && pending.add(patientId)) {
+                seeded++;
+            }
+        }
+        return seeded;
+    }
+
+    /**
+     * Flag every assessment for refresh
+     */
+    public void markAllStale() {
+        entries.replaceAll((id, current) -> new RiskTableEntry(
+                current.getAssessment(), current.getNextBirthday(), current.getAssessedAt(), true));
+        dirty.set(true);
+    }
+
+    /**
+     * Remove a patient from the table
+     *
+     * @param patientId the patient ID
+     */
+    public void remove(String patientId) {
+        pending.remove(patientId);
+        if (entries.remove(patientId) != null) {
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * List the patients whose stored assessment may no longer be current: their data or notes changed,
+     * their age changed since, or their triggers were counted with another dictionary version;
+     * then the patients not assessed yet
+     *
+     * @param today the current date
+     * @param dictionaryVersion the version of the active trigger dictionary
+     * @return the patient IDs to assess again
+     */
+    public List<String> idsToRefresh(LocalDate today, int dictionaryVersion) {
+        Set<String> ids = new LinkedHashSet<>();
+        entries.forEach((patientId, entry) -> {
+            if (entry.isStale()
+                    || !today.isBefore(entry.getNextBirthday())
+                    || entry.getAssessment().getDictionaryVersion() != dictionaryVersion) {
+                ids.add(patientId);
+            }
+        });
+        ids.addAll(pending);
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Get the number of patients in the table
+     *
+     * @return the number of stored assessments
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Write the table to its file if it changed since the last write
+     */
+    @Scheduled(initialDelayString = "${risk.table.flush-interval:PT10S}",
+            fixedDelayString = "${risk.table.flush-interval:PT10S}")
+    @PreDestroy
+    public void flush() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            save(new ArrayList<>(entries.values()));
+        } catch (UncheckedIOException e) {
+            dirty.set(true);
+            log.error(e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(tableFile)) {
+            return;
+        }
+        try {
+            for (RiskTableEntry entry : objectMapper.readValue(tableFile.toFile(), ENTRIES)) {
+                entries.put(entry.getAssessment().getPatientId(), entry);
+            }
+            log.info("Loaded {} risk assessments from {}", entries.size(), tableFile);
+        } catch (IOException e) {
+            log.error("Unable to read risk table {}, starting empty: {}", tableFile, e.getMessage());
+        }
+    }
+
+    private void save(List<RiskTableEntry> snapshot) {
+        try {
+            Path directory = tableFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "risk-table", ".tmp");
+            objectMapper.writeValue(temp.toFile(), snapshot);
+            Files.move(temp, tableFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write risk table " + tableFile, e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.NoteHistoryDTO;
+import com.medilabo.risk.dto.PatientDTO;
+import com.medilabo.risk.dto.RiskTransitionDTO;
+import com.medilabo.risk.model.RiskLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service to replay a patient's notes and report how the diabetes risk level changed over time.
+ * The notes are read once, oldest first: the triggers found so far are accumulated in a mask
+ * and the level is re-evaluated at each note date and each birthday with the age the patient had then.
+ * Undated notes, which note-service returns first, have no point of their own: their triggers
+ * apply from the next point.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RiskTimelineService {
+
+    private final MicroserviceClientService microserviceClient;
+
+    private final TriggerDictionaryProvider triggerDictionaryProvider;
+
+    private final DiabetesRiskCondition diabetesCondition;
+
+    /**
+     * Compute the risk level transitions of a patient
+     *
+     * @param patientId the patient ID
+     * @return a flux emitting the level at the first dated note, then every change of level, in date order,
+     * and last the level as of today; or an error if the patient or its notes cannot be fetched
+     */
+    public Flux<RiskTransitionDTO> getRiskTimeline(String patientId) {
+        log.info("Computing risk timeline for patient ID: {}", patientId);
+        TriggerDictionary dictionary = triggerDictionaryProvider.current();
+
+        return microserviceClient.getPatient(patientId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Patient not found with ID: " + patientId)))
+                .flatMapMany(patient -> {
+                    TimelineReplay replay = new TimelineReplay(patient, dictionary, diabetesCondition);
+                    return microserviceClient.getPatientNoteHistory(patientId)
+                            .concatMapIterable(replay::note)
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(replay.today())));
+                });
+    }
+
+    /**
+     * Replay of one patient's history: the triggers found so far and the level of the last point
+     */
+    private static final class TimelineReplay {
+
+        private final PatientDTO patient;
+
+        private final TriggerDictionary dictionary;
+
+        private final RiskCondition condition;
+
+        private LocalDate lastDate;
+
+        private long found;
+
+        private RiskLevel riskLevel;
+
+        TimelineReplay(PatientDTO patient, TriggerDictionary dictionary, RiskCondition condition) {
+            this.patient = patient;
+            this.dictionary = dictionary;
+            this.condition = condition;
+        }
+
+        /**
+         * Add a note: the birthdays since the previous point that change the level, then the note date if it does
+         */
+        List<RiskTransitionDTO> note(NoteHistoryDTO note) {
+            if (note.getCreatedAt() == null) {
+                found = dictionary.getMatcher().scan(note.getContent(), found);
+                return List.of();
+            }
+            List<RiskTransitionDTO> points = birthdaysBefore(note.getCreatedAt().toLocalDate());
+            found = dictionary.getMatcher().scan(note.getContent(), found);
+            RiskTransitionDTO point = point(note.getCreatedAt());
+            if (point.getRiskLevel() != riskLevel) {
+                points.add(point);
+            }
+            riskLevel = point.getRiskLevel();
+            return points;
+        }
+
+        /**
+         * Close the replay: the birthdays since the last note that change the level, then the level as of today
+         */
+        List<RiskTransitionDTO> today() {
+            LocalDateTime now = LocalDateTime.now();
+            List<RiskTransitionDTO> points = birthdaysBefore(now.toLocalDate());
+            points.add(point(now));
+            return points;
+        }
+
+        private List<RiskTransitionDTO> birthdaysBefore(LocalDate date) {
+            List<RiskTransitionDTO> points = new ArrayList<>();
+            if (lastDate != null) {
+                int age = Period.between(patient.getBirthDate(), lastDate).getYears();
+                for (LocalDate birthday = patient.getBirthDate().plusYears(age + 1L); birthday.isBefore(date);
+                     birthday = patient.getBirthDate().plusYears(++age + 1L)) {
+                    RiskTransitionDTO point = point(birthday.atStartOfDay());
+                    if (point.getRiskLevel() != riskLevel) {
+                        points.add(point);
+                        riskLevel = point.getRiskLevel();
+                    }
+                }
+            }
+            lastDate = date;
+            return points;
+        }
+
+        private RiskTransitionDTO point(LocalDateTime date) {
+            TriggerMatcher matcher = dictionary.getMatcher();
+            int age = Period.between(patient.getBirthDate(), date.toLocalDate()).getYears();
+            int triggerCount = Long.bitCount(found);
+            return new RiskTransitionDTO(date, age, condition.assess(age, patient.getGender(), triggerCount),
+                    triggerCount, matcher.triggersIn(found), dictionary.getVersion());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.medilabo.risk.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into a single upstream call.
+ * The first subscriber for a key starts the call; subscribers arriving while it is in flight
+ * share its outcome, value or error. The key is released as soon as the call terminates or
+ * every subscriber cancels, so results are never cached beyond the flight.
+ *
+ * @param <K> the key type
+ */
+public final class SingleFlight<K> {
+
+    private final Map<K, Object> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter originated;
+
+    private final Counter coalesced;
+
+    /**
+     * Constructor for a named group of calls
+     *
+     * @param name the call name, used as the {@code call} tag of the {@code risk.downstream.calls} counter
+     * @param meterRegistry the registry for the originated and coalesced counters
+     */
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.originated = Counter.builder("risk.downstream.calls")
+                .description("Downstream lookups, by whether they started a call or joined one in flight")
+                .tag("call", name)
+                .tag("outcome", "originated")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("risk.downstream.calls")
+                .description("Downstream lookups, by whether they started a call or joined one in flight")
+                .tag("call", name)
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a single-valued call, joining the one in flight for the same key if any
+     *
+     * @param key the call key
+     * @param call the supplier of the upstream call, only invoked when no call is in flight
+     * @param <V> the value type
+     * @return a mono sharing the outcome of the in-flight call
+     */
+    @SuppressWarnings("unchecked")
+    public <V> Mono<V> mono(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> (Mono<V>) join(key, () -> {
+            AtomicReference<Mono<V>> self = new AtomicReference<>();
+            Runnable release = () -> inFlight.remove(key, self.get());
+            // Released before the outcome reaches the waiters, so a waiter calling again starts a new flight
+            Mono<V> shared = call.get()
+                    .doOnEach(signal -> release.run())
+                    .doOnCancel(release)
+                    .share();
+            self.set(shared);
+            return shared;
+        }));
+    }
+
+    /**
+     * Run a multi-valued call, joining the one in flight for the same key if any.
+     * Late joiners receive the elements already emitted before the live ones.
+     *
+     * @param key the call key
+     * @param call the supplier of the upstream call, only invoked when no call is in flight
+     * @param <V> the element type
+     * @return a flux sharing the elements of the in-flight call
+     */
+    @SuppressWarnings("unchecked")
+    public <V> Flux<V> flux(K key, Supplier<Flux<V>> call) {
+        return Flux.defer(() -> (Flux<V>) join(key, () -> {
+            AtomicReference<Flux<V>> self = new AtomicReference<>();
+            Runnable release = () -> inFlight.remove(key, self.get());
+            Flux<V> shared = call.get()
+                    .doOnTerminate(release)
+                    .doOnCancel(release)
+                    .replay()
+                    .refCount();
+            self.set(shared);
+            return shared;
+        }));
+    }
+
+    /**
+     * Number of calls currently in flight
+     *
+     * @return the in-flight call count
+     */
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object join(K key, Supplier<Object> start) {
+        boolean[] started = {false};
+        Object shared = inFlight.computeIfAbsent(key, k -> {
+            started[0] = true;
+            return start.get();
+        });
+        (started[0] ? originated : coalesced).increment();
+        return shared;
+    }
+}
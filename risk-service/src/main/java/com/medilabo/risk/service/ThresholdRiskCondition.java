@@ -0,0 +1,64 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.config.RiskConditionProperties;
+import com.medilabo.risk.model.RiskLevel;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Condition declared in configuration, with fixed trigger count thresholds for every patient
+ */
+@Getter
+public class ThresholdRiskCondition implements RiskCondition {
+
+    private final String name;
+
+    private final List<String> triggers;
+
+    private final Integer borderline;
+
+    private final Integer inDanger;
+
+    private final Integer earlyOnset;
+
+    /**
+     * Constructor for a configured condition
+     *
+     * @param name the condition name
+     * @param definition the trigger terms and thresholds
+     * @throws IllegalArgumentException if the condition has no triggers
+     */
+    public ThresholdRiskCondition(String name, RiskConditionProperties.Definition definition) {
+        if (definition.getTriggers() == null || definition.getTriggers().isEmpty()) {
+            throw new IllegalArgumentException("Risk condition " + name + " has no triggers");
+        }
+        this.name = name;
+        this.triggers = List.copyOf(definition.getTriggers());
+        this.borderline = definition.getBorderline();
+        this.inDanger = definition.getInDanger();
+        this.earlyOnset = definition.getEarlyOnset();
+    }
+
+    @Override
+    public RiskLevel assess(int age, String gender, int triggerCount) {
+        if (reached(earlyOnset, triggerCount)) return RiskLevel.EARLY_ONSET;
+        if (reached(inDanger, triggerCount)) return RiskLevel.IN_DANGER;
+        if (reached(borderline, triggerCount)) return RiskLevel.BORDERLINE;
+        return RiskLevel.NONE;
+    }
+
+    /**
+     * Saturate at the threshold of the highest configured level, so that a condition without
+     * an early onset threshold stops the scan once its in danger or borderline threshold is reached
+     */
+    @Override
+    public int saturationCount(int age, String gender, int triggerLimit) {
+        Integer highest = earlyOnset != null ? earlyOnset : inDanger != null ? inDanger : borderline;
+        return highest == null ? 0 : Math.min(highest, triggerLimit);
+    }
+
+    private static boolean reached(Integer threshold, int triggerCount) {
+        return threshold != null && triggerCount >= threshold;
+    }
+}
@@ -0,0 +1,51 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.TriggerDictionaryDTO;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of a trigger vocabulary compiled into its matcher.
+ * An assessment works on a single snapshot from start to finish, so swapping
+ * the active dictionary never affects assessments already in flight.
+ */
+@Getter
+public final class TriggerDictionary {
+
+    private final int version;
+
+    private final List<String> terms;
+
+    private final TriggerMatcher matcher;
+
+    private TriggerDictionary(int version, List<String> terms) {
+        this.version = version;
+        this.terms = List.copyOf(terms);
+        this.matcher = TriggerMatcher.compile(this.terms);
+    }
+
+    /**
+     * Compile a dictionary
+     *
+     * @param version the dictionary version
+     * @param terms the trigger terms, in bit order
+     * @return the compiled dictionary
+     * @throws IllegalArgumentException if the terms are missing, blank or too many
+     */
+    public static TriggerDictionary of(int version, List<String> terms) {
+        if (terms == null || terms.isEmpty()) {
+            throw new IllegalArgumentException("Trigger dictionary version " + version + " has no terms");
+        }
+        return new TriggerDictionary(version, terms);
+    }
+
+    /**
+     * Describe the dictionary
+     *
+     * @return the version and terms
+     */
+    public TriggerDictionaryDTO toDTO() {
+        return new TriggerDictionaryDTO(version, terms);
+    }
+}
@@ -0,0 +1,134 @@
+package com.medilabo.risk.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.risk.dto.TriggerDictionaryDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holder of the active trigger dictionary, loaded from an external JSON file.
+ * The file is polled for changes and a new dictionary is compiled off the request path,
+ * then published with a single atomic swap. Until the file exists, the copy packaged
+ * with the service is used.
+ */
+@Component
+@Slf4j
+public class TriggerDictionaryProvider {
+
+    static final Resource FALLBACK = new ClassPathResource("triggers/diabetes-triggers.json");
+
+    private final Resource location;
+
+    private final ObjectMapper objectMapper;
+
+    private final RiskAssessmentCache riskAssessmentCache;
+
+    private final AtomicReference<TriggerDictionary> current = new AtomicReference<>();
+
+    private volatile long lastModified;
+
+    /**
+     * Constructor that loads the initial dictionary
+     *
+     * @param location the dictionary file, shared with note-service
+     * @param objectMapper the JSON mapper
+     * @param riskAssessmentCache the cache cleared when the dictionary changes
+     * @throws IllegalArgumentException if the dictionary is invalid
+     * @throws UncheckedIOException if the dictionary cannot be read
+     */
+    public TriggerDictionaryProvider(@Value("${risk.triggers.location:file:/config/triggers/diabetes-triggers.json}") Resource location,
+                                     ObjectMapper objectMapper,
+                                     RiskAssessmentCache riskAssessmentCache) {
+        this.location = location;
+        this.objectMapper = objectMapper;
+        this.riskAssessmentCache = riskAssessmentCache;
+        reload();
+    }
+
+    /**
+     * Get the active dictionary
+     *
+     * @return the dictionary snapshot
+     */
+    public TriggerDictionary current() {
+        return current.get();
+    }
+
+    /**
+     * Reload the dictionary if its file changed since it was last read, or appeared.
+     * An invalid file is logged and the active dictionary is kept.
+     */
+    @Scheduled(initialDelayString = "${risk.triggers.reload-interval:PT30S}",
+            fixedDelayString = "${risk.triggers.reload-interval:PT30S}")
+    public void reloadIfChanged() {
+        try {
+            if (location.isFile() && location.exists() && location.lastModified() != lastModified) {
+                reload();
+            }
+        } catch (RuntimeException | IOException e) {
+            log.error("Unable to reload trigger dictionary from {}, keeping version {}: {}",
+                    location, current().getVersion(), e.getMessage());
+        }
+    }
+
+    /**
+     * Read and compile the dictionary, then make it the active one
+     *
+     * @return the active dictionary
+     * @throws IllegalArgumentException if the dictionary is invalid, or reuses the active version with other terms
+     * @throws UncheckedIOException if the dictionary cannot be read
+     */
+    public synchronized TriggerDictionaryDTO reload() {
+        Resource source = location.exists() ? location : FALLBACK;
+        if (source == FALLBACK) {
+            log.warn("Trigger dictionary {} not found, using the packaged copy", location);
+        }
+        long modified = lastModified(source);
+        TriggerDictionaryDTO definition = read(source);
+        TriggerDictionary loaded = TriggerDictionary.of(definition.getVersion(), definition.getTerms());
+
+        TriggerDictionary previous = current.get();
+        if (previous != null && previous.getVersion() == loaded.getVersion()) {
+            if (!previous.getTerms().equals(loaded.getTerms())) {
+                // Stored note masks are interpreted by version, so a version cannot change meaning
+                throw new IllegalArgumentException("Trigger dictionary version " + loaded.getVersion()
+                        + " already exists with other terms, bump the version");
+            }
+            lastModified = modified;
+            return previous.toDTO();
+        }
+
+        current.set(loaded);
+        lastModified = modified;
+        log.info("Activated trigger dictionary version {} with {} terms", loaded.getVersion(), loaded.getTerms().size());
+        if (previous != null) {
+            riskAssessmentCache.evictAll();
+        }
+        return loaded.toDTO();
+    }
+
+    private TriggerDictionaryDTO read(Resource resource) {
+        try (InputStream input = resource.getInputStream()) {
+            return objectMapper.readValue(input, TriggerDictionaryDTO.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read trigger dictionary " + resource, e);
+        }
+    }
+
+    private long lastModified(Resource resource) {
+        try {
+            return resource.isFile() && resource != FALLBACK ? resource.lastModified() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
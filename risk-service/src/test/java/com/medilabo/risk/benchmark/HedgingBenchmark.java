@@ -0,0 +1,101 @@
+package com.medilabo.risk.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.medilabo.risk.config.DownstreamProperties;
+import com.medilabo.risk.service.MicroserviceClientService;
+import com.medilabo.risk.service.RiskAssessmentCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tail latency of trigger-mask lookups against a stubbed note-service where a small
+ * fraction of responses is stalled, with and without request hedging.
+ * Sample-time mode reports the p50/p99 of each client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(4)
+public class HedgingBenchmark {
+
+    private static final String TRIGGER_MASK_JSON = """
+            {"patientId":"1","dictionaryVersion":1,"mask":240,"noteCount":2}
+            """;
+
+    @Param({"2"})
+    private long fastLatencyMs;
+
+    @Param({"100"})
+    private long slowLatencyMs;
+
+    @Param({"0.03"})
+    private double slowRatio;
+
+    private DisposableServer stubServer;
+
+    private MicroserviceClientService plainClient;
+
+    private MicroserviceClientService hedgedClient;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        stubServer = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes
+                        .get("/api/notes/patient/{id}/trigger-mask", (request, response) -> response
+                                .header("Content-Type", "application/json")
+                                .sendString(Mono.just(TRIGGER_MASK_JSON).delayElement(Duration.ofMillis(
+                                        ThreadLocalRandom.current().nextDouble() < slowRatio ? slowLatencyMs : fastLatencyMs)))))
+                .bindNow();
+
+        String baseUrl = "http://localhost:" + stubServer.port();
+        plainClient = client(baseUrl, false);
+        hedgedClient = client(baseUrl, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stubServer.disposeNow();
+    }
+
+    @Benchmark
+    public long withoutHedging() {
+        return plainClient.getPatientTriggerMask(nextPatientId()).block().getMask();
+    }
+
+    @Benchmark
+    public long withHedging() {
+        return hedgedClient.getPatientTriggerMask(nextPatientId()).block().getMask();
+    }
+
+    // Distinct patients, so that concurrent lookups are not coalesced
+    private String nextPatientId() {
+        return Long.toString(ThreadLocalRandom.current().nextLong(1_000_000));
+    }
+
+    private MicroserviceClientService client(String baseUrl, boolean hedging) {
+        DownstreamProperties properties = new DownstreamProperties();
+        properties.getHedging().setEnabled(hedging);
+        properties.getHedging().setInitialDelay(Duration.ofMillis(10));
+        properties.getHedging().setBudgetRatio(0.1);
+        return new MicroserviceClientService(WebClient.create(baseUrl), WebClient.create(baseUrl),
+                properties, new RiskAssessmentCache(1, Duration.ZERO, false, new SimpleMeterRegistry()),
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,64 @@
+package com.medilabo.risk.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic note corpus shared by the benchmarks.
+ * Notes are 40 words of clinical filler where each word is replaced by an upper-case
+ * diabetes trigger with a given probability; the seed is fixed so every run scans the same text.
+ */
+final class NoteCorpus {
+
+    static final List<String> TRIGGERS = Arrays.asList(
+            "hemoglobin a1c",
+            "microalbumin",
+            "height",
+            "weight",
+            "smoker",
+            "abnormal",
+            "cholesterol",
+            "dizziness",
+            "relapse",
+            "reaction",
+            "antibodies"
+    );
+
+    private static final String[] FILLER = {
+            "patient", "reports", "feeling", "well", "follow-up", "scheduled", "blood", "pressure",
+            "stable", "recommend", "diet", "exercise", "levels", "normal", "no", "complaints"
+    };
+
+    private static final int WORDS_PER_NOTE = 40;
+
+    private NoteCorpus() {
+    }
+
+    /**
+     * Generate the notes of one patient
+     *
+     * @param count the number of notes
+     * @param triggerProbability the probability of each word being a trigger
+     * @return the note contents
+     */
+    static List<String> notes(int count, double triggerProbability) {
+        Random random = new Random(42);
+        List<String> notes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder note = new StringBuilder();
+            for (int word = 0; word < WORDS_PER_NOTE; word++) {
+                if (random.nextDouble() < triggerProbability) {
+                    note.append(TRIGGERS.get(random.nextInt(TRIGGERS.size())).toUpperCase(Locale.ROOT));
+                } else {
+                    note.append(FILLER[random.nextInt(FILLER.length)]);
+                }
+                note.append(' ');
+            }
+            notes.add(note.toString());
+        }
+        return notes;
+    }
+}
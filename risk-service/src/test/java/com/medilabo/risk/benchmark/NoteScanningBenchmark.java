@@ -0,0 +1,111 @@
+package com.medilabo.risk.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.risk.dto.NoteContentDTO;
+import com.medilabo.risk.service.NoteContentByteScanner;
+import com.medilabo.risk.service.TriggerMatcher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of matching the triggers of one assessment on the NDJSON note contents stream,
+ * from the response buffers to the trigger count. Run with {@code -prof gc} to compare
+ * the allocation rate of decoding every note into a String against scanning the bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteScanningBenchmark {
+
+    private static final List<String> TRIGGERS = NoteCorpus.TRIGGERS;
+
+    /** Size of the chunks the response arrives in, as read from the socket */
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final ResolvableType NOTE_CONTENT_TYPE = ResolvableType.forClass(NoteContentDTO.class);
+
+    @Param({"10", "100", "1000"})
+    private int notesPerPatient;
+
+    private List<byte[]> chunks;
+
+    private TriggerMatcher matcher;
+
+    private Jackson2JsonDecoder decoder;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        StringBuilder ndjson = new StringBuilder();
+        for (String note : NoteCorpus.notes(notesPerPatient, 0.002)) {
+            ndjson.append(objectMapper.writeValueAsString(new NoteContentDTO(note))).append('\n');
+        }
+        byte[] bytes = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+        chunks = new ArrayList<>();
+        for (int start = 0; start < bytes.length; start += CHUNK_SIZE) {
+            chunks.add(Arrays.copyOfRange(bytes, start, Math.min(bytes.length, start + CHUNK_SIZE)));
+        }
+        matcher = TriggerMatcher.compile(TRIGGERS);
+        decoder = new Jackson2JsonDecoder(objectMapper);
+    }
+
+    private Flux<DataBuffer> response() {
+        return Flux.fromIterable(chunks).map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    @Benchmark
+    public int decodeLowercaseAndConcatenate() {
+        List<Object> notes = decoder.decode(response(), NOTE_CONTENT_TYPE, MediaType.APPLICATION_NDJSON, null)
+                .collectList()
+                .block();
+        StringBuilder allNotes = new StringBuilder();
+        for (Object note : notes) {
+            allNotes.append(((NoteContentDTO) note).getContent().toLowerCase(Locale.ENGLISH)).append(" ");
+        }
+        String fullText = allNotes.toString();
+        int count = 0;
+        for (String trigger : TRIGGERS) {
+            if (fullText.contains(trigger)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int decodeAndMatch() {
+        return decoder.decode(response(), NOTE_CONTENT_TYPE, MediaType.APPLICATION_NDJSON, null)
+                .scan(0L, (found, note) -> matcher.scan(((NoteContentDTO) note).getContent(), found))
+                .takeUntil(matcher::isComplete)
+                .last(0L)
+                .map(Long::bitCount)
+                .block();
+    }
+
+    @Benchmark
+    public int scanBytes() {
+        return Flux.defer(() -> {
+                    NoteContentByteScanner scanner = new NoteContentByteScanner(matcher);
+                    return response().map(scanner::scan);
+                })
+                .takeUntil(matcher::isComplete)
+                .last(0L)
+                .map(Long::bitCount)
+                .block();
+    }
+}
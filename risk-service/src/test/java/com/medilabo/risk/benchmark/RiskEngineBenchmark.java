@@ -0,0 +1,178 @@
+package com.medilabo.risk.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.risk.config.DownstreamProperties;
+import com.medilabo.risk.config.RiskConditionProperties;
+import com.medilabo.risk.dto.PatientDTO;
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.dto.TriggerMaskDTO;
+import com.medilabo.risk.model.RiskLevel;
+import com.medilabo.risk.service.DiabetesRiskCondition;
+import com.medilabo.risk.service.MicroserviceClientService;
+import com.medilabo.risk.service.RiskAssessmentCache;
+import com.medilabo.risk.service.RiskAssessmentService;
+import com.medilabo.risk.service.RiskConditionRegistry;
+import com.medilabo.risk.service.RiskTableStore;
+import com.medilabo.risk.service.TriggerDictionaryProvider;
+import com.medilabo.risk.service.TriggerMatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the in-process steps of a diabetes risk assessment, with downstream data already in memory:
+ * trigger counting, risk level rules, the whole assessment (counting, rules, DTO and message) and the JSON
+ * serialization of the result. Run with {@code -prof gc} (the default profiler of the benchmark profile)
+ * to also report the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RiskEngineBenchmark {
+
+    private static final String[] GENDERS = {"M", "F"};
+
+    private ObjectMapper objectMapper;
+
+    private TriggerMatcher matcher;
+
+    private DiabetesRiskCondition diabetes;
+
+    private RiskAssessmentDTO assessment;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        objectMapper = new ObjectMapper();
+        matcher = TriggerMatcher.compile(NoteCorpus.TRIGGERS);
+        RiskAssessmentCache cache = new RiskAssessmentCache(1, Duration.ZERO, false, new SimpleMeterRegistry());
+        diabetes = new DiabetesRiskCondition(new TriggerDictionaryProvider(
+                new ClassPathResource("triggers/diabetes-triggers.json"), objectMapper, cache));
+        assessment = new RiskAssessmentDTO("1", "Test TestBorderline", 81, "F", RiskLevel.BORDERLINE, 2, false,
+                "Patient: Test TestBorderline (age 81) diabetes assessment is Borderline", 1);
+    }
+
+    /**
+     * A patient with a synthetic note corpus, assessed through the whole service
+     */
+    @State(Scope.Benchmark)
+    public static class Patient {
+
+        @Param({"1", "10", "100", "1000"})
+        private int notesPerPatient;
+
+        private List<String> notes;
+
+        private RiskAssessmentService service;
+
+        private Path tableDirectory;
+
+        @Setup
+        public void setUp(RiskEngineBenchmark engine) throws IOException {
+            notes = NoteCorpus.notes(notesPerPatient, 0.002);
+
+            PatientDTO patient = new PatientDTO();
+            patient.setId("1");
+            patient.setFirstName("Test");
+            patient.setLastName("TestBorderline");
+            patient.setBirthDate(LocalDate.of(1945, 6, 24));
+            patient.setGender("F");
+
+            // Disabled cache, so every operation goes through the whole assessment
+            RiskAssessmentCache cache = new RiskAssessmentCache(1, Duration.ZERO, false, new SimpleMeterRegistry());
+            TriggerDictionaryProvider dictionaryProvider = new TriggerDictionaryProvider(
+                    new ClassPathResource("triggers/diabetes-triggers.json"), engine.objectMapper, cache);
+            DiabetesRiskCondition diabetes = new DiabetesRiskCondition(dictionaryProvider);
+            tableDirectory = Files.createTempDirectory("risk-table");
+            service = new RiskAssessmentService(new InMemoryClient(patient, notes), cache, dictionaryProvider, diabetes,
+                    new RiskConditionRegistry(List.of(diabetes), new RiskConditionProperties()),
+                    new RiskTableStore(tableDirectory.resolve("risk-table.json"), engine.objectMapper),
+                    false, new SimpleMeterRegistry());
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            FileSystemUtils.deleteRecursively(tableDirectory);
+        }
+    }
+
+    @Benchmark
+    public int countTriggers(Patient patient) {
+        return Long.bitCount(matcher.scan(patient.notes));
+    }
+
+    @Benchmark
+    public void assessRiskLevel(Blackhole blackhole) {
+        for (int age = 20; age < 40; age += 5) {
+            for (String gender : GENDERS) {
+                for (int triggerCount = 0; triggerCount <= 9; triggerCount++) {
+                    blackhole.consume(diabetes.assess(age, gender, triggerCount));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public RiskAssessmentDTO assessPatient(Patient patient) {
+        return patient.service.assessDiabetesRisk("1").block();
+    }
+
+    @Benchmark
+    public byte[] serializeAssessment() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(assessment);
+    }
+
+    /**
+     * Client serving the patient and its notes from memory, without stored trigger masks
+     * so that the notes are always scanned
+     */
+    private static final class InMemoryClient extends MicroserviceClientService {
+
+        private final PatientDTO patient;
+
+        private final List<String> notes;
+
+        InMemoryClient(PatientDTO patient, List<String> notes) {
+            super(WebClient.create(), WebClient.create(), new DownstreamProperties(),
+                    new RiskAssessmentCache(1, Duration.ZERO, false, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+            this.patient = patient;
+            this.notes = notes;
+        }
+
+        @Override
+        public Mono<PatientDTO> getPatient(String patientId) {
+            return Mono.just(patient);
+        }
+
+        @Override
+        public Mono<TriggerMaskDTO> getPatientTriggerMask(String patientId) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Flux<String> getPatientNoteContents(String patientId) {
+            return Flux.fromIterable(notes);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.medilabo.risk.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.risk.config.DownstreamProperties;
+import com.medilabo.risk.config.RiskConditionProperties;
+import com.medilabo.risk.dto.PatientDTO;
+import com.medilabo.risk.service.DiabetesRiskCondition;
+import com.medilabo.risk.service.MicroserviceClientService;
+import com.medilabo.risk.service.RiskAssessmentCache;
+import com.medilabo.risk.service.RiskAssessmentService;
+import com.medilabo.risk.service.RiskConditionRegistry;
+import com.medilabo.risk.service.RiskTableStore;
+import com.medilabo.risk.service.TriggerDictionaryProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a risk assessment against stubbed patient and note services.
+ * Sample-time mode reports the p50/p99 of sequential lookups versus the
+ * concurrent fan-out used by RiskAssessmentService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RiskFanOutBenchmark {
+
+    private static final String PATIENT_JSON = """
+            {"id":"1","firstName":"Test","lastName":"TestInDanger","birthDate":"2004-06-18","gender":"M"}
+            """;
+
+    private static final String NOTE_CONTENTS_NDJSON = """
+            {"content":"Patient is Smoker, abnormal Cholesterol"}
+            {"content":"Height and weight measured, dizziness reported"}
+            """;
+
+    private static final String TRIGGER_MASK_JSON = """
+            {"patientId":"1","dictionaryVersion":1,"mask":240,"noteCount":2}
+            """;
+
+    @Param({"20"})
+    private long patientLatencyMs;
+
+    @Param({"30"})
+    private long noteLatencyMs;
+
+    private DisposableServer stubServer;
+
+    private MicroserviceClientService client;
+
+    private RiskAssessmentService service;
+
+    private Path tableDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        stubServer = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes
+                        .get("/api/patients/{id}", (request, response) -> response
+                                .header("Content-Type", "application/json")
+                                .sendString(Mono.just(PATIENT_JSON).delayElement(Duration.ofMillis(patientLatencyMs))))
+                        .get("/api/notes/patient/{id}/trigger-mask", (request, response) -> response
+                                .header("Content-Type", "application/json")
+                                .sendString(Mono.just(TRIGGER_MASK_JSON).delayElement(Duration.ofMillis(noteLatencyMs))))
+                        .get("/api/notes/patient/{id}/contents", (request, response) -> response
+                                .header("Content-Type", "application/x-ndjson")
+                                .sendString(Mono.just(NOTE_CONTENTS_NDJSON).delayElement(Duration.ofMillis(noteLatencyMs)))))
+                .bindNow();
+
+        String baseUrl = "http://localhost:" + stubServer.port();
+        RiskAssessmentCache cache = new RiskAssessmentCache(1, Duration.ZERO, false, new SimpleMeterRegistry());
+        client = new MicroserviceClientService(WebClient.create(baseUrl), WebClient.create(baseUrl),
+                new DownstreamProperties(), cache, new SimpleMeterRegistry());
+        TriggerDictionaryProvider dictionaryProvider = new TriggerDictionaryProvider(
+                new ClassPathResource("triggers/diabetes-triggers.json"), new ObjectMapper(), cache);
+        DiabetesRiskCondition diabetes = new DiabetesRiskCondition(dictionaryProvider);
+        tableDirectory = Files.createTempDirectory("risk-table");
+        service = new RiskAssessmentService(client, cache, dictionaryProvider, diabetes,
+                new RiskConditionRegistry(List.of(diabetes), new RiskConditionProperties()),
+                new RiskTableStore(tableDirectory.resolve("risk-table.json"), new ObjectMapper()),
+                true, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        stubServer.disposeNow();
+        FileSystemUtils.deleteRecursively(tableDirectory);
+    }
+
+    @Benchmark
+    public int sequentialLookups() {
+        PatientDTO patient = client.getPatient("1").block();
+        List<String> notes = client.getPatientNoteContents("1").collectList().block();
+        return patient.getFirstName().length() + notes.size();
+    }
+
+    @Benchmark
+    public int concurrentAssessment() {
+        return service.assessDiabetesRisk("1").block().getTriggerCount();
+    }
+}
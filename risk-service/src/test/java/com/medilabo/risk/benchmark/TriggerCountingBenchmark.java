@@ -0,0 +1,61 @@
+package com.medilabo.risk.benchmark;
+
+import com.medilabo.risk.service.TriggerMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the Aho-Corasick trigger matcher against the previous
+ * concatenate-then-contains implementation of trigger counting
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriggerCountingBenchmark {
+
+    private static final List<String> TRIGGERS = NoteCorpus.TRIGGERS;
+
+    @Param({"1", "10", "100", "1000"})
+    private int notesPerPatient;
+
+    @Param({"0.1"})
+    private double triggerDensity;
+
+    private List<String> notes;
+
+    private TriggerMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        notes = NoteCorpus.notes(notesPerPatient, triggerDensity / 10);
+        matcher = TriggerMatcher.compile(TRIGGERS);
+    }
+
+    @Benchmark
+    public int concatenateAndContains() {
+        StringBuilder allNotes = new StringBuilder();
+        for (String note : notes) {
+            allNotes.append(note.toLowerCase(Locale.ENGLISH)).append(" ");
+        }
+
+        String fullText = allNotes.toString();
+        int count = 0;
+        for (String trigger : TRIGGERS) {
+            if (fullText.contains(trigger.toLowerCase())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int ahoCorasick() {
+        return Long.bitCount(matcher.scan(notes));
+    }
+}
@@ -0,0 +1,124 @@
+package com.medilabo.risk.config;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.internal.shaded.reactor.pool.PoolAcquirePendingLimitException;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the downstream WebClient configuration
+ */
+class WebClientConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DisposableServer stubServer;
+
+    private ConnectionProvider connectionProvider;
+
+    private DownstreamProperties.Client settings;
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(meterRegistry);
+        stubServer = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes
+                        .get("/slow", (request, response) -> response
+                                .sendString(Mono.just("slow").delayElement(Duration.ofMillis(500))))
+                        .get("/fast", (request, response) -> response.sendString(Mono.just("fast"))))
+                .bindNow();
+        settings = new DownstreamProperties.Client();
+        settings.setResponseTimeout(Duration.ofMillis(200));
+        settings.setMaxConnections(1);
+        settings.setPendingAcquireMaxCount(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        stubServer.disposeNow();
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void testWebClient_WhenResponseTooSlow_ShouldTimeOut() {
+        // Arrange
+        WebClient webClient = buildClient("test-timeout");
+
+        // Act & Assert
+        StepVerifier.create(webClient.get().uri("/slow").retrieve().bodyToMono(String.class))
+                .expectErrorMatches(e -> hasCause(e, ReadTimeoutException.class))
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testWebClient_WhenPendingAcquireLimitReached_ShouldRejectRequest() {
+        // Arrange: one request holds the only connection, one waits, the third is rejected
+        settings.setResponseTimeout(Duration.ofSeconds(2));
+        WebClient webClient = buildClient("test-pending");
+
+        // Act
+        Flux<String> requests = Flux.range(0, 3)
+                .flatMap(i -> webClient.get().uri("/slow").retrieve().bodyToMono(String.class)
+                        // The first request must hold the connection before the others queue up
+                        .delaySubscription(Duration.ofMillis(i == 0 ? 0 : 300))
+                        .onErrorResume(e -> Mono.just(hasCause(e, PoolAcquirePendingLimitException.class)
+                                ? "rejected" : "error: " + e)));
+
+        // Assert
+        StepVerifier.create(requests.collectList())
+                .assertNext(results -> {
+                    assertEquals(1, results.stream().filter("rejected"::equals).count(), "Unexpected results " + results);
+                    assertEquals(2, results.stream().filter("slow"::equals).count(), "Unexpected results " + results);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testConnectionProvider_ShouldPublishPoolMetrics() {
+        // Arrange
+        WebClient webClient = buildClient("test-metrics");
+
+        // Act
+        webClient.get().uri("/fast").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(5));
+
+        // Assert
+        assertNotNull(meterRegistry.find("reactor.netty.connection.provider.active.connections")
+                .tag("name", "test-metrics").gauge());
+        assertNotNull(meterRegistry.find("reactor.netty.connection.provider.pending.connections")
+                .tag("name", "test-metrics").gauge());
+        assertNotNull(meterRegistry.find("reactor.netty.connection.provider.idle.connections")
+                .tag("name", "test-metrics").gauge());
+    }
+
+    private WebClient buildClient(String name) {
+        connectionProvider = WebClientConfig.connectionProvider(name, settings);
+        return WebClientConfig.webClient(WebClient.builder(), connectionProvider, settings,
+                "http://localhost:" + stubServer.port());
+    }
+
+    private static boolean hasCause(Throwable error, Class<? extends Throwable> type) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,32 +1,70 @@
 package com.medilabo.risk.controller;
 
+import com.medilabo.risk.dto.CohortDistributionDTO;
+import com.medilabo.risk.dto.ConditionAssessmentDTO;
+import com.medilabo.risk.dto.MultiConditionAssessmentDTO;
 import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.model.DiabetesThresholds;
 import com.medilabo.risk.model.RiskLevel;
+import com.medilabo.risk.dto.RiskBatchResultDTO;
+import com.medilabo.risk.dto.RiskTransitionDTO;
+import com.medilabo.risk.dto.StoredRiskAssessmentDTO;
+import com.medilabo.risk.service.CohortAnalyticsService;
+import com.medilabo.risk.service.RiskAssessmentCache;
 import com.medilabo.risk.service.RiskAssessmentService;
+import com.medilabo.risk.service.RiskBatchService;
+import com.medilabo.risk.service.RiskExportService;
+import com.medilabo.risk.service.RiskTableStore;
+import com.medilabo.risk.service.RiskTimelineService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
-import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
  * Integration tests for RiskAssessmentController
  */
-@WebMvcTest(RiskAssessmentController.class)
+@WebFluxTest(RiskAssessmentController.class)
 class RiskAssessmentControllerTest {
 
     @Autowired
-    private MockMvc mockMvc;
+    private WebTestClient webTestClient;
 
     @MockBean
     private RiskAssessmentService riskAssessmentService;
 
+    @MockBean
+    private RiskBatchService riskBatchService;
+
+    @MockBean
+    private RiskExportService riskExportService;
+
+    @MockBean
+    private RiskTimelineService riskTimelineService;
+
+    @MockBean
+    private RiskAssessmentCache riskAssessmentCache;
+
+    @MockBean
+    private RiskTableStore riskTable;
+
+    @MockBean
+    private CohortAnalyticsService cohortAnalyticsService;
+
     private RiskAssessmentDTO testAssessment;
 
     @BeforeEach
@@ -38,52 +76,62 @@ class RiskAssessmentControllerTest {
                 "M",
                 RiskLevel.BORDERLINE,
                 3,
-                "Patient: John Doe (age 30) diabetes assessment is Borderline"
+                false,
+                "Patient: John Doe (age 30) diabetes assessment is Borderline",
+                1
         );
     }
 
     @Test
-    void testAssessRisk_WhenPatientExists_ShouldReturnRiskAssessment() throws Exception {
+    void testAssessRisk_WhenPatientExists_ShouldReturnRiskAssessment() {
         // Arrange
-        when(riskAssessmentService.assessDiabetesRisk("patient1")).thenReturn(testAssessment);
+        when(riskAssessmentService.assessDiabetesRisk("patient1")).thenReturn(Mono.just(testAssessment));
 
         // Act & Assert
-        mockMvc.perform(get("/api/risk/patient1"))
-                .andExpect(status().isOk())
-                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.patientId").value("patient1"))
-                .andExpect(jsonPath("$.patientName").value("John Doe"))
-                .andExpect(jsonPath("$.age").value(30))
-                .andExpect(jsonPath("$.gender").value("M"))
-                .andExpect(jsonPath("$.riskLevel").value("BORDERLINE"))
-                .andExpect(jsonPath("$.triggerCount").value(3));
+        webTestClient.get()
+                .uri("/api/risk/patient1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.patientId").isEqualTo("patient1")
+                .jsonPath("$.patientName").isEqualTo("John Doe")
+                .jsonPath("$.age").isEqualTo(30)
+                .jsonPath("$.gender").isEqualTo("M")
+                .jsonPath("$.riskLevel").isEqualTo("BORDERLINE")
+                .jsonPath("$.triggerCount").isEqualTo(3)
+                .jsonPath("$.dictionaryVersion").isEqualTo(1);
 
         verify(riskAssessmentService, times(1)).assessDiabetesRisk("patient1");
     }
 
     @Test
-    void testAssessRisk_WhenPatientNotFound_ShouldReturn404() throws Exception {
+    void testAssessRisk_WhenPatientNotFound_ShouldReturn404() {
         // Arrange
         when(riskAssessmentService.assessDiabetesRisk("patient999"))
-                .thenThrow(new RuntimeException("Patient not found"));
+                .thenReturn(Mono.error(new RuntimeException("Patient not found")));
 
         // Act & Assert
-        mockMvc.perform(get("/api/risk/patient999"))
-                .andExpect(status().isNotFound());
+        webTestClient.get()
+                .uri("/api/risk/patient999")
+                .exchange()
+                .expectStatus().isNotFound();
 
         verify(riskAssessmentService, times(1)).assessDiabetesRisk("patient999");
     }
 
     @Test
-    void testHealth_ShouldReturnOk() throws Exception {
+    void testHealth_ShouldReturnOk() {
         // Act & Assert
-        mockMvc.perform(get("/api/risk/health"))
-                .andExpect(status().isOk())
-                .andExpect(content().string("Risk Service is running"));
+        webTestClient.get()
+                .uri("/api/risk/health")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Risk Service is running");
     }
 
     @Test
-    void testAssessRisk_WithNoneRisk_ShouldReturnCorrectAssessment() throws Exception {
+    void testAssessRisk_WithNoneRisk_ShouldReturnCorrectAssessment() {
         // Arrange
         RiskAssessmentDTO noneRisk = new RiskAssessmentDTO(
                 "patient2",
@@ -92,21 +140,26 @@ class RiskAssessmentControllerTest {
                 "F",
                 RiskLevel.NONE,
                 0,
-                "Patient: Jane Smith (age 25) diabetes assessment is None"
+                false,
+                "Patient: Jane Smith (age 25) diabetes assessment is None",
+                1
         );
-        when(riskAssessmentService.assessDiabetesRisk("patient2")).thenReturn(noneRisk);
+        when(riskAssessmentService.assessDiabetesRisk("patient2")).thenReturn(Mono.just(noneRisk));
 
         // Act & Assert
-        mockMvc.perform(get("/api/risk/patient2"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.riskLevel").value("NONE"))
-                .andExpect(jsonPath("$.triggerCount").value(0));
+        webTestClient.get()
+                .uri("/api/risk/patient2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.riskLevel").isEqualTo("NONE")
+                .jsonPath("$.triggerCount").isEqualTo(0);
 
         verify(riskAssessmentService, times(1)).assessDiabetesRisk("patient2");
     }
 
     @Test
-    void testAssessRisk_WithInDangerRisk_ShouldReturnCorrectAssessment() throws Exception {
+    void testAssessRisk_WithInDangerRisk_ShouldReturnCorrectAssessment() {
         // Arrange
         RiskAssessmentDTO inDangerRisk = new RiskAssessmentDTO(
                 "patient3",
@@ -115,21 +168,26 @@ class RiskAssessmentControllerTest {
                 "M",
                 RiskLevel.IN_DANGER,
                 4,
-                "Patient: Bob Johnson (age 28) diabetes assessment is In Danger"
+                false,
+                "Patient: Bob Johnson (age 28) diabetes assessment is In Danger",
+                1
         );
-        when(riskAssessmentService.assessDiabetesRisk("patient3")).thenReturn(inDangerRisk);
+        when(riskAssessmentService.assessDiabetesRisk("patient3")).thenReturn(Mono.just(inDangerRisk));
 
         // Act & Assert
-        mockMvc.perform(get("/api/risk/patient3"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.riskLevel").value("IN_DANGER"))
-                .andExpect(jsonPath("$.triggerCount").value(4));
+        webTestClient.get()
+                .uri("/api/risk/patient3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.riskLevel").isEqualTo("IN_DANGER")
+                .jsonPath("$.triggerCount").isEqualTo(4);
 
         verify(riskAssessmentService, times(1)).assessDiabetesRisk("patient3");
     }
 
     @Test
-    void testAssessRisk_WithEarlyOnsetRisk_ShouldReturnCorrectAssessment() throws Exception {
+    void testAssessRisk_WithEarlyOnsetRisk_ShouldReturnCorrectAssessment() {
         // Arrange
         RiskAssessmentDTO earlyOnsetRisk = new RiskAssessmentDTO(
                 "patient4",
@@ -138,17 +196,296 @@ class RiskAssessmentControllerTest {
                 "F",
                 RiskLevel.EARLY_ONSET,
                 8,
-                "Patient: Alice Brown (age 27) diabetes assessment is Early onset"
+                false,
+                "Patient: Alice Brown (age 27) diabetes assessment is Early onset",
+                1
         );
-        when(riskAssessmentService.assessDiabetesRisk("patient4")).thenReturn(earlyOnsetRisk);
+        when(riskAssessmentService.assessDiabetesRisk("patient4")).thenReturn(Mono.just(earlyOnsetRisk));
 
         // Act & Assert
-        mockMvc.perform(get("/api/risk/patient4"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.riskLevel").value("EARLY_ONSET"))
-                .andExpect(jsonPath("$.triggerCount").value(8));
+        webTestClient.get()
+                .uri("/api/risk/patient4")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.riskLevel").isEqualTo("EARLY_ONSET")
+                .jsonPath("$.triggerCount").isEqualTo(8);
 
         verify(riskAssessmentService, times(1)).assessDiabetesRisk("patient4");
     }
-}
 
+    @Test
+    void testAssessConditions_ShouldReturnOneAssessmentPerCondition() {
+        // Arrange
+        when(riskAssessmentService.assessConditions("patient1")).thenReturn(Mono.just(new MultiConditionAssessmentDTO(
+                "patient1", "John Doe", 30, "M", List.of(
+                        new ConditionAssessmentDTO("diabetes", RiskLevel.BORDERLINE, 3, false),
+                        new ConditionAssessmentDTO("hypertension", RiskLevel.NONE, 0, false)))));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/risk/patient1/conditions")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.patientName").isEqualTo("John Doe")
+                .jsonPath("$.conditions.length()").isEqualTo(2)
+                .jsonPath("$.conditions[0].condition").isEqualTo("diabetes")
+                .jsonPath("$.conditions[0].riskLevel").isEqualTo("BORDERLINE")
+                .jsonPath("$.conditions[1].condition").isEqualTo("hypertension")
+                .jsonPath("$.conditions[1].triggerCount").isEqualTo(0);
+    }
+
+    @Test
+    void testGetRiskTimeline_ShouldReturnTransitionsInOrder() {
+        // Arrange
+        when(riskTimelineService.getRiskTimeline("patient1")).thenReturn(Flux.just(
+                new RiskTransitionDTO(LocalDateTime.of(2015, 1, 1, 10, 0), 24, RiskLevel.NONE, 0, List.of(), 1),
+                new RiskTransitionDTO(LocalDateTime.of(2017, 1, 1, 10, 0), 26, RiskLevel.IN_DANGER, 3,
+                        List.of("smoker", "abnormal", "cholesterol"), 1)));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/risk/patient1/timeline")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].riskLevel").isEqualTo("NONE")
+                .jsonPath("$[1].date").isEqualTo("2017-01-01T10:00:00")
+                .jsonPath("$[1].riskLevel").isEqualTo("IN_DANGER")
+                .jsonPath("$[1].triggers[0]").isEqualTo("smoker");
+    }
+
+    @Test
+    void testGetRiskTimeline_WhenPatientNotFound_ShouldReturn404() {
+        // Arrange
+        when(riskTimelineService.getRiskTimeline("patient999"))
+                .thenReturn(Flux.error(new RuntimeException("Patient not found")));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/risk/patient999/timeline")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testGetRiskTimeline_WhenNotesUnavailable_ShouldReturn503() {
+        // Arrange
+        when(riskTimelineService.getRiskTimeline("patient1"))
+                .thenReturn(Flux.error(new IllegalStateException("Unable to fetch note history for patient ID: patient1")));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/risk/patient1/timeline")
+                .exchange()
+                .expectStatus().isEqualTo(503);
+    }
+
+    @Test
+    void testAssessRiskBatch_ShouldReturnResultsInOrder() {
+        // Arrange
+        when(riskBatchService.assessBatch(List.of("patient1", "patient999"))).thenReturn(Flux.just(
+                RiskBatchResultDTO.success(testAssessment),
+                RiskBatchResultDTO.failure("patient999", "Patient not found")
+        ));
+
+        // Act & Assert
+        webTestClient.post()
+                .uri("/api/risk/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"patientIds": ["patient1", "patient999"]}
+                        """)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].patientId").isEqualTo("patient1")
+                .jsonPath("$[0].assessment.riskLevel").isEqualTo("BORDERLINE")
+                .jsonPath("$[1].patientId").isEqualTo("patient999")
+                .jsonPath("$[1].error").isEqualTo("Patient not found");
+
+        verify(riskBatchService, times(1)).assessBatch(List.of("patient1", "patient999"));
+    }
+
+    @Test
+    void testAssessRiskBatch_WithEmptyList_ShouldReturn400() {
+        // Act & Assert
+        webTestClient.post()
+                .uri("/api/risk/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"patientIds": []}
+                        """)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verifyNoInteractions(riskBatchService);
+    }
+
+    @Test
+    void testAssessRiskBatch_WhenTooLarge_ShouldReturn400() {
+        // Arrange
+        when(riskBatchService.assessBatch(List.of("patient1")))
+                .thenThrow(new IllegalArgumentException("Batch size exceeds maximum"));
+
+        // Act & Assert
+        webTestClient.post()
+                .uri("/api/risk/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"patientIds": ["patient1"]}
+                        """)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testExportRisk_ShouldStreamOneAssessmentPerLine() {
+        // Arrange
+        RiskAssessmentDTO second = new RiskAssessmentDTO("patient2", "Jane Smith", 25, "F", RiskLevel.NONE, 0, false,
+                "Patient: Jane Smith (age 25) diabetes assessment is None", 1);
+        when(riskExportService.exportAll()).thenReturn(Flux.just(RiskBatchResultDTO.success(testAssessment),
+                RiskBatchResultDTO.success(second), RiskBatchResultDTO.failure("patient3", "Patient not found")));
+
+        // Act
+        String body = webTestClient.get()
+                .uri("/api/risk/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Assert
+        String[] lines = body.trim().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"patientId\":\"patient1\""));
+        assertTrue(lines[1].contains("\"patientId\":\"patient2\""));
+        assertTrue(lines[2].contains("\"error\":\"Patient not found\""));
+    }
+
+    @Test
+    void testEvictCachedRisk_ShouldReturn204() {
+        // Act & Assert
+        webTestClient.delete()
+                .uri("/api/risk/cache/patient1")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        verify(riskAssessmentCache, times(1)).evict("patient1");
+        verify(riskTable, times(1)).markStale("patient1");
+    }
+
+    @Test
+    void testEvictAllCachedRisks_ShouldReturn204() {
+        // Act & Assert
+        webTestClient.delete()
+                .uri("/api/risk/cache")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        verify(riskAssessmentCache, times(1)).evictAll();
+        verify(riskTable, times(1)).markAllStale();
+    }
+
+    @Test
+    void testGetStoredRisk_WhenStored_ShouldReturnAssessmentWithoutAssessing() {
+        // Arrange
+        StoredRiskAssessmentDTO stored = new StoredRiskAssessmentDTO(testAssessment,
+                Instant.parse("2024-05-02T09:30:00Z"), true);
+        when(riskTable.get("patient1")).thenReturn(Optional.of(stored));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/risk/table/patient1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(StoredRiskAssessmentDTO.class)
+                .isEqualTo(stored);
+
+        verifyNoInteractions(riskAssessmentService);
+    }
+
+    @Test
+    void testGetStoredRisk_WhenNeverAssessed_ShouldReturn404() {
+        // Arrange
+        when(riskTable.get("unknown")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/risk/table/unknown")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testGetStoredRisks_ShouldReturnStoredAssessments() {
+        // Arrange
+        StoredRiskAssessmentDTO stored = new StoredRiskAssessmentDTO(testAssessment,
+                Instant.parse("2024-05-02T09:30:00Z"), false);
+        when(riskTable.getAll(List.of("patient1", "unknown"))).thenReturn(List.of(stored));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/risk/table?patientIds=patient1,unknown")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(StoredRiskAssessmentDTO.class)
+                .hasSize(1)
+                .contains(stored);
+    }
+
+    @Test
+    void testGetCohortDistribution_ShouldUseCurrentThresholds() {
+        // Arrange
+        CohortDistributionDTO distribution = new CohortDistributionDTO(null, 1, 0, 5, new DiabetesThresholds(), List.of());
+        when(cohortAnalyticsService.distribution(5, new DiabetesThresholds())).thenReturn(Mono.just(distribution));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/risk/cohort/distribution?bandWidth=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.bandWidth").isEqualTo(5)
+                .jsonPath("$.thresholds.ageLimit").isEqualTo(30);
+    }
+
+    @Test
+    void testSimulateCohortDistribution_ShouldUseWhatIfThresholds() {
+        // Arrange
+        DiabetesThresholds whatIf = new DiabetesThresholds();
+        whatIf.setBorderline(3);
+        CohortDistributionDTO distribution = new CohortDistributionDTO(null, 1, 0, 10, whatIf, List.of());
+        when(cohortAnalyticsService.distribution(10, whatIf)).thenReturn(Mono.just(distribution));
+
+        // Act & Assert
+        webTestClient.post()
+                .uri("/api/risk/cohort/distribution")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"borderline\": 3}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.thresholds.borderline").isEqualTo(3)
+                .jsonPath("$.thresholds.inDanger").isEqualTo(6);
+    }
+
+    @Test
+    void testGetCohortDistribution_WhenSnapshotNotBuilt_ShouldReturn503() {
+        // Arrange
+        when(cohortAnalyticsService.distribution(10, new DiabetesThresholds()))
+                .thenReturn(Mono.error(new IllegalStateException("Cohort snapshot is not built yet")));
+
+        // Act & Assert
+        webTestClient.get()
+                .uri("/api/risk/cohort/distribution")
+                .exchange()
+                .expectStatus().isEqualTo(503);
+    }
+}
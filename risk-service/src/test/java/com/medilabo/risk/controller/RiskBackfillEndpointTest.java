@@ -0,0 +1,68 @@
+package com.medilabo.risk.controller;
+
+import com.medilabo.risk.dto.BackfillStatusDTO;
+import com.medilabo.risk.model.BackfillState;
+import com.medilabo.risk.service.RiskBackfillService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RiskBackfillEndpoint
+ */
+@ExtendWith(MockitoExtension.class)
+class RiskBackfillEndpointTest {
+
+    @Mock
+    private RiskBackfillService riskBackfillService;
+
+    @InjectMocks
+    private RiskBackfillEndpoint riskBackfillEndpoint;
+
+    @Test
+    void testStart_ShouldReturnStatus() {
+        // Arrange
+        BackfillStatusDTO status = status(BackfillState.RUNNING);
+        when(riskBackfillService.start(true)).thenReturn(status);
+
+        // Act
+        WebEndpointResponse<BackfillStatusDTO> response = riskBackfillEndpoint.start(true);
+
+        // Assert
+        assertEquals(WebEndpointResponse.STATUS_OK, response.getStatus());
+        assertSame(status, response.getBody());
+    }
+
+    @Test
+    void testStart_WhenAlreadyRunning_ShouldReturnConflict() {
+        // Arrange
+        BackfillStatusDTO status = status(BackfillState.RUNNING);
+        when(riskBackfillService.start(false)).thenThrow(new IllegalStateException("Risk backfill is already running"));
+        when(riskBackfillService.getStatus()).thenReturn(status);
+
+        // Act
+        WebEndpointResponse<BackfillStatusDTO> response = riskBackfillEndpoint.start(null);
+
+        // Assert
+        assertEquals(409, response.getStatus());
+        assertSame(status, response.getBody());
+    }
+
+    /**
+     * Helper method to create a status for testing
+     *
+     * @param state the backfill state
+     * @return the status DTO
+     */
+    private BackfillStatusDTO status(BackfillState state) {
+        BackfillStatusDTO status = new BackfillStatusDTO();
+        status.setState(state);
+        return status;
+    }
+}
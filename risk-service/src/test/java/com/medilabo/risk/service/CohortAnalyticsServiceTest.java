@@ -0,0 +1,214 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.CohortBucketDTO;
+import com.medilabo.risk.dto.CohortDistributionDTO;
+import com.medilabo.risk.dto.PatientDTO;
+import com.medilabo.risk.dto.PatientIdPageDTO;
+import com.medilabo.risk.model.DiabetesThresholds;
+import com.medilabo.risk.model.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CohortAnalyticsService
+ */
+@ExtendWith(MockitoExtension.class)
+class CohortAnalyticsServiceTest {
+
+    private static final TriggerDictionary DICTIONARY = TriggerDictionary.of(3, Arrays.asList(
+            "hemoglobin a1c", "microalbumin", "height", "weight", "smoker", "abnormal",
+            "cholesterol", "dizziness", "relapse", "reaction", "antibodies"));
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    @Mock
+    private RiskAssessmentService riskAssessmentService;
+
+    @Mock
+    private MicroserviceClientService microserviceClient;
+
+    @Mock
+    private TriggerDictionaryProvider triggerDictionaryProvider;
+
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @BeforeEach
+    void setUp() {
+        cohortAnalyticsService = new CohortAnalyticsService(riskAssessmentService, microserviceClient,
+                triggerDictionaryProvider, 2, 4);
+        lenient().when(microserviceClient.getPatientIdPages(anyString(), anyInt())).thenCallRealMethod();
+    }
+
+    @Test
+    void testRefresh_ShouldBuildSnapshotOfEveryReachablePatient() {
+        // Arrange
+        when(triggerDictionaryProvider.current()).thenReturn(DICTIONARY);
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("1", "2"), 3)));
+        when(microserviceClient.getPatientIds("2", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("3"), 3)));
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(patient("1", LocalDate.of(1980, 5, 1), "M")));
+        when(microserviceClient.getPatient("2")).thenReturn(Mono.error(new RuntimeException("Unable to fetch patient")));
+        when(microserviceClient.getPatient("3")).thenReturn(Mono.just(patient("3", LocalDate.of(2001, 1, 1), "F")));
+        when(riskAssessmentService.findTriggers(anyString(), eq(DICTIONARY))).thenReturn(Mono.just(0b1011L));
+
+        // Act
+        cohortAnalyticsService.refresh().block();
+
+        // Assert
+        CohortSnapshot snapshot = cohortAnalyticsService.getSnapshot().orElseThrow();
+        assertEquals(2, snapshot.getSize());
+        assertEquals(3, snapshot.getDictionaryVersion());
+        int male = snapshot.isMale(0) ? 0 : 1;
+        assertEquals(LocalDate.of(1980, 5, 1).toEpochDay(), snapshot.birthEpochDay(male));
+        assertFalse(snapshot.isMale(1 - male));
+        assertEquals(0b1011L, snapshot.triggerMask(1 - male));
+    }
+
+    @Test
+    void testRefresh_WhenPatientIdsUnavailable_ShouldKeepPreviousSnapshot() {
+        // Arrange
+        when(triggerDictionaryProvider.current()).thenReturn(DICTIONARY);
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(Mono.error(new RuntimeException("Connection refused")));
+
+        // Act
+        cohortAnalyticsService.refresh().block();
+
+        // Assert
+        assertTrue(cohortAnalyticsService.getSnapshot().isEmpty());
+        StepVerifier.create(Mono.defer(() -> cohortAnalyticsService.distribution(10, new DiabetesThresholds())))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void testScheduleRefresh_ShouldNotBlockNorOverlap() {
+        // Arrange: the patient list never answers
+        Sinks.One<PatientIdPageDTO> page = Sinks.one();
+        when(triggerDictionaryProvider.current()).thenReturn(DICTIONARY);
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(page.asMono());
+
+        // Act
+        cohortAnalyticsService.scheduleRefresh();
+        cohortAnalyticsService.scheduleRefresh();
+
+        // Assert: both calls returned, and only one rebuild was started
+        verify(microserviceClient, times(1)).getPatientIds("0", 2);
+        page.tryEmitValue(new PatientIdPageDTO(List.of(), 0));
+        assertEquals(0, cohortAnalyticsService.getSnapshot().orElseThrow().getSize());
+    }
+
+    @Test
+    void testDistribution_ShouldCountRiskLevelsByAgeBandAndGender() {
+        // Arrange: ages 25, 25, 35, 35 and 61
+        CohortSnapshot snapshot = CohortSnapshot.builder(3)
+                .add(TODAY.minusYears(25), true, mask(3))
+                .add(TODAY.minusYears(25).plusDays(1), true, mask(1))
+                .add(TODAY.minusYears(35), false, mask(2))
+                .add(TODAY.minusYears(35), false, mask(6))
+                .add(TODAY.minusYears(61), true, mask(8))
+                .build();
+
+        // Act
+        CohortDistributionDTO distribution = cohortAnalyticsService.distribution(snapshot, TODAY, 10,
+                new DiabetesThresholds());
+
+        // Assert
+        assertEquals(5, distribution.getPatientCount());
+        assertEquals(3, distribution.getBuckets().size());
+        assertBucket(distribution.getBuckets().get(0), 20, "M", Map.of(RiskLevel.NONE, 1L, RiskLevel.IN_DANGER, 1L));
+        assertBucket(distribution.getBuckets().get(1), 30, "F", Map.of(RiskLevel.BORDERLINE, 1L, RiskLevel.IN_DANGER, 1L));
+        assertBucket(distribution.getBuckets().get(2), 60, "M", Map.of(RiskLevel.EARLY_ONSET, 1L));
+    }
+
+    @Test
+    void testDistribution_WithWhatIfThresholds_ShouldReassessEveryPatient() {
+        // Arrange
+        CohortSnapshot snapshot = CohortSnapshot.builder(3)
+                .add(TODAY.minusYears(35), false, mask(2))
+                .add(TODAY.minusYears(45), false, mask(3))
+                .build();
+        DiabetesThresholds whatIf = new DiabetesThresholds();
+        whatIf.setBorderline(3);
+
+        // Act
+        CohortDistributionDTO distribution = cohortAnalyticsService.distribution(snapshot, TODAY, 100, whatIf);
+
+        // Assert
+        assertBucket(distribution.getBuckets().get(0), 0, "F", Map.of(RiskLevel.NONE, 1L, RiskLevel.BORDERLINE, 1L));
+        assertEquals(3, distribution.getThresholds().getBorderline());
+    }
+
+    @Test
+    void testDistribution_InParallel_ShouldMatchPerPatientAssessment() {
+        // Arrange: enough rows to be split across the fork-join pool, leap day births included
+        Random random = new Random(7);
+        DiabetesRiskCondition diabetes = new DiabetesRiskCondition(triggerDictionaryProvider);
+        CohortSnapshot.Builder builder = CohortSnapshot.builder(3);
+        long[][] expected = new long[CohortAnalyticsService.MAX_AGE / 5 + 1][RiskLevel.values().length * 2];
+        for (int i = 0; i < 50_000; i++) {
+            LocalDate birthDate = i % 100 == 0
+                    ? LocalDate.of(1960 + 4 * random.nextInt(15), 2, 29)
+                    : TODAY.minusDays(random.nextInt(100 * 365));
+            boolean male = random.nextBoolean();
+            long mask = random.nextLong() & 0x7FF;
+            builder.add(birthDate, male, mask);
+            int age = Period.between(birthDate, TODAY).getYears();
+            RiskLevel level = diabetes.assess(age, male ? "M" : "F", Long.bitCount(mask));
+            expected[age / 5][(male ? RiskLevel.values().length : 0) + level.ordinal()]++;
+        }
+
+        // Act
+        CohortDistributionDTO distribution = cohortAnalyticsService.distribution(builder.build(), TODAY, 5,
+                new DiabetesThresholds());
+
+        // Assert
+        assertEquals(50_000, distribution.getBuckets().stream().mapToLong(CohortBucketDTO::getPatientCount).sum());
+        for (CohortBucketDTO bucket : distribution.getBuckets()) {
+            int offset = "M".equals(bucket.getGender()) ? RiskLevel.values().length : 0;
+            for (RiskLevel level : RiskLevel.values()) {
+                assertEquals(expected[bucket.getMinAge() / 5][offset + level.ordinal()], bucket.getRiskLevels().get(level),
+                        "Unexpected count for " + bucket);
+            }
+        }
+    }
+
+    private static void assertBucket(CohortBucketDTO bucket, int minAge, String gender, Map<RiskLevel, Long> counts) {
+        Map<RiskLevel, Long> expected = new EnumMap<>(RiskLevel.class);
+        for (RiskLevel level : RiskLevel.values()) {
+            expected.put(level, counts.getOrDefault(level, 0L));
+        }
+        assertEquals(minAge, bucket.getMinAge());
+        assertEquals(gender, bucket.getGender());
+        assertEquals(expected, bucket.getRiskLevels());
+    }
+
+    private static long mask(int triggerCount) {
+        return (1L << triggerCount) - 1;
+    }
+
+    private static PatientDTO patient(String id, LocalDate birthDate, String gender) {
+        PatientDTO patient = new PatientDTO();
+        patient.setId(id);
+        patient.setFirstName("Test");
+        patient.setLastName("Patient");
+        patient.setBirthDate(birthDate);
+        patient.setGender(gender);
+        return patient;
+    }
+}
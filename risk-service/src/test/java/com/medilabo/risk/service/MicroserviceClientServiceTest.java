@@ -0,0 +1,115 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.config.DownstreamProperties;
+import com.medilabo.risk.dto.PatientDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MicroserviceClientService
+ */
+class MicroserviceClientServiceTest {
+
+    private final List<Sinks.One<ClientResponse>> responses = new CopyOnWriteArrayList<>();
+
+    private RiskAssessmentCache riskAssessmentCache;
+
+    private MicroserviceClientService microserviceClient;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    Sinks.One<ClientResponse> response = Sinks.one();
+                    responses.add(response);
+                    return response.asMono();
+                })
+                .build();
+        riskAssessmentCache = new RiskAssessmentCache(100, Duration.ofMinutes(10), true, meterRegistry);
+        microserviceClient = new MicroserviceClientService(webClient, webClient, new DownstreamProperties(),
+                riskAssessmentCache, meterRegistry);
+    }
+
+    @Test
+    void testGetPatient_WhenCallInFlight_ShouldShareIt() {
+        // Arrange
+        Mono<List<PatientDTO>> both = Mono.zip(microserviceClient.getPatient("1"),
+                microserviceClient.getPatient("1"), List::of);
+
+        // Act & Assert
+        StepVerifier.create(both)
+                .then(() -> respond(0, "Before"))
+                .assertNext(patients -> {
+                    assertEquals("Before", patients.get(0).getLastName());
+                    assertEquals("Before", patients.get(1).getLastName());
+                })
+                .verifyComplete();
+        assertEquals(1, responses.size());
+    }
+
+    @Test
+    void testGetPatient_WhenEvictedDuringCall_ShouldNotShareIt() {
+        // Arrange
+        Mono<PatientDTO> beforeChange = microserviceClient.getPatient("1");
+        Mono<PatientDTO> afterChange = microserviceClient.getPatient("1");
+
+        // Act & Assert
+        StepVerifier.create(Mono.zip(beforeChange, Mono.defer(() -> {
+                            // The patient changes while the first call is in flight
+                            riskAssessmentCache.evict("1");
+                            return afterChange;
+                        }), List::of))
+                .then(() -> assertEquals(2, responses.size()))
+                .then(() -> respond(0, "Before"))
+                .then(() -> respond(1, "After"))
+                .assertNext(patients -> {
+                    assertEquals("Before", patients.get(0).getLastName());
+                    assertEquals("After", patients.get(1).getLastName());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testWithDeadline_ShouldBoundWholeStreamNotEachElement() {
+        // Act & Assert: an element every 10 seconds never idles for long, but the stream outlasts its deadline
+        StepVerifier.withVirtualTime(() -> Flux.interval(Duration.ofSeconds(10))
+                        .transform(MicroserviceClientService.withDeadline(Duration.ofSeconds(25))))
+                .expectSubscription()
+                .thenAwait(Duration.ofSeconds(20))
+                .expectNext(0L, 1L)
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(TimeoutException.class)
+                .verify();
+    }
+
+    /**
+     * Helper method to answer a pending downstream call with a patient
+     *
+     * @param call the index of the call
+     * @param lastName the last name of the patient
+     */
+    private void respond(int call, String lastName) {
+        responses.get(call).tryEmitValue(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"id\":\"1\",\"lastName\":\"" + lastName + "\"}")
+                .build());
+    }
+}
@@ -0,0 +1,129 @@
+package com.medilabo.risk.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.risk.dto.NoteContentDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NoteContentByteScanner
+ */
+class NoteContentByteScannerTest {
+
+    private final TriggerMatcher matcher = TriggerMatcher.compile(Arrays.asList(
+            "hemoglobin a1c",
+            "microalbumin",
+            "height",
+            "weight",
+            "smoker",
+            "abnormal",
+            "cholesterol",
+            "dizziness",
+            "relapse",
+            "reaction",
+            "antibodies",
+            "content"
+    ));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testScan_ShouldMatchLikeDecodedNotesWhereverTheStreamIsSplit() throws JsonProcessingException {
+        // Arrange
+        List<String> notes = List.of(
+                "Patient is a \"SMOKER\", HbA1c: Hemoglobin A1C",
+                "Dizzi\nness and réaction noted\tafter relapse",
+                "Café visit, weight ok");
+        byte[] stream = ndjson(notes);
+        long expected = matcher.scan(notes);
+
+        for (int split = 0; split <= stream.length; split++) {
+            NoteContentByteScanner scanner = new NoteContentByteScanner(matcher);
+
+            // Act
+            scanner.scan(buffer(Arrays.copyOfRange(stream, 0, split)));
+            long found = scanner.scan(buffer(Arrays.copyOfRange(stream, split, stream.length)));
+
+            // Assert
+            assertEquals(matcher.triggersIn(expected), matcher.triggersIn(found), "Split at byte " + split);
+        }
+    }
+
+    @Test
+    void testScan_ShouldIgnoreFieldNames() throws JsonProcessingException {
+        // Arrange
+        NoteContentByteScanner scanner = new NoteContentByteScanner(matcher);
+
+        // Act
+        long found = scanner.scan(buffer(ndjson(List.of("Patient reports feeling well"))));
+
+        // Assert
+        assertEquals(0L, found);
+    }
+
+    @Test
+    void testScan_ShouldNotMatchAcrossNotes() throws JsonProcessingException {
+        // Arrange
+        NoteContentByteScanner scanner = new NoteContentByteScanner(matcher);
+
+        // Act
+        long found = scanner.scan(buffer(ndjson(List.of("Patient is a smo", "ker"))));
+
+        // Assert
+        assertEquals(0L, found);
+    }
+
+    @Test
+    void testScan_ShouldTreatEscapedControlCharactersAsSeparators() {
+        // Arrange
+        NoteContentByteScanner scanner = new NoteContentByteScanner(matcher);
+
+        // Act
+        long found = scanner.scan(buffer("{\"content\":\"Chronic\\reaction to diet\"}\n".getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(0L, found);
+    }
+
+    @Test
+    void testConstructor_WithNonAsciiTriggers_ShouldThrowException() {
+        // Arrange
+        TriggerMatcher nonAscii = TriggerMatcher.compile(List.of("réaction"));
+
+        // Act & Assert
+        assertFalse(nonAscii.isAscii());
+        assertThrows(IllegalArgumentException.class, () -> new NoteContentByteScanner(nonAscii));
+    }
+
+    /**
+     * Helper method to serialize notes the way note-service streams them
+     *
+     * @param notes the note contents
+     * @return the NDJSON bytes
+     */
+    private byte[] ndjson(List<String> notes) throws JsonProcessingException {
+        StringBuilder lines = new StringBuilder();
+        for (String note : notes) {
+            lines.append(objectMapper.writeValueAsString(new NoteContentDTO(note))).append('\n');
+        }
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Helper method to wrap bytes in a buffer
+     *
+     * @param bytes the bytes
+     * @return the buffer
+     */
+    private DataBuffer buffer(byte[] bytes) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+    }
+}
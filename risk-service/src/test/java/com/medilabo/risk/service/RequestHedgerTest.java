@@ -0,0 +1,138 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.config.DownstreamProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RequestHedger
+ */
+class RequestHedgerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DownstreamProperties.Hedging settings;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        settings = new DownstreamProperties.Hedging();
+        settings.setEnabled(true);
+        settings.setInitialDelay(Duration.ofMillis(50));
+        settings.setBudgetRatio(1.0);
+    }
+
+    @Test
+    void testMono_WhenPrimaryIsSlow_ShouldSendHedgeAndTakeFirstAnswer() {
+        // Arrange: the first call is slow, the hedge answers immediately
+        RequestHedger hedger = new RequestHedger("notes", settings, meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        long start = System.nanoTime();
+        String result = hedger.mono(() -> calls.incrementAndGet() == 1
+                ? Mono.just("primary").delayElement(Duration.ofSeconds(2))
+                : Mono.just("hedge")).block();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Assert
+        assertEquals("hedge", result);
+        assertEquals(2, calls.get());
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(1)) < 0, "Hedge should answer first, took " + elapsed);
+        assertEquals(1.0, meterRegistry.get("risk.downstream.hedges.won").counter().count());
+    }
+
+    @Test
+    void testMono_WhenPrimaryIsFast_ShouldNotSendHedge() {
+        // Arrange
+        RequestHedger hedger = new RequestHedger("notes", settings, meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        String result = hedger.mono(() -> {
+            calls.incrementAndGet();
+            return Mono.just("primary");
+        }).block();
+
+        // Assert
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+        assertEquals(0.0, meterRegistry.get("risk.downstream.hedges").counter().count());
+    }
+
+    @Test
+    void testMono_WhenBudgetExhausted_ShouldNotSendHedge() {
+        // Arrange
+        settings.setBudgetRatio(0.0);
+        RequestHedger hedger = new RequestHedger("notes", settings, meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        String result = hedger.mono(() -> {
+            calls.incrementAndGet();
+            return Mono.just("primary").delayElement(Duration.ofMillis(150));
+        }).block();
+
+        // Assert
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("risk.downstream.hedges.skipped").counter().count());
+    }
+
+    @Test
+    void testMono_WhenHedgeFails_ShouldWaitForPrimary() {
+        // Arrange
+        RequestHedger hedger = new RequestHedger("notes", settings, meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act & Assert
+        StepVerifier.create(hedger.mono(() -> calls.incrementAndGet() == 1
+                        ? Mono.just("primary").delayElement(Duration.ofMillis(200))
+                        : Mono.<String>error(new RuntimeException("Connection reset"))))
+                .expectNext("primary")
+                .verifyComplete();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testMono_WhenDisabled_ShouldOnlyCallOnce() {
+        // Arrange
+        settings.setEnabled(false);
+        RequestHedger hedger = new RequestHedger("notes", settings, meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        String result = hedger.mono(() -> {
+            calls.incrementAndGet();
+            return Mono.just("primary").delayElement(Duration.ofMillis(150));
+        }).block();
+
+        // Assert
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testRecordLatency_ShouldDelayHedgesUntilConfiguredPercentile() {
+        // Arrange
+        settings.setSampleSize(100);
+        settings.setPercentile(0.9);
+        RequestHedger hedger = new RequestHedger("notes", settings, meterRegistry);
+
+        // Act
+        for (int i = 1; i <= 128; i++) {
+            hedger.recordLatency(Duration.ofMillis(i % 100 + 1).toNanos());
+        }
+
+        // Assert
+        assertEquals(Duration.ofMillis(90), hedger.currentDelay());
+    }
+}
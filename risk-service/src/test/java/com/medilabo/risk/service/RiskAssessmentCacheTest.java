@@ -0,0 +1,126 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.model.RiskLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RiskAssessmentCache
+ */
+class RiskAssessmentCacheTest {
+
+    private RiskAssessmentCache cache;
+
+    private RiskAssessmentDTO assessment;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RiskAssessmentCache(100, Duration.ofMinutes(10), true, new SimpleMeterRegistry());
+        assessment = new RiskAssessmentDTO("1", "Lucas Ferguson", 40, "M", RiskLevel.BORDERLINE, 3, false,
+                "Patient: Lucas Ferguson (age 40) diabetes assessment is Borderline", 1);
+    }
+
+    @Test
+    void testPutAndGet_ShouldReturnCachedAssessment() {
+        // Act
+        cache.put(assessment, LocalDate.now().minusYears(40).minusMonths(6), cache.generation("1"));
+
+        // Assert
+        assertSame(assessment, cache.get("1").orElseThrow());
+    }
+
+    @Test
+    void testEvict_ShouldRemoveAssessment() {
+        // Arrange
+        cache.put(assessment, LocalDate.now().minusYears(40).minusMonths(6), cache.generation("1"));
+
+        // Act
+        cache.evict("1");
+
+        // Assert
+        assertTrue(cache.get("1").isEmpty());
+    }
+
+    @Test
+    void testPut_AfterEvictionDuringComputation_ShouldNotCache() {
+        // Arrange: the assessment was computed from data read before an eviction
+        long generation = cache.generation("1");
+        cache.evict("1");
+
+        // Act
+        cache.put(assessment, LocalDate.now().minusYears(40).minusMonths(6), generation);
+
+        // Assert
+        assertTrue(cache.get("1").isEmpty());
+    }
+
+    @Test
+    void testPut_AfterEvictionOfAnotherPatient_ShouldCache() {
+        // Arrange
+        long generation = cache.generation("1");
+        cache.evict("2");
+
+        // Act
+        cache.put(assessment, LocalDate.now().minusYears(40).minusMonths(6), generation);
+
+        // Assert
+        assertSame(assessment, cache.get("1").orElseThrow());
+    }
+
+    @Test
+    void testPut_AfterEvictAllDuringComputation_ShouldNotCache() {
+        // Arrange
+        long generation = cache.generation("1");
+        cache.evictAll();
+
+        // Act
+        cache.put(assessment, LocalDate.now().minusYears(40).minusMonths(6), generation);
+
+        // Assert
+        assertTrue(cache.get("1").isEmpty());
+    }
+
+    @Test
+    void testLifetime_ShouldBeCappedAtThirtiethBirthday() {
+        // Arrange: patient turns 30 at the next midnight
+        ZonedDateTime now = ZonedDateTime.of(2026, 3, 14, 23, 55, 0, 0, ZoneOffset.UTC);
+        LocalDate birthDate = LocalDate.of(1996, 3, 15);
+
+        // Act
+        Duration lifetime = cache.lifetime(birthDate, now);
+
+        // Assert
+        assertEquals(Duration.ofMinutes(5), lifetime);
+    }
+
+    @Test
+    void testLifetime_FarFromBirthday_ShouldUseTtl() {
+        // Arrange
+        ZonedDateTime now = ZonedDateTime.of(2026, 3, 14, 12, 0, 0, 0, ZoneOffset.UTC);
+        LocalDate birthDate = LocalDate.of(1996, 9, 1);
+
+        // Act & Assert
+        assertEquals(Duration.ofMinutes(10), cache.lifetime(birthDate, now));
+    }
+
+    @Test
+    void testDisabledCache_ShouldNeverReturnAssessment() {
+        // Arrange
+        RiskAssessmentCache disabled = new RiskAssessmentCache(100, Duration.ofMinutes(10), false, new SimpleMeterRegistry());
+
+        // Act
+        disabled.put(assessment, LocalDate.now().minusYears(40).minusMonths(6), disabled.generation("1"));
+
+        // Assert
+        assertTrue(disabled.get("1").isEmpty());
+    }
+}
@@ -1,22 +1,36 @@
 package com.medilabo.risk.service;
 
-import com.medilabo.risk.dto.NoteDTO;
+import com.medilabo.risk.config.RiskConditionProperties;
+import com.medilabo.risk.dto.ConditionAssessmentDTO;
+import com.medilabo.risk.dto.MultiConditionAssessmentDTO;
 import com.medilabo.risk.dto.PatientDTO;
 import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.dto.TriggerMaskDTO;
 import com.medilabo.risk.model.RiskLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,9 +42,25 @@ class RiskAssessmentServiceTest {
     @Mock
     private MicroserviceClientService microserviceClient;
 
-    @InjectMocks
+    @Mock
+    private RiskAssessmentCache riskAssessmentCache;
+
+    @Mock
+    private TriggerDictionaryProvider triggerDictionaryProvider;
+
+    @Mock
+    private RiskTableStore riskTable;
+
+    private DiabetesRiskCondition diabetesCondition;
+
+    private RiskConditionRegistry conditionRegistry;
+
     private RiskAssessmentService riskAssessmentService;
 
+    private static final TriggerDictionary DICTIONARY = TriggerDictionary.of(3, Arrays.asList(
+            "hemoglobin a1c", "microalbumin", "height", "weight", "smoker", "abnormal",
+            "cholesterol", "dizziness", "relapse", "reaction", "antibodies"));
+
     private PatientDTO youngMalePatient;
     private PatientDTO youngFemalePatient;
     private PatientDTO olderMalePatient;
@@ -38,6 +68,21 @@ class RiskAssessmentServiceTest {
 
     @BeforeEach
     void setUp() {
+        RiskConditionProperties.Definition hypertension = new RiskConditionProperties.Definition();
+        hypertension.setTriggers(List.of("hypertension", "blood pressure", "smoker"));
+        hypertension.setBorderline(1);
+        hypertension.setInDanger(2);
+        hypertension.setEarlyOnset(3);
+        RiskConditionProperties conditionProperties = new RiskConditionProperties();
+        conditionProperties.getConditions().put("hypertension", hypertension);
+        lenient().when(triggerDictionaryProvider.current()).thenReturn(DICTIONARY);
+        diabetesCondition = new DiabetesRiskCondition(triggerDictionaryProvider);
+        conditionRegistry = new RiskConditionRegistry(List.of(diabetesCondition), conditionProperties);
+
+        riskAssessmentService = new RiskAssessmentService(microserviceClient, riskAssessmentCache,
+                triggerDictionaryProvider, diabetesCondition, conditionRegistry, riskTable, false,
+                new SimpleMeterRegistry());
+
         // Male patient < 30 years
         youngMalePatient = new PatientDTO();
         youngMalePatient.setId("1");
@@ -69,37 +114,40 @@ class RiskAssessmentServiceTest {
         olderFemalePatient.setLastName("Clark");
         olderFemalePatient.setBirthDate(LocalDate.now().minusYears(52));
         olderFemalePatient.setGender("F");
+
+        // No stored trigger masks unless a test provides them, so notes are scanned
+        lenient().when(microserviceClient.getPatientTriggerMask(anyString())).thenReturn(Mono.empty());
     }
 
     @Test
     void testNoneRisk_NoTriggers() {
         // Arrange
-        when(microserviceClient.getPatient("1")).thenReturn(youngMalePatient);
-        when(microserviceClient.getPatientNotes("1")).thenReturn(List.of());
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientNoteContents("1")).thenReturn(Flux.empty());
 
         // Act
-        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1");
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1").block();
 
         // Assert
         assertNotNull(result);
         assertEquals(RiskLevel.NONE, result.getRiskLevel());
         assertEquals(0, result.getTriggerCount());
         verify(microserviceClient).getPatient("1");
-        verify(microserviceClient).getPatientNotes("1");
+        verify(microserviceClient).getPatientNoteContents("1");
     }
 
     @Test
     void testBorderlineRisk_OlderPatient_2Triggers() {
         // Arrange
-        List<NoteDTO> notes = Arrays.asList(
-            createNote("3", "Patient reports: Hemoglobin A1C levels slightly elevated"),
-            createNote("3", "Patient has high Cholesterol")
+        List<String> notes = Arrays.asList(
+            "Patient reports: Hemoglobin A1C levels slightly elevated",
+            "Patient has high Cholesterol"
         );
-        when(microserviceClient.getPatient("3")).thenReturn(olderMalePatient);
-        when(microserviceClient.getPatientNotes("3")).thenReturn(notes);
+        when(microserviceClient.getPatient("3")).thenReturn(Mono.just(olderMalePatient));
+        when(microserviceClient.getPatientNoteContents("3")).thenReturn(Flux.fromIterable(notes));
 
         // Act
-        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("3");
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("3").block();
 
         // Assert
         assertNotNull(result);
@@ -110,16 +158,16 @@ class RiskAssessmentServiceTest {
     @Test
     void testInDangerRisk_YoungMale_3Triggers() {
         // Arrange
-        List<NoteDTO> notes = Arrays.asList(
-            createNote("1", "Patient is Smoker"),
-            createNote("1", "Height: 180cm"),
-            createNote("1", "Cholesterol levels are concerning")
+        List<String> notes = Arrays.asList(
+            "Patient is Smoker",
+            "Height: 180cm",
+            "Cholesterol levels are concerning"
         );
-        when(microserviceClient.getPatient("1")).thenReturn(youngMalePatient);
-        when(microserviceClient.getPatientNotes("1")).thenReturn(notes);
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientNoteContents("1")).thenReturn(Flux.fromIterable(notes));
 
         // Act
-        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1");
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1").block();
 
         // Assert
         assertNotNull(result);
@@ -130,17 +178,17 @@ class RiskAssessmentServiceTest {
     @Test
     void testInDangerRisk_YoungFemale_4Triggers() {
         // Arrange
-        List<NoteDTO> notes = Arrays.asList(
-            createNote("2", "Patient has Hemoglobin A1C issue"),
-            createNote("2", "Smoker, needs to quit"),
-            createNote("2", "Abnormal test results"),
-            createNote("2", "Cholesterol level high")
+        List<String> notes = Arrays.asList(
+            "Patient has Hemoglobin A1C issue",
+            "Smoker, needs to quit",
+            "Abnormal test results",
+            "Cholesterol level high"
         );
-        when(microserviceClient.getPatient("2")).thenReturn(youngFemalePatient);
-        when(microserviceClient.getPatientNotes("2")).thenReturn(notes);
+        when(microserviceClient.getPatient("2")).thenReturn(Mono.just(youngFemalePatient));
+        when(microserviceClient.getPatientNoteContents("2")).thenReturn(Flux.fromIterable(notes));
 
         // Act
-        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("2");
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("2").block();
 
         // Assert
         assertNotNull(result);
@@ -151,16 +199,16 @@ class RiskAssessmentServiceTest {
     @Test
     void testEarlyOnsetRisk_YoungMale_5Triggers() {
         // Arrange
-        List<NoteDTO> notes = Arrays.asList(
-            createNote("1", "Hemoglobin A1C elevated, Microalbumin detected"),
-            createNote("1", "Patient is Smoker, Height: 180cm, Weight: 95kg"),
-            createNote("1", "Cholesterol levels are Abnormal")
+        List<String> notes = Arrays.asList(
+            "Hemoglobin A1C elevated, Microalbumin detected",
+            "Patient is Smoker, Height: 180cm, Weight: 95kg",
+            "Cholesterol levels are Abnormal"
         );
-        when(microserviceClient.getPatient("1")).thenReturn(youngMalePatient);
-        when(microserviceClient.getPatientNotes("1")).thenReturn(notes);
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientNoteContents("1")).thenReturn(Flux.fromIterable(notes));
 
         // Act
-        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1");
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1").block();
 
         // Assert
         assertNotNull(result);
@@ -171,17 +219,17 @@ class RiskAssessmentServiceTest {
     @Test
     void testEarlyOnsetRisk_OlderPatient_8Triggers() {
         // Arrange
-        List<NoteDTO> notes = Arrays.asList(
-            createNote("4", "Hemoglobin A1C, Microalbumin, Height, Weight issues"),
-            createNote("4", "Smoker, Abnormal results"),
-            createNote("4", "Cholesterol, Dizziness reported"),
-            createNote("4", "Relapse noted, Reaction observed")
+        List<String> notes = Arrays.asList(
+            "Hemoglobin A1C, Microalbumin, Height, Weight issues",
+            "Smoker, Abnormal results",
+            "Cholesterol, Dizziness reported",
+            "Relapse noted, Reaction observed"
         );
-        when(microserviceClient.getPatient("4")).thenReturn(olderFemalePatient);
-        when(microserviceClient.getPatientNotes("4")).thenReturn(notes);
+        when(microserviceClient.getPatient("4")).thenReturn(Mono.just(olderFemalePatient));
+        when(microserviceClient.getPatientNoteContents("4")).thenReturn(Flux.fromIterable(notes));
 
         // Act
-        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("4");
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("4").block();
 
         // Assert
         assertNotNull(result);
@@ -192,29 +240,277 @@ class RiskAssessmentServiceTest {
     @Test
     void testPatientNotFound_ThrowsException() {
         // Arrange
-        when(microserviceClient.getPatient("999")).thenThrow(new RuntimeException("Patient not found"));
+        when(microserviceClient.getPatient("999")).thenReturn(Mono.error(new RuntimeException("Patient not found")));
+        when(microserviceClient.getPatientNoteContents("999")).thenReturn(Flux.never());
 
         // Act & Assert
-        assertThrows(RuntimeException.class, () -> {
-            riskAssessmentService.assessDiabetesRisk("999");
-        });
-    }
-
-    /**
-     * Helper method to create a note for testing
-     *
-     * @param patientId the patient ID
-     * @param content the note content
-     * @return the created note DTO
-     */
-    private NoteDTO createNote(String patientId, String content) {
-        NoteDTO note = new NoteDTO();
-        note.setId("note-" + System.nanoTime());
-        note.setPatientId(patientId);
-        note.setContent(content);
-        note.setCreatedAt(LocalDateTime.now());
-        note.setAuthorName("Dr. Smith");
-        return note;
+        StepVerifier.create(riskAssessmentService.assessDiabetesRisk("999"))
+                .expectError(RuntimeException.class)
+                .verify();
+    }
+
+    @Test
+    void testPatientMissing_CancelsNotesFetch() {
+        // Arrange
+        PublisherProbe<String> notesProbe = PublisherProbe.of(Flux.never());
+        when(microserviceClient.getPatient("999")).thenReturn(Mono.<PatientDTO>empty().delaySubscription(Duration.ofMillis(50)));
+        when(microserviceClient.getPatientNoteContents("999")).thenReturn(notesProbe.flux());
+
+        // Act & Assert
+        StepVerifier.create(riskAssessmentService.assessDiabetesRisk("999"))
+                .expectErrorMessage("Patient not found with ID: 999")
+                .verify();
+        notesProbe.assertWasSubscribed();
+        notesProbe.assertWasCancelled();
+    }
+
+    @Test
+    void testHighestRiskReached_CancelsRemainingNotes() {
+        // Arrange
+        PublisherProbe<String> notesProbe = PublisherProbe.of(Flux.concat(
+                Flux.just("Smoker, abnormal cholesterol", "Height and weight measured"),
+                Flux.never()));
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientNoteContents("1")).thenReturn(notesProbe.flux());
+
+        // Act & Assert
+        StepVerifier.create(riskAssessmentService.assessDiabetesRisk("1"))
+                .assertNext(result -> {
+                    assertEquals(RiskLevel.EARLY_ONSET, result.getRiskLevel());
+                    assertEquals(5, result.getTriggerCount());
+                    assertTrue(result.isPartialTriggerCount());
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        notesProbe.assertWasCancelled();
+    }
+
+    @Test
+    void testHighestRiskNotReached_ReadsAllNotes() {
+        // Arrange
+        when(microserviceClient.getPatient("4")).thenReturn(Mono.just(olderFemalePatient));
+        when(microserviceClient.getPatientNoteContents("4"))
+                .thenReturn(Flux.just("Smoker, abnormal cholesterol", "Height and weight measured"));
+
+        // Act
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("4").block();
+
+        // Assert
+        assertEquals(RiskLevel.BORDERLINE, result.getRiskLevel());
+        assertEquals(5, result.getTriggerCount());
+        assertFalse(result.isPartialTriggerCount());
+    }
+
+    @Test
+    void testByteScanning_MatchesTriggersAcrossBufferBoundaries() {
+        // Arrange
+        RiskAssessmentService byteScanningService = new RiskAssessmentService(microserviceClient, riskAssessmentCache,
+                triggerDictionaryProvider, diabetesCondition, conditionRegistry, riskTable, true,
+                new SimpleMeterRegistry());
+        DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+        when(microserviceClient.getPatient("3")).thenReturn(Mono.just(olderMalePatient));
+        when(microserviceClient.getPatientNoteContentBuffers("3")).thenReturn(Flux.just(
+                bufferFactory.wrap("{\"content\":\"Patient is a Smo".getBytes(StandardCharsets.UTF_8)),
+                bufferFactory.wrap("KER\"}\n{\"content\":\"High cholesterol\"}\n".getBytes(StandardCharsets.UTF_8))));
+
+        // Act
+        RiskAssessmentDTO result = byteScanningService.assessDiabetesRisk("3").block();
+
+        // Assert
+        assertEquals(RiskLevel.BORDERLINE, result.getRiskLevel());
+        assertEquals(2, result.getTriggerCount());
+        verify(microserviceClient, never()).getPatientNoteContents("3");
+    }
+
+    @Test
+    void testByteScanning_ConcurrentAssessments_ShareOneNoteCall() {
+        // Arrange
+        RiskAssessmentService byteScanningService = new RiskAssessmentService(microserviceClient, riskAssessmentCache,
+                triggerDictionaryProvider, diabetesCondition, conditionRegistry, riskTable, true,
+                new SimpleMeterRegistry());
+        DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+        when(microserviceClient.getPatient("3")).thenReturn(Mono.just(olderMalePatient));
+        when(microserviceClient.getPatientNoteContentBuffers("3")).thenReturn(Flux.<DataBuffer>just(
+                        bufferFactory.wrap("{\"content\":\"Smoker, high cholesterol\"}\n".getBytes(StandardCharsets.UTF_8)))
+                .delaySubscription(Duration.ofMillis(50)));
+
+        // Act
+        List<RiskAssessmentDTO> results = Mono.zip(byteScanningService.refreshDiabetesRisk("3"),
+                byteScanningService.refreshDiabetesRisk("3"), List::of).block();
+
+        // Assert
+        assertEquals(2, results.get(0).getTriggerCount());
+        assertEquals(2, results.get(1).getTriggerCount());
+        verify(microserviceClient, times(1)).getPatientNoteContentBuffers("3");
+    }
+
+    @Test
+    void testAssessConditions_ScansNotesOnceForAllConditions() {
+        // Arrange
+        when(microserviceClient.getPatient("3")).thenReturn(Mono.just(olderMalePatient));
+        when(microserviceClient.getPatientNoteContents("3"))
+                .thenReturn(Flux.just("Smoker with high blood pressure", "Cholesterol is abnormal"));
+
+        // Act
+        MultiConditionAssessmentDTO result = riskAssessmentService.assessConditions("3").block();
+
+        // Assert
+        assertEquals("Edward Arnold", result.getPatientName());
+        assertEquals(List.of(
+                new ConditionAssessmentDTO("diabetes", RiskLevel.BORDERLINE, 3, false),
+                new ConditionAssessmentDTO("hypertension", RiskLevel.IN_DANGER, 2, false)), result.getConditions());
+        verify(microserviceClient, times(1)).getPatientNoteContents("3");
+        verify(microserviceClient, never()).getPatientTriggerMask("3");
+    }
+
+    @Test
+    void testAssessConditions_WhenEveryConditionIsSettled_CancelsRemainingNotes() {
+        // Arrange
+        PublisherProbe<String> notesProbe = PublisherProbe.of(Flux.concat(
+                Flux.just("Smoker, abnormal cholesterol, hypertension", "Height, weight and blood pressure measured"),
+                Flux.never()));
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientNoteContents("1")).thenReturn(notesProbe.flux());
+
+        // Act & Assert
+        StepVerifier.create(riskAssessmentService.assessConditions("1"))
+                .assertNext(result -> assertEquals(List.of(
+                        new ConditionAssessmentDTO("diabetes", RiskLevel.EARLY_ONSET, 5, true),
+                        new ConditionAssessmentDTO("hypertension", RiskLevel.EARLY_ONSET, 3, true)), result.getConditions()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        notesProbe.assertWasCancelled();
     }
-}
 
+    @Test
+    void testAssessment_FetchesPatientAndNotesConcurrently() {
+        // Arrange
+        when(microserviceClient.getPatient("1"))
+                .thenReturn(Mono.just(youngMalePatient).delayElement(Duration.ofMillis(300)));
+        when(microserviceClient.getPatientNoteContents("1"))
+                .thenReturn(Flux.just("Patient is Smoker").delaySequence(Duration.ofMillis(300)));
+
+        // Act
+        long start = System.nanoTime();
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1").block();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Assert
+        assertEquals(1, result.getTriggerCount());
+        assertTrue(elapsed.compareTo(Duration.ofMillis(550)) < 0, "Lookups should overlap, took " + elapsed);
+    }
+
+    @Test
+    void testCachedAssessment_SkipsDownstreamCalls() {
+        // Arrange
+        RiskAssessmentDTO cached = new RiskAssessmentDTO("1", "Lucas Ferguson", 25, "M", RiskLevel.NONE, 0, false,
+                "Patient: Lucas Ferguson (age 25) diabetes assessment is None", 1);
+        when(riskAssessmentCache.get("1")).thenReturn(Optional.of(cached));
+
+        // Act
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1").block();
+
+        // Assert
+        assertSame(cached, result);
+        verifyNoInteractions(microserviceClient);
+    }
+
+    @Test
+    void testRefresh_BypassesAndUpdatesCache() {
+        // Arrange
+        when(riskAssessmentCache.generation("1")).thenReturn(7L);
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientNoteContents("1")).thenReturn(Flux.empty());
+
+        // Act
+        RiskAssessmentDTO result = riskAssessmentService.refreshDiabetesRisk("1").block();
+
+        // Assert
+        assertNotNull(result);
+        verify(riskAssessmentCache, never()).get("1");
+        verify(riskAssessmentCache).put(result, youngMalePatient.getBirthDate(), 7L);
+        verify(riskTable).put(eq(result), eq(youngMalePatient.getBirthDate()), argThat(changed -> !changed.getAsBoolean()));
+    }
+
+    @Test
+    void testRefresh_WhenEvictedDuringAssessment_ShouldStoreStaleRow() {
+        // Arrange: the patient's data changed while the assessment was in flight
+        when(riskAssessmentCache.generation("1")).thenReturn(7L, 8L);
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientNoteContents("1")).thenReturn(Flux.empty());
+
+        // Act
+        RiskAssessmentDTO result = riskAssessmentService.refreshDiabetesRisk("1").block();
+
+        // Assert
+        verify(riskTable).put(eq(result), eq(youngMalePatient.getBirthDate()), argThat(BooleanSupplier::getAsBoolean));
+    }
+
+    @Test
+    void testStoredTriggerMask_SkipsNotesFetch() {
+        // Arrange
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientTriggerMask("1")).thenReturn(Mono.just(
+                new TriggerMaskDTO("1", DICTIONARY.getVersion(), 0b10110L, 4)));
+
+        // Act
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1").block();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(3, result.getTriggerCount());
+        assertEquals(RiskLevel.IN_DANGER, result.getRiskLevel());
+        assertEquals(3, result.getDictionaryVersion());
+        verify(microserviceClient, never()).getPatientNoteContents("1");
+    }
+
+    @Test
+    void testStoredTriggerMask_WithOtherDictionaryVersion_ScansNotes() {
+        // Arrange
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientTriggerMask("1")).thenReturn(Mono.just(
+                new TriggerMaskDTO("1", DICTIONARY.getVersion() + 1, 0b11111L, 4)));
+        when(microserviceClient.getPatientNoteContents("1")).thenReturn(Flux.just("Patient is Smoker"));
+
+        // Act
+        RiskAssessmentDTO result = riskAssessmentService.assessDiabetesRisk("1").block();
+
+        // Assert
+        assertNotNull(result);
+        assertEquals(1, result.getTriggerCount());
+        verify(microserviceClient).getPatientNoteContents("1");
+    }
+
+    @Test
+    void testDictionarySwap_DoesNotAffectAssessmentInFlight() {
+        // Arrange
+        TriggerDictionary smokerOnly = TriggerDictionary.of(4, List.of("smoker"));
+        when(triggerDictionaryProvider.current()).thenReturn(DICTIONARY, smokerOnly);
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(youngMalePatient));
+        when(microserviceClient.getPatientNoteContents("1"))
+                .thenReturn(Flux.just("Smoker, abnormal cholesterol"));
+
+        // Act
+        Mono<RiskAssessmentDTO> inFlight = riskAssessmentService.refreshDiabetesRisk("1");
+        RiskAssessmentDTO afterSwap = riskAssessmentService.refreshDiabetesRisk("1").block();
+        RiskAssessmentDTO result = inFlight.block();
+
+        // Assert
+        assertEquals(3, result.getTriggerCount());
+        assertEquals(3, result.getDictionaryVersion());
+        assertEquals(1, afterSwap.getTriggerCount());
+        assertEquals(4, afterSwap.getDictionaryVersion());
+    }
+
+    @Test
+    void testFindTriggers_WhenStoredMaskOutdated_ShouldScanEveryNote() {
+        // Arrange
+        when(microserviceClient.getPatientTriggerMask("1")).thenReturn(Mono.just(new TriggerMaskDTO("1", 2, 0b1L, 2)));
+        when(microserviceClient.getPatientNoteContents("1")).thenReturn(Flux.just("Smoker", "Cholesterol is abnormal"));
+
+        // Act & Assert: no early stop, every trigger present is reported
+        StepVerifier.create(riskAssessmentService.findTriggers("1", DICTIONARY))
+                .expectNext(DICTIONARY.getMatcher().scan(List.of("smoker", "cholesterol abnormal")))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,179 @@
+package com.medilabo.risk.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.risk.dto.BackfillStatusDTO;
+import com.medilabo.risk.dto.PatientIdPageDTO;
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.model.BackfillCheckpoint;
+import com.medilabo.risk.model.BackfillState;
+import com.medilabo.risk.model.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RiskBackfillService
+ */
+@ExtendWith(MockitoExtension.class)
+class RiskBackfillServiceTest {
+
+    @Mock
+    private RiskAssessmentService riskAssessmentService;
+
+    @Mock
+    private MicroserviceClientService microserviceClient;
+
+    @Mock
+    private RiskTableStore riskTable;
+
+    @TempDir
+    private Path tempDir;
+
+    private BackfillCheckpointStore checkpointStore;
+
+    private RiskBackfillService riskBackfillService;
+
+    @BeforeEach
+    void setUp() {
+        checkpointStore = new BackfillCheckpointStore(tempDir.resolve("checkpoint.json"),
+                new ObjectMapper().findAndRegisterModules());
+        riskBackfillService = new RiskBackfillService(riskAssessmentService, microserviceClient, checkpointStore,
+                riskTable, 2, 2, 1, true);
+        when(microserviceClient.getPatientIdPages(anyString(), anyInt())).thenCallRealMethod();
+    }
+
+    @Test
+    void testStart_ShouldScoreAllPagesAndComplete() throws InterruptedException {
+        // Arrange
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("1", "2"), 3)));
+        when(microserviceClient.getPatientIds("2", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("3"), 3)));
+        when(riskAssessmentService.refreshDiabetesRisk("1")).thenReturn(Mono.just(assessment("1", RiskLevel.NONE)));
+        when(riskAssessmentService.refreshDiabetesRisk("2")).thenReturn(Mono.error(new RuntimeException("Patient not found")));
+        when(riskAssessmentService.refreshDiabetesRisk("3")).thenReturn(Mono.just(assessment("3", RiskLevel.BORDERLINE)));
+
+        // Act
+        riskBackfillService.start(false);
+        BackfillStatusDTO status = awaitState(BackfillState.COMPLETED);
+
+        // Assert
+        assertEquals(3, status.getProcessed());
+        assertEquals(1, status.getFailed());
+        assertEquals(3, status.getTotal());
+        assertEquals("3", status.getLastPatientId());
+        assertEquals(1L, status.getRiskLevelCounts().get(RiskLevel.NONE));
+        assertEquals(1L, status.getRiskLevelCounts().get(RiskLevel.BORDERLINE));
+
+        BackfillCheckpoint saved = checkpointStore.load().orElseThrow();
+        assertEquals(BackfillState.COMPLETED, saved.getState());
+        assertEquals("3", saved.getLastPatientId());
+        assertEquals(3, saved.getProcessed());
+        assertEquals(1L, saved.getRiskLevelCounts().get(RiskLevel.BORDERLINE));
+        verify(riskTable).flush();
+    }
+
+    @Test
+    void testStart_WithInterruptedCheckpoint_ShouldResume() throws InterruptedException {
+        // Arrange
+        checkpointStore.save(new BackfillCheckpoint(BackfillState.RUNNING, "2", 2, 0, 3, Instant.now(), Instant.now(),
+                new EnumMap<>(Map.of(RiskLevel.NONE, 1L, RiskLevel.IN_DANGER, 1L))));
+        when(microserviceClient.getPatientIds("2", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("3"), 3)));
+        when(riskAssessmentService.refreshDiabetesRisk("3")).thenReturn(Mono.just(assessment("3", RiskLevel.NONE)));
+
+        // Act
+        riskBackfillService.resumeInterruptedRun();
+        BackfillStatusDTO status = awaitState(BackfillState.COMPLETED);
+
+        // Assert
+        assertEquals(3, status.getProcessed());
+        assertEquals(2L, status.getRiskLevelCounts().get(RiskLevel.NONE));
+        assertEquals(1L, status.getRiskLevelCounts().get(RiskLevel.IN_DANGER));
+        verify(microserviceClient, never()).getPatientIds("0", 2);
+        verify(riskAssessmentService, times(1)).refreshDiabetesRisk("3");
+    }
+
+    @Test
+    void testStart_WithRestart_ShouldIgnoreCheckpoint() throws InterruptedException {
+        // Arrange
+        checkpointStore.save(new BackfillCheckpoint(BackfillState.CANCELLED, "2", 2, 0, 3, Instant.now(), Instant.now(),
+                new EnumMap<>(Map.of(RiskLevel.NONE, 2L))));
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of(), 0)));
+
+        // Act
+        riskBackfillService.start(true);
+        BackfillStatusDTO status = awaitState(BackfillState.COMPLETED);
+
+        // Assert
+        assertEquals(0, status.getProcessed());
+        assertEquals(0L, status.getRiskLevelCounts().get(RiskLevel.NONE));
+        verify(microserviceClient, never()).getPatientIds("2", 2);
+    }
+
+    @Test
+    void testStart_WhenAlreadyRunning_ShouldThrowException() {
+        // Arrange
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(Mono.never());
+        riskBackfillService.start(false);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> riskBackfillService.start(false));
+        verify(microserviceClient, times(1)).getPatientIds(anyString(), anyInt());
+    }
+
+    @Test
+    void testCancel_ShouldKeepCheckpointForResume() {
+        // Arrange
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(Mono.never());
+        riskBackfillService.start(false);
+
+        // Act
+        BackfillStatusDTO status = riskBackfillService.cancel();
+
+        // Assert
+        assertEquals(BackfillState.CANCELLED, status.getState());
+        assertEquals(BackfillState.CANCELLED, checkpointStore.load().orElseThrow().getState());
+    }
+
+    /**
+     * Helper method to wait for the backfill to reach a state
+     *
+     * @param state the expected state
+     * @return the status once the state is reached
+     */
+    private BackfillStatusDTO awaitState(BackfillState state) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            BackfillStatusDTO status = riskBackfillService.getStatus();
+            if (status.getState() == state) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        fail("Backfill did not reach state " + state);
+        return null;
+    }
+
+    /**
+     * Helper method to create an assessment for testing
+     *
+     * @param patientId the patient ID
+     * @param riskLevel the risk level
+     * @return the assessment DTO
+     */
+    private RiskAssessmentDTO assessment(String patientId, RiskLevel riskLevel) {
+        return new RiskAssessmentDTO(patientId, "Test Patient", 40, "F", riskLevel, 0, false, "", 1);
+    }
+}
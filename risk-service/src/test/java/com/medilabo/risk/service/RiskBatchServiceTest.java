@@ -0,0 +1,128 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.dto.RiskBatchResultDTO;
+import com.medilabo.risk.model.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RiskBatchService
+ */
+@ExtendWith(MockitoExtension.class)
+class RiskBatchServiceTest {
+
+    @Mock
+    private RiskAssessmentService riskAssessmentService;
+
+    private RiskBatchService riskBatchService;
+
+    @BeforeEach
+    void setUp() {
+        riskBatchService = new RiskBatchService(riskAssessmentService, 2, 10);
+    }
+
+    @Test
+    void testAssessBatch_ShouldKeepInputOrder() {
+        // Arrange: the first patient answers last
+        when(riskAssessmentService.assessDiabetesRisk("1"))
+                .thenReturn(Mono.just(assessment("1")).delayElement(Duration.ofMillis(100)));
+        when(riskAssessmentService.assessDiabetesRisk("2")).thenReturn(Mono.just(assessment("2")));
+        when(riskAssessmentService.assessDiabetesRisk("3")).thenReturn(Mono.just(assessment("3")));
+
+        // Act
+        List<RiskBatchResultDTO> results = riskBatchService.assessBatch(List.of("1", "2", "3")).collectList().block();
+
+        // Assert
+        assertNotNull(results);
+        assertEquals(List.of("1", "2", "3"), results.stream().map(RiskBatchResultDTO::getPatientId).toList());
+    }
+
+    @Test
+    void testAssessBatch_WhenOnePatientFails_ShouldReportErrorInline() {
+        // Arrange
+        when(riskAssessmentService.assessDiabetesRisk("1")).thenReturn(Mono.just(assessment("1")));
+        when(riskAssessmentService.assessDiabetesRisk("999"))
+                .thenReturn(Mono.error(new RuntimeException("Patient not found with ID: 999")));
+
+        // Act
+        List<RiskBatchResultDTO> results = riskBatchService.assessBatch(List.of("999", "1")).collectList().block();
+
+        // Assert
+        assertNotNull(results);
+        assertEquals(2, results.size());
+        assertNull(results.get(0).getAssessment());
+        assertEquals("Patient not found with ID: 999", results.get(0).getError());
+        assertEquals(RiskLevel.NONE, results.get(1).getAssessment().getRiskLevel());
+        assertNull(results.get(1).getError());
+    }
+
+    @Test
+    void testAssessBatch_WithDuplicateIds_ShouldAssessOnce() {
+        // Arrange
+        AtomicInteger subscriptions = new AtomicInteger();
+        when(riskAssessmentService.assessDiabetesRisk("1"))
+                .thenReturn(Mono.fromSupplier(() -> assessment("1")).doOnSubscribe(s -> subscriptions.incrementAndGet()));
+
+        // Act
+        List<RiskBatchResultDTO> results = riskBatchService.assessBatch(List.of("1", "1", "1")).collectList().block();
+
+        // Assert
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertEquals(1, subscriptions.get());
+        verify(riskAssessmentService, times(1)).assessDiabetesRisk("1");
+    }
+
+    @Test
+    void testAssessBatch_ShouldBoundConcurrency() {
+        // Arrange
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(riskAssessmentService.assessDiabetesRisk(anyString())).thenAnswer(invocation -> {
+            String patientId = invocation.getArgument(0);
+            return Mono.just(assessment(patientId))
+                    .delayElement(Duration.ofMillis(20))
+                    .doOnSubscribe(s -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                    .doOnTerminate(inFlight::decrementAndGet);
+        });
+
+        // Act
+        riskBatchService.assessBatch(List.of("1", "2", "3", "4", "5", "6")).blockLast();
+
+        // Assert
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void testAssessBatch_WhenTooLarge_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> riskBatchService.assessBatch(Collections.nCopies(11, "1")));
+        verifyNoInteractions(riskAssessmentService);
+    }
+
+    /**
+     * Helper method to create an assessment for testing
+     *
+     * @param patientId the patient ID
+     * @return the assessment DTO
+     */
+    private RiskAssessmentDTO assessment(String patientId) {
+        return new RiskAssessmentDTO(patientId, "Test Patient", 40, "F", RiskLevel.NONE, 0, false,
+                "Patient: Test Patient (age 40) diabetes assessment is None", 1);
+    }
+}
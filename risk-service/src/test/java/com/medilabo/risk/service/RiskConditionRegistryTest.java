@@ -0,0 +1,153 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.config.RiskConditionProperties;
+import com.medilabo.risk.model.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for RiskConditionRegistry
+ */
+@ExtendWith(MockitoExtension.class)
+class RiskConditionRegistryTest {
+
+    @Mock
+    private TriggerDictionaryProvider triggerDictionaryProvider;
+
+    private RiskConditionProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RiskConditionProperties();
+        properties.getConditions().put("hypertension", definition(List.of("Smoker", "blood pressure"), 1, null, 2));
+    }
+
+    @Test
+    void testVocabulary_ShouldMatchSharedTermsOnceForEveryCondition() {
+        // Arrange
+        when(triggerDictionaryProvider.current()).thenReturn(TriggerDictionary.of(1, List.of("smoker", "cholesterol")));
+        RiskConditionRegistry registry = new RiskConditionRegistry(
+                List.of(new DiabetesRiskCondition(triggerDictionaryProvider)), properties);
+
+        // Act
+        ConditionVocabulary vocabulary = registry.vocabulary();
+        long found = vocabulary.getMatcher().scan("Smoker, blood pressure is high", 0L);
+
+        // Assert
+        assertEquals(List.of("smoker", "cholesterol", "blood pressure"), vocabulary.getMatcher().getTriggers());
+        assertEquals(1, vocabulary.triggerCount(0, found));
+        assertEquals(2, vocabulary.triggerCount(1, found));
+    }
+
+    @Test
+    void testVocabulary_WhenDictionaryChanges_ShouldRecompile() {
+        // Arrange
+        when(triggerDictionaryProvider.current()).thenReturn(
+                TriggerDictionary.of(1, List.of("smoker")),
+                TriggerDictionary.of(1, List.of("smoker")),
+                TriggerDictionary.of(1, List.of("smoker")),
+                TriggerDictionary.of(2, List.of("smoker", "relapse")));
+        RiskConditionRegistry registry = new RiskConditionRegistry(
+                List.of(new DiabetesRiskCondition(triggerDictionaryProvider)), properties);
+
+        // Act
+        ConditionVocabulary first = registry.vocabulary();
+        ConditionVocabulary unchanged = registry.vocabulary();
+        ConditionVocabulary reloaded = registry.vocabulary();
+
+        // Assert
+        assertSame(first, unchanged);
+        assertNotSame(first, reloaded);
+        assertEquals(List.of("smoker", "relapse", "blood pressure"), reloaded.getMatcher().getTriggers());
+    }
+
+    @Test
+    void testVocabulary_WhenChangedTriggersTooMany_ShouldKeepPreviousVocabulary() {
+        // Arrange
+        List<String> tooMany = IntStream.range(0, TriggerMatcher.MAX_TRIGGERS).mapToObj(i -> "term" + i).toList();
+        when(triggerDictionaryProvider.current()).thenReturn(
+                TriggerDictionary.of(1, List.of("smoker")),
+                TriggerDictionary.of(2, tooMany));
+        RiskConditionRegistry registry = new RiskConditionRegistry(
+                List.of(new DiabetesRiskCondition(triggerDictionaryProvider)), properties);
+
+        // Act
+        ConditionVocabulary first = registry.vocabulary();
+        ConditionVocabulary second = registry.vocabulary();
+
+        // Assert
+        assertEquals(List.of("smoker", "blood pressure"), first.getMatcher().getTriggers());
+        assertSame(first, second);
+    }
+
+    @Test
+    void testConstructor_WithTooManyTriggers_ShouldThrowException() {
+        // Arrange
+        List<String> tooMany = IntStream.range(0, TriggerMatcher.MAX_TRIGGERS).mapToObj(i -> "term" + i).toList();
+        when(triggerDictionaryProvider.current()).thenReturn(TriggerDictionary.of(1, tooMany));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new RiskConditionRegistry(
+                List.of(new DiabetesRiskCondition(triggerDictionaryProvider)), properties));
+    }
+
+    @Test
+    void testConstructor_WithDuplicateName_ShouldThrowException() {
+        // Arrange
+        properties.getConditions().put("diabetes", definition(List.of("thirst"), 1, 2, 3));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new RiskConditionRegistry(
+                List.of(new DiabetesRiskCondition(triggerDictionaryProvider)), properties));
+    }
+
+    @Test
+    void testThresholdCondition_ShouldSkipLevelsWithoutThreshold() {
+        // Arrange
+        RiskCondition condition = new ThresholdRiskCondition("hypertension", properties.getConditions().get("hypertension"));
+
+        // Act & Assert
+        assertEquals(RiskLevel.NONE, condition.assess(40, "F", 0));
+        assertEquals(RiskLevel.BORDERLINE, condition.assess(40, "F", 1));
+        assertEquals(RiskLevel.EARLY_ONSET, condition.assess(40, "F", 2));
+        assertEquals(2, condition.saturationCount(40, "F", 2));
+    }
+
+    @Test
+    void testThresholdCondition_WithoutEarlyOnset_ShouldSaturateAtHighestConfiguredLevel() {
+        // Arrange
+        RiskCondition condition = new ThresholdRiskCondition("asthma", definition(List.of("wheezing", "cough", "inhaler"), 1, 2, null));
+
+        // Act & Assert
+        assertEquals(RiskLevel.IN_DANGER, condition.assess(40, "F", 3));
+        assertEquals(2, condition.saturationCount(40, "F", 3));
+    }
+
+    /**
+     * Helper method to declare a condition
+     *
+     * @param triggers the trigger terms
+     * @param borderline the borderline threshold
+     * @param inDanger the in danger threshold
+     * @param earlyOnset the early onset threshold
+     * @return the condition definition
+     */
+    private RiskConditionProperties.Definition definition(List<String> triggers, Integer borderline,
+                                                          Integer inDanger, Integer earlyOnset) {
+        RiskConditionProperties.Definition definition = new RiskConditionProperties.Definition();
+        definition.setTriggers(triggers);
+        definition.setBorderline(borderline);
+        definition.setInDanger(inDanger);
+        definition.setEarlyOnset(earlyOnset);
+        return definition;
+    }
+}
@@ -0,0 +1,95 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.PatientIdPageDTO;
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.dto.RiskBatchResultDTO;
+import com.medilabo.risk.model.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RiskExportService
+ */
+@ExtendWith(MockitoExtension.class)
+class RiskExportServiceTest {
+
+    @Mock
+    private RiskAssessmentService riskAssessmentService;
+
+    @Mock
+    private MicroserviceClientService microserviceClient;
+
+    private RiskExportService riskExportService;
+
+    @BeforeEach
+    void setUp() {
+        riskExportService = new RiskExportService(riskAssessmentService, microserviceClient, 2, 2);
+        when(microserviceClient.getPatientIdPages(anyString(), anyInt())).thenCallRealMethod();
+    }
+
+    @Test
+    void testExportAll_ShouldStreamEveryPageInOrder() {
+        // Arrange: the first patient answers last
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("1", "2"), 3)));
+        when(microserviceClient.getPatientIds("2", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("3"), 3)));
+        when(riskAssessmentService.assessDiabetesRisk("1"))
+                .thenReturn(Mono.just(assessment("1")).delayElement(Duration.ofMillis(100)));
+        when(riskAssessmentService.assessDiabetesRisk("2")).thenReturn(Mono.just(assessment("2")));
+        when(riskAssessmentService.assessDiabetesRisk("3")).thenReturn(Mono.just(assessment("3")));
+
+        // Act & Assert
+        StepVerifier.create(riskExportService.exportAll().map(RiskBatchResultDTO::getPatientId))
+                .expectNext("1", "2", "3")
+                .verifyComplete();
+    }
+
+    @Test
+    void testExportAll_WhenOnePatientFails_ShouldReportIt() {
+        // Arrange
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("1", "2"), 2)));
+        when(microserviceClient.getPatientIds("2", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of(), 2)));
+        when(riskAssessmentService.assessDiabetesRisk("1"))
+                .thenReturn(Mono.error(new RuntimeException("Patient not found with ID: 1")));
+        when(riskAssessmentService.assessDiabetesRisk("2")).thenReturn(Mono.just(assessment("2")));
+
+        // Act & Assert
+        StepVerifier.create(riskExportService.exportAll())
+                .expectNextMatches(entry -> entry.getPatientId().equals("1") && entry.getAssessment() == null
+                        && entry.getError().equals("Patient not found with ID: 1"))
+                .expectNextMatches(entry -> entry.getPatientId().equals("2") && entry.getError() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    void testExportAll_ShouldOnlyFetchPagesTheClientAskedFor() {
+        // Arrange
+        when(microserviceClient.getPatientIds("0", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("1", "2"), 6)));
+        when(microserviceClient.getPatientIds("2", 2)).thenReturn(Mono.just(new PatientIdPageDTO(List.of("3", "4"), 6)));
+        when(riskAssessmentService.assessDiabetesRisk(anyString()))
+                .thenAnswer(invocation -> Mono.just(assessment(invocation.getArgument(0))));
+
+        // Act & Assert
+        StepVerifier.create(riskExportService.exportAll(), 1)
+                .expectNextCount(1)
+                .thenCancel()
+                .verify();
+        verify(microserviceClient, never()).getPatientIds("4", 2);
+    }
+
+    private RiskAssessmentDTO assessment(String patientId) {
+        return new RiskAssessmentDTO(patientId, "Test Patient", 40, "F", RiskLevel.NONE, 0, false,
+                "Patient: Test Patient (age 40) diabetes assessment is None", 1);
+    }
+}
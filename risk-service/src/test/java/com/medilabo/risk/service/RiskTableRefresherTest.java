@@ -0,0 +1,153 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.PatientIdPageDTO;
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.model.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RiskTableRefresher
+ */
+@ExtendWith(MockitoExtension.class)
+class RiskTableRefresherTest {
+
+    @Mock
+    private RiskAssessmentService riskAssessmentService;
+
+    @Mock
+    private RiskTableStore riskTable;
+
+    @Mock
+    private TriggerDictionaryProvider triggerDictionaryProvider;
+
+    @Mock
+    private MicroserviceClientService microserviceClient;
+
+    private RiskTableRefresher riskTableRefresher;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(triggerDictionaryProvider.current()).thenReturn(TriggerDictionary.of(2, List.of("smoker")));
+        lenient().when(microserviceClient.getPatientIdPages("0", 2)).thenReturn(Flux.just(
+                new PatientIdPageDTO(List.of("1", "2"), 3), new PatientIdPageDTO(List.of("3"), 3)));
+        riskTableRefresher = new RiskTableRefresher(riskAssessmentService, riskTable, triggerDictionaryProvider,
+                microserviceClient, 2, 2);
+    }
+
+    @Test
+    void testRefresh_ShouldOnlyAssessPatientsToRefresh() {
+        // Arrange
+        when(riskTable.idsToRefresh(any(), eq(2))).thenReturn(List.of("1", "2"));
+        when(riskAssessmentService.refreshDiabetesRisk(anyString())).thenAnswer(invocation ->
+                Mono.just(new RiskAssessmentDTO(invocation.getArgument(0), "Test Patient", 40, "F",
+                        RiskLevel.NONE, 0, false, "", 2)));
+
+        // Act
+        int refreshed = riskTableRefresher.refresh().block();
+
+        // Assert
+        assertEquals(2, refreshed);
+        verify(riskAssessmentService).refreshDiabetesRisk("1");
+        verify(riskAssessmentService).refreshDiabetesRisk("2");
+        verify(riskAssessmentService, times(2)).refreshDiabetesRisk(anyString());
+    }
+
+    @Test
+    void testRefresh_WhenPatientDeleted_ShouldRemoveIt() {
+        // Arrange
+        WebClientResponseException notFound = WebClientResponseException.create(
+                HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null);
+        when(riskTable.idsToRefresh(any(), eq(2))).thenReturn(List.of("1", "2"));
+        when(riskAssessmentService.refreshDiabetesRisk("1")).thenReturn(Mono.error(
+                new RuntimeException("Unable to fetch patient data for ID: 1", notFound)));
+        when(riskAssessmentService.refreshDiabetesRisk("2")).thenReturn(Mono.error(
+                new RuntimeException("Unable to fetch patient data for ID: 2")));
+
+        // Act
+        int refreshed = riskTableRefresher.refresh().block();
+
+        // Assert: a patient that could not be reached keeps its previous assessment
+        assertEquals(0, refreshed);
+        verify(riskTable).remove("1");
+        verify(riskTable, never()).remove("2");
+    }
+
+    @Test
+    void testRefresh_WhenNothingChanged_ShouldNotAssess() {
+        // Arrange
+        when(riskTable.idsToRefresh(any(), eq(2))).thenReturn(List.of());
+
+        // Act
+        int refreshed = riskTableRefresher.refresh().block();
+
+        // Assert
+        assertEquals(0, refreshed);
+        verifyNoInteractions(riskAssessmentService);
+    }
+
+    @Test
+    void testRefresh_ShouldSeedTableOnceFromPatientList() {
+        // Arrange
+        when(riskTable.idsToRefresh(any(), eq(2))).thenReturn(List.of());
+
+        // Act
+        riskTableRefresher.refresh().block();
+        riskTableRefresher.refresh().block();
+
+        // Assert
+        verify(riskTable).seed(List.of("1", "2"));
+        verify(riskTable).seed(List.of("3"));
+        verify(microserviceClient, times(1)).getPatientIdPages("0", 2);
+    }
+
+    @Test
+    void testRefresh_WhenPatientListUnavailable_ShouldRefreshAndSeedNextTime() {
+        // Arrange
+        when(microserviceClient.getPatientIdPages("0", 2)).thenReturn(
+                Flux.error(new RuntimeException("Connection refused")),
+                Flux.just(new PatientIdPageDTO(List.of("1"), 1)));
+        when(riskTable.idsToRefresh(any(), eq(2))).thenReturn(List.of());
+
+        // Act
+        riskTableRefresher.refresh().block();
+        riskTableRefresher.refresh().block();
+
+        // Assert
+        verify(riskTable).seed(List.of("1"));
+        verify(riskTable, times(2)).idsToRefresh(any(), eq(2));
+    }
+
+    @Test
+    void testScheduleRefresh_WhenPreviousRunActive_ShouldSkip() {
+        // Arrange
+        Sinks.One<RiskAssessmentDTO> pending = Sinks.one();
+        when(riskTable.idsToRefresh(any(), eq(2))).thenReturn(List.of("1"));
+        when(riskAssessmentService.refreshDiabetesRisk("1")).thenReturn(pending.asMono());
+
+        // Act
+        riskTableRefresher.scheduleRefresh();
+        riskTableRefresher.scheduleRefresh();
+        pending.tryEmitValue(new RiskAssessmentDTO("1", "Test Patient", 40, "F", RiskLevel.NONE, 0, false, "", 2));
+        riskTableRefresher.scheduleRefresh();
+
+        // Assert: the second call returned at once without starting a run
+        verify(riskTable, times(2)).idsToRefresh(any(), eq(2));
+    }
+}
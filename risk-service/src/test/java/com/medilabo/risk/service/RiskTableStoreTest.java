@@ -0,0 +1,150 @@
+package com.medilabo.risk.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medilabo.risk.dto.RiskAssessmentDTO;
+import com.medilabo.risk.dto.StoredRiskAssessmentDTO;
+import com.medilabo.risk.model.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RiskTableStore
+ */
+class RiskTableStoreTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private Path tableFile;
+
+    private RiskTableStore riskTable;
+
+    @BeforeEach
+    void setUp() {
+        tableFile = tempDir.resolve("risk-table.json");
+        riskTable = newStore();
+    }
+
+    @Test
+    void testFlush_ShouldReloadTableOnRestart() {
+        // Arrange
+        riskTable.put(assessment("1", 1), LocalDate.of(1980, 1, 1), () -> false);
+        riskTable.put(assessment("2", 1), LocalDate.of(1990, 1, 1), () -> false);
+        riskTable.markStale("2");
+
+        // Act
+        riskTable.flush();
+        RiskTableStore reloaded = newStore();
+
+        // Assert
+        assertEquals(2, reloaded.size());
+        assertEquals(assessment("1", 1), reloaded.get("1").orElseThrow().getAssessment());
+        assertFalse(reloaded.get("1").orElseThrow().isStale());
+        assertTrue(reloaded.get("2").orElseThrow().isStale());
+        assertNotNull(reloaded.get("2").orElseThrow().getAssessedAt());
+        assertEquals(List.of("2"), reloaded.idsToRefresh(LocalDate.now(), 1));
+    }
+
+    @Test
+    void testPut_WhenChangedDuringAssessment_ShouldKeepRowStale() {
+        // Arrange: the patient changes while the assessment runs, flagging the previous row
+        riskTable.put(assessment("1", 1), LocalDate.of(1980, 1, 1), () -> false);
+        riskTable.markStale("1");
+
+        // Act
+        riskTable.put(assessment("1", 1), LocalDate.of(1980, 1, 1), () -> true);
+
+        // Assert
+        assertTrue(riskTable.get("1").orElseThrow().isStale());
+        assertEquals(List.of("1"), riskTable.idsToRefresh(LocalDate.now(), 1));
+    }
+
+    @Test
+    void testSeed_ShouldQueuePatientsNeverAssessedUntilAssessed() {
+        // Arrange
+        riskTable.put(assessment("1", 1), LocalDate.of(1980, 1, 1), () -> false);
+
+        // Act
+        int seeded = riskTable.seed(List.of("1", "2", "3"));
+        riskTable.markStale("4");
+
+        // Assert
+        assertEquals(2, seeded);
+        assertEquals(List.of("2", "3", "4"), riskTable.idsToRefresh(LocalDate.now(), 1).stream().sorted().toList());
+        riskTable.put(assessment("2", 1), LocalDate.of(1980, 1, 1), () -> false);
+        riskTable.remove("3");
+        assertEquals(List.of("4"), riskTable.idsToRefresh(LocalDate.now(), 1));
+        assertTrue(riskTable.get("4").isEmpty());
+    }
+
+    @Test
+    void testFlush_WhenUnchanged_ShouldNotWrite() {
+        // Act
+        riskTable.flush();
+
+        // Assert
+        assertFalse(Files.exists(tableFile));
+    }
+
+    @Test
+    void testIdsToRefresh_ShouldOnlyListChangedPatients() {
+        // Arrange
+        LocalDate today = LocalDate.now();
+        riskTable.put(assessment("unchanged", 1), today.minusYears(40).plusDays(10), () -> false);
+        riskTable.put(assessment("changed", 1), today.minusYears(40).plusDays(10), () -> false);
+        riskTable.put(assessment("older-dictionary", 0), today.minusYears(40).plusDays(10), () -> false);
+        riskTable.markStale("changed");
+
+        // Act
+        List<String> ids = riskTable.idsToRefresh(today, 1);
+
+        // Assert
+        assertEquals(2, ids.size());
+        assertTrue(ids.containsAll(List.of("changed", "older-dictionary")));
+    }
+
+    @Test
+    void testIdsToRefresh_ShouldListPatientsWhoseAgeChanged() {
+        // Arrange: turns 30 in ten days
+        LocalDate today = LocalDate.now();
+        riskTable.put(assessment("1", 1), today.minusYears(30).plusDays(10), () -> false);
+
+        // Act & Assert
+        assertTrue(riskTable.idsToRefresh(today.plusDays(9), 1).isEmpty());
+        assertEquals(List.of("1"), riskTable.idsToRefresh(today.plusDays(10), 1));
+    }
+
+    @Test
+    void testMarkAllStale_AndRemove() {
+        // Arrange
+        riskTable.put(assessment("1", 1), LocalDate.of(1980, 1, 1), () -> false);
+        riskTable.put(assessment("2", 1), LocalDate.of(1990, 1, 1), () -> false);
+
+        // Act
+        riskTable.markAllStale();
+        riskTable.remove("2");
+
+        // Assert
+        assertEquals(List.of("1"), riskTable.idsToRefresh(LocalDate.now(), 1));
+        assertTrue(riskTable.get("2").isEmpty());
+        assertEquals(List.of(assessment("1", 1)),
+                riskTable.getAll(List.of("2", "1")).stream().map(StoredRiskAssessmentDTO::getAssessment).toList());
+    }
+
+    private RiskTableStore newStore() {
+        return new RiskTableStore(tableFile, new ObjectMapper().findAndRegisterModules());
+    }
+
+    private RiskAssessmentDTO assessment(String patientId, int dictionaryVersion) {
+        return new RiskAssessmentDTO(patientId, "Test Patient", 40, "F", RiskLevel.NONE, 0, false,
+                "Patient: Test Patient (age 40) diabetes assessment is None", dictionaryVersion);
+    }
+}
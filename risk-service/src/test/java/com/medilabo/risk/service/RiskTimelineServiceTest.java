@@ -0,0 +1,179 @@
+package com.medilabo.risk.service;
+
+import com.medilabo.risk.dto.NoteHistoryDTO;
+import com.medilabo.risk.dto.PatientDTO;
+import com.medilabo.risk.dto.RiskTransitionDTO;
+import com.medilabo.risk.model.RiskLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RiskTimelineService
+ */
+@ExtendWith(MockitoExtension.class)
+class RiskTimelineServiceTest {
+
+    private static final TriggerDictionary DICTIONARY = TriggerDictionary.of(3, Arrays.asList(
+            "hemoglobin a1c", "microalbumin", "height", "weight", "smoker", "abnormal",
+            "cholesterol", "dizziness", "relapse", "reaction", "antibodies"));
+
+    @Mock
+    private MicroserviceClientService microserviceClient;
+
+    @Mock
+    private TriggerDictionaryProvider triggerDictionaryProvider;
+
+    private RiskTimelineService riskTimelineService;
+
+    private PatientDTO patient;
+
+    @BeforeEach
+    void setUp() {
+        riskTimelineService = new RiskTimelineService(microserviceClient, triggerDictionaryProvider,
+                new DiabetesRiskCondition(triggerDictionaryProvider));
+        lenient().when(triggerDictionaryProvider.current()).thenReturn(DICTIONARY);
+
+        // Male patient who turned 30 on 2020-06-01
+        patient = new PatientDTO();
+        patient.setId("1");
+        patient.setFirstName("Lucas");
+        patient.setLastName("Ferguson");
+        patient.setBirthDate(LocalDate.of(1990, 6, 1));
+        patient.setGender("M");
+    }
+
+    @Test
+    void testTimeline_ShouldEmitOnlyLevelChangesThenToday() {
+        // Arrange
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(patient));
+        when(microserviceClient.getPatientNoteHistory("1")).thenReturn(Flux.just(
+                note(2015, 1, "Patient feels well"),
+                note(2016, 1, "Smoker"),
+                note(2017, 1, "Abnormal cholesterol"),
+                note(2018, 1, "Follow-up, still a smoker")));
+
+        // Act
+        List<RiskTransitionDTO> timeline = riskTimelineService.getRiskTimeline("1").collectList().block();
+
+        // Assert: the 30th birthday lowers the level, then today keeps it
+        assertEquals(4, timeline.size());
+        assertEquals(RiskLevel.NONE, timeline.get(0).getRiskLevel());
+        assertEquals(LocalDateTime.of(2015, 1, 1, 10, 0), timeline.get(0).getDate());
+        assertEquals(RiskLevel.IN_DANGER, timeline.get(1).getRiskLevel());
+        assertEquals(LocalDateTime.of(2017, 1, 1, 10, 0), timeline.get(1).getDate());
+        assertEquals(3, timeline.get(1).getTriggerCount());
+        assertEquals(List.of("smoker", "abnormal", "cholesterol"), timeline.get(1).getTriggers());
+        assertEquals(3, timeline.get(1).getDictionaryVersion());
+        assertEquals(LocalDateTime.of(2020, 6, 1, 0, 0), timeline.get(2).getDate());
+        assertEquals(RiskLevel.BORDERLINE, timeline.get(2).getRiskLevel());
+        assertEquals(LocalDate.now(), timeline.get(3).getDate().toLocalDate());
+        assertEquals(RiskLevel.BORDERLINE, timeline.get(3).getRiskLevel());
+        assertEquals(3, timeline.get(3).getTriggerCount());
+    }
+
+    @Test
+    void testTimeline_ShouldEmitAgeThresholdCrossingBetweenNotes() {
+        // Arrange
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(patient));
+        when(microserviceClient.getPatientNoteHistory("1")).thenReturn(Flux.just(
+                note(2019, 1, "Smoker, abnormal cholesterol, height and weight measured"),
+                note(2021, 1, "Routine check")));
+
+        // Act
+        List<RiskTransitionDTO> timeline = riskTimelineService.getRiskTimeline("1").collectList().block();
+
+        // Assert: 5 triggers are Early onset before 30 but only Borderline from the 30th birthday on
+        assertEquals(3, timeline.size());
+        assertEquals(28, timeline.get(0).getAge());
+        assertEquals(RiskLevel.EARLY_ONSET, timeline.get(0).getRiskLevel());
+        assertEquals(LocalDateTime.of(2020, 6, 1, 0, 0), timeline.get(1).getDate());
+        assertEquals(30, timeline.get(1).getAge());
+        assertEquals(RiskLevel.BORDERLINE, timeline.get(1).getRiskLevel());
+        assertEquals(5, timeline.get(1).getTriggerCount());
+        assertEquals(LocalDate.now(), timeline.get(2).getDate().toLocalDate());
+    }
+
+    @Test
+    void testTimeline_WithUndatedNote_ShouldApplyItsTriggersFromFirstPoint() {
+        // Arrange
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(patient));
+        when(microserviceClient.getPatientNoteHistory("1")).thenReturn(Flux.just(
+                new NoteHistoryDTO(null, "Smoker, abnormal cholesterol"),
+                note(2015, 1, "Patient feels well")));
+
+        // Act
+        List<RiskTransitionDTO> timeline = riskTimelineService.getRiskTimeline("1").collectList().block();
+
+        // Assert
+        assertEquals(LocalDateTime.of(2015, 1, 1, 10, 0), timeline.get(0).getDate());
+        assertEquals(RiskLevel.IN_DANGER, timeline.get(0).getRiskLevel());
+        assertTrue(timeline.stream().allMatch(point -> point.getDate() != null));
+    }
+
+    @Test
+    void testTimeline_WithoutNotes_ShouldOnlyReportToday() {
+        // Arrange
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(patient));
+        when(microserviceClient.getPatientNoteHistory("1")).thenReturn(Flux.empty());
+
+        // Act & Assert
+        StepVerifier.create(riskTimelineService.getRiskTimeline("1"))
+                .assertNext(point -> {
+                    assertEquals(LocalDate.now(), point.getDate().toLocalDate());
+                    assertEquals(RiskLevel.NONE, point.getRiskLevel());
+                    assertEquals(0, point.getTriggerCount());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testTimeline_WhenNotesUnavailable_ShouldFail() {
+        // Arrange
+        when(microserviceClient.getPatient("1")).thenReturn(Mono.just(patient));
+        when(microserviceClient.getPatientNoteHistory("1"))
+                .thenReturn(Flux.error(new IllegalStateException("Unable to fetch note history for patient ID: 1")));
+
+        // Act & Assert
+        StepVerifier.create(riskTimelineService.getRiskTimeline("1"))
+                .expectError(IllegalStateException.class)
+                .verify();
+    }
+
+    @Test
+    void testTimeline_WhenPatientMissing_ShouldFailWithoutReadingNotes() {
+        // Arrange
+        when(microserviceClient.getPatient("999")).thenReturn(Mono.empty());
+
+        // Act & Assert
+        StepVerifier.create(riskTimelineService.getRiskTimeline("999"))
+                .expectErrorMessage("Patient not found with ID: 999")
+                .verify();
+        verify(microserviceClient, never()).getPatientNoteHistory("999");
+    }
+
+    /**
+     * Helper method to create a dated note for testing
+     *
+     * @param year the year of the note
+     * @param month the month of the note
+     * @param content the note content
+     * @return the note DTO
+     */
+    private NoteHistoryDTO note(int year, int month, String content) {
+        return new NoteHistoryDTO(LocalDateTime.of(year, month, 1, 10, 0), content);
+    }
+}
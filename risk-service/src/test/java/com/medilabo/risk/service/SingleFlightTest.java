@@ -0,0 +1,155 @@
+package com.medilabo.risk.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SingleFlight
+ */
+class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SingleFlight<String> singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("patient", meterRegistry);
+    }
+
+    @Test
+    void testMono_WhenCallInFlight_ShouldShareIt() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> response = Sinks.one();
+        Mono<String> first = singleFlight.mono("1", () -> {
+            calls.incrementAndGet();
+            return response.asMono();
+        });
+        Mono<String> second = singleFlight.mono("1", () -> {
+            calls.incrementAndGet();
+            return Mono.just("unused");
+        });
+
+        // Act
+        Mono<List<String>> both = Mono.zip(first, second, List::of);
+
+        // Assert
+        StepVerifier.create(both)
+                .then(() -> response.tryEmitValue("patient"))
+                .expectNext(List.of("patient", "patient"))
+                .verifyComplete();
+        assertEquals(1, calls.get());
+        assertEquals(1.0, count("originated"));
+        assertEquals(1.0, count("coalesced"));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testMono_WhenCallFails_ShouldPropagateErrorToEveryWaiterAndRetryNextTime() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> failing = Mono.<String>error(new RuntimeException("Unable to fetch patient"))
+                .delaySubscription(Duration.ofMillis(50));
+
+        // Act & Assert
+        StepVerifier.create(Flux.merge(
+                        singleFlight.mono("1", () -> { calls.incrementAndGet(); return failing; }).onErrorResume(e -> Mono.just(e.getMessage())),
+                        singleFlight.mono("1", () -> { calls.incrementAndGet(); return failing; }).onErrorResume(e -> Mono.just(e.getMessage()))))
+                .expectNext("Unable to fetch patient", "Unable to fetch patient")
+                .verifyComplete();
+        assertEquals(1, calls.get());
+
+        StepVerifier.create(singleFlight.mono("1", () -> { calls.incrementAndGet(); return Mono.just("patient"); }))
+                .expectNext("patient")
+                .verifyComplete();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testMono_WhenWaiterCallsAgainOnAnswer_ShouldStartNewCall() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        Mono<Integer> lookup = singleFlight.mono("1", () -> Mono.fromCallable(calls::incrementAndGet));
+
+        // Act: the second lookup is made from within the first answer
+        Integer second = lookup.flatMap(first -> lookup).block();
+
+        // Assert
+        assertEquals(2, second);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testMono_WithDifferentKeys_ShouldNotShare() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        Flux.merge(
+                singleFlight.mono("1", () -> { calls.incrementAndGet(); return Mono.just("a").delayElement(Duration.ofMillis(50)); }),
+                singleFlight.mono("2", () -> { calls.incrementAndGet(); return Mono.just("b").delayElement(Duration.ofMillis(50)); })
+        ).blockLast();
+
+        // Assert
+        assertEquals(2, calls.get());
+        assertEquals(0.0, count("coalesced"));
+    }
+
+    @Test
+    void testFlux_WhenJoiningLate_ShouldReplayEarlierElements() {
+        // Arrange
+        Sinks.Many<String> notes = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<String> first = singleFlight.flux("1", notes::asFlux);
+        Flux<String> late = singleFlight.flux("1", () -> Flux.just("unused"));
+
+        // Act & Assert
+        StepVerifier.create(first)
+                .then(() -> notes.tryEmitNext("note1"))
+                .expectNext("note1")
+                .then(() -> StepVerifier.create(late)
+                        .then(() -> {
+                            notes.tryEmitNext("note2");
+                            notes.tryEmitComplete();
+                        })
+                        .expectNext("note1", "note2")
+                        .verifyComplete())
+                .expectNext("note2")
+                .verifyComplete();
+        assertEquals(1.0, count("coalesced"));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testMono_WhenEveryWaiterCancels_ShouldCancelCallAndReleaseKey() {
+        // Arrange
+        PublisherProbe<String> call = PublisherProbe.of(Mono.never());
+
+        // Act
+        StepVerifier.create(singleFlight.mono("1", call::mono))
+                .expectSubscription()
+                .thenCancel()
+                .verify();
+
+        // Assert
+        call.assertWasCancelled();
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("risk.downstream.calls").tag("call", "patient").tag("outcome", outcome).counter().count();
+    }
+}
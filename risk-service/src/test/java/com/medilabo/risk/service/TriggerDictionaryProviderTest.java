@@ -0,0 +1,135 @@
+package com.medilabo.risk.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TriggerDictionaryProvider
+ */
+@ExtendWith(MockitoExtension.class)
+class TriggerDictionaryProviderTest {
+
+    @Mock
+    private RiskAssessmentCache riskAssessmentCache;
+
+    @TempDir
+    private Path tempDir;
+
+    private Path dictionaryFile;
+
+    private TriggerDictionaryProvider provider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dictionaryFile = tempDir.resolve("triggers.json");
+        write("""
+                {"version": 1, "terms": ["smoker", "cholesterol"]}
+                """, 1);
+        provider = new TriggerDictionaryProvider(new FileSystemResource(dictionaryFile), new ObjectMapper(), riskAssessmentCache);
+    }
+
+    @Test
+    void testConstructor_ShouldLoadDictionary() {
+        // Assert
+        assertEquals(1, provider.current().getVersion());
+        assertEquals(List.of("smoker", "cholesterol"), provider.current().getTerms());
+        verifyNoInteractions(riskAssessmentCache);
+    }
+
+    @Test
+    void testReloadIfChanged_WhenFileChanged_ShouldSwapDictionaryAndClearCache() throws IOException {
+        // Arrange
+        TriggerDictionary previous = provider.current();
+        write("""
+                {"version": 2, "terms": ["smoker", "cholesterol", "dizziness"]}
+                """, 2);
+
+        // Act
+        provider.reloadIfChanged();
+
+        // Assert
+        assertEquals(2, provider.current().getVersion());
+        assertEquals(0b111L, provider.current().getMatcher().scan("Smoker, cholesterol, dizziness", 0L));
+        assertEquals(1, previous.getVersion());
+        verify(riskAssessmentCache, times(1)).evictAll();
+    }
+
+    @Test
+    void testReloadIfChanged_WhenFileUnchanged_ShouldKeepDictionary() {
+        // Arrange
+        TriggerDictionary previous = provider.current();
+
+        // Act
+        provider.reloadIfChanged();
+
+        // Assert
+        assertSame(previous, provider.current());
+        verifyNoInteractions(riskAssessmentCache);
+    }
+
+    @Test
+    void testReloadIfChanged_WhenFileInvalid_ShouldKeepDictionary() throws IOException {
+        // Arrange
+        TriggerDictionary previous = provider.current();
+        write("{\"version\": 2, \"terms\": [", 2);
+
+        // Act
+        provider.reloadIfChanged();
+
+        // Assert
+        assertSame(previous, provider.current());
+        verifyNoInteractions(riskAssessmentCache);
+    }
+
+    @Test
+    void testReload_WhenVersionReusedWithOtherTerms_ShouldThrowException() throws IOException {
+        // Arrange
+        write("""
+                {"version": 1, "terms": ["smoker"]}
+                """, 2);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> provider.reload());
+        assertEquals(List.of("smoker", "cholesterol"), provider.current().getTerms());
+    }
+
+    @Test
+    void testConstructor_WhenFileIsMissing_ShouldUsePackagedCopyUntilFileAppears() throws IOException {
+        // Arrange
+        Path missing = tempDir.resolve("shared.json");
+        TriggerDictionaryProvider fallback = new TriggerDictionaryProvider(new FileSystemResource(missing),
+                new ObjectMapper(), riskAssessmentCache);
+        assertEquals("hemoglobin a1c", fallback.current().getTerms().get(0));
+
+        // Act
+        Files.writeString(missing, """
+                {"version": 5, "terms": ["smoker"]}
+                """);
+        fallback.reloadIfChanged();
+
+        // Assert
+        assertEquals(5, fallback.current().getVersion());
+        verify(riskAssessmentCache, times(1)).evictAll();
+    }
+
+    private void write(String content, long modifiedSeconds) throws IOException {
+        Files.writeString(dictionaryFile, content);
+        Files.setLastModifiedTime(dictionaryFile, FileTime.from(Instant.ofEpochSecond(modifiedSeconds)));
+    }
+}